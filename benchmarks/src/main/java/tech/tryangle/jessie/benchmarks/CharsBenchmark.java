@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tech.tryangle.jessie.util.Chars;
+
+import java.util.concurrent.TimeUnit;
+
+/* The Chars conversions, the numeric ones on fixed values and the charset ones on the medium document */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class CharsBenchmark {
+
+    private int intValue = -1234567890;
+
+    private long longValue = 9_007_199_254_740_993L;
+
+    private double doubleValue = 12345.6789e-3;
+
+    private char[] intChars;
+
+    private char[] longChars;
+
+    private char[] chars;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        intChars = Integer.toString(intValue).toCharArray();
+        longChars = Long.toString(longValue).toCharArray();
+        chars = Corpus.chars("medium");
+        bytes = Corpus.bytes("medium");
+    }
+
+    @Benchmark
+    public char[] intToChars() {
+        return Chars.intToChars(intValue);
+    }
+
+    @Benchmark
+    public char[] longToChars() {
+        return Chars.longToChars(longValue);
+    }
+
+    @Benchmark
+    public char[] doubleToChars() {
+        return Chars.doubleToChars(doubleValue);
+    }
+
+    @Benchmark
+    public int charsToInt() {
+        return Chars.charsToInt(intChars);
+    }
+
+    @Benchmark
+    public long charsToLong() {
+        return Chars.charsToLong(longChars);
+    }
+
+    @Benchmark
+    public byte[] toBytes() {
+        return Chars.toBytes(chars);
+    }
+
+    @Benchmark
+    public char[] toChars() {
+        return Chars.toChars(bytes);
+    }
+
+}
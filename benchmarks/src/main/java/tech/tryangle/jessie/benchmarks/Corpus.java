@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * The committed documents under src/main/resources/corpus: small, medium and large record lists plus
+ * string-heavy (escapes, non-ASCII and surrogate pairs), number-heavy and deeply nested shapes. Every
+ * document has a "meta.owner.name" key, and the record lists keep their records under "data".
+ */
+final class Corpus {
+
+    private Corpus() {
+    }
+
+    static byte[] bytes(String document) {
+        try (InputStream in = Corpus.class.getResourceAsStream("/corpus/" + document + ".json")) {
+            if (in == null) throw new IllegalArgumentException("unknown document: " + document);
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot read document: " + document, e);
+        }
+    }
+
+    static char[] chars(String document) {
+        return new String(bytes(document), StandardCharsets.UTF_8).toCharArray();
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tech.tryangle.jessie.json.JSONEntity;
+import tech.tryangle.jessie.json.JSONParser;
+import tech.tryangle.jessie.json.JSONParserContext;
+
+import java.util.concurrent.TimeUnit;
+
+/* JSONParser.parseJson over every corpus document, from chars, from UTF-8 bytes and through a warm context */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class ParseBenchmark {
+
+    @Param({"small", "medium", "large", "strings", "numbers", "nested"})
+    public String document;
+
+    private char[] chars;
+
+    private byte[] bytes;
+
+    private JSONParserContext context;
+
+    @Setup
+    public void setup() {
+        chars = Corpus.chars(document);
+        bytes = Corpus.bytes(document);
+        context = new JSONParserContext();
+    }
+
+    @Benchmark
+    public JSONEntity parseChars() {
+        return JSONParser.parseJson(chars);
+    }
+
+    @Benchmark
+    public JSONEntity parseBytes() {
+        return JSONParser.parseJson(bytes);
+    }
+
+    @Benchmark
+    public JSONEntity parseWithContext() {
+        return context.parseJson(chars);
+    }
+
+}
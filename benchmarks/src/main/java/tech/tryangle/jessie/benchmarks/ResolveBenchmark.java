@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tech.tryangle.jessie.json.JSONEntity;
+import tech.tryangle.jessie.json.JSONParser;
+import tech.tryangle.jessie.json.JSONPath;
+
+import java.util.concurrent.TimeUnit;
+
+/* Lookups on an already parsed record list: a top level get, a dotted resolve and a compiled path into a list */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class ResolveBenchmark {
+
+    @Param({"small", "medium", "large"})
+    public String document;
+
+    private JSONEntity entity;
+
+    private JSONPath path;
+
+    @Setup
+    public void setup() {
+        entity = JSONParser.parseJson(Corpus.chars(document));
+        path = JSONPath.compile("data[2].address.city");
+    }
+
+    @Benchmark
+    public Object get() {
+        return entity.get("meta");
+    }
+
+    @Benchmark
+    public char[] resolvePattern() {
+        return entity.resolve("meta.owner.name", char[].class);
+    }
+
+    @Benchmark
+    public char[] resolvePath() {
+        return entity.resolve(path, char[].class);
+    }
+
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import tech.tryangle.jessie.util.CharArrayBuilder;
+
+import java.nio.ByteBuffer;
+
+/*
+ * This object parses UTF-8 JSON fed in arbitrary chunks (as they arrive from the network),
+ * every token split between two chunks is resumed on the next feed, it is not thread-safe
+ */
+public class JSONAsyncParser {
+
+    /* What the parser was in the middle of when the last chunk ended */
+    private static final int NONE = 0, STRING = 1, ESCAPE = 2, UNICODE = 3, UTF8 = 4, NUMBER = 5, LITERAL = 6;
+
+    private final JSONHandler handler;
+
+    /* The tree builder when no handler was given */
+    private final JSONTreeBuilder tree;
+
+    private final JSONSyntax syntax = new JSONSyntax();
+
+    /* Holds the chars of the current string or key */
+    private final CharArrayBuilder builder = new CharArrayBuilder();
+
+    /* Holds the chars of the current number */
+    private final CharArrayBuilder digits = new CharArrayBuilder();
+
+    private final JSONNumberParser numbers = new JSONNumberParser();
+
+    private int state = NONE;
+
+    /* Whether the current string is an object key */
+    private boolean key;
+
+    /* The unicode escape or UTF-8 sequence being decoded */
+    private int codePoint;
+
+    private int length;
+
+    private int remaining;
+
+    /* The literal being matched */
+    private char[] literal;
+
+    private int matched;
+
+    private boolean ended = false;
+
+    /* Creates a parser that builds a JSON entity, see getResult() */
+    public JSONAsyncParser() {
+        this(JSONParserOptions.defaults());
+    }
+
+    /* Creates a parser that builds a JSON entity with the options, strings are always copied out of the chunks */
+    public JSONAsyncParser(JSONParserOptions options) {
+        if (options == null) throw new NullPointerException("options must not be null");
+        this.tree = new JSONTreeBuilder(options, null);
+        this.handler = tree;
+    }
+
+    /* Creates a parser that emits every event to the handler as soon as it is complete */
+    public JSONAsyncParser(JSONHandler handler) {
+        if (handler == null) throw new NullPointerException("handler must not be null");
+        this.tree = null;
+        this.handler = handler;
+    }
+
+    /* Consumes every remaining byte of the chunk, its position is moved to the limit */
+    public void feed(ByteBuffer chunk) {
+        if (ended) throw new JSONException("parser already ended");
+        int limit = chunk.limit();
+        try {
+            for (int i = chunk.position(); i < limit; i++) {
+                consume(chunk.get(i));
+            }
+        } catch (RuntimeException e) {
+            /* the handler may throw too, the partial strings must not outlive the failure */
+            wipe();
+            throw e;
+        }
+        chunk.position(limit);
+    }
+
+    public void feed(byte[] chunk) {
+        feed(ByteBuffer.wrap(chunk));
+    }
+
+    public void feed(byte[] chunk, int offset, int length) {
+        feed(ByteBuffer.wrap(chunk, offset, length));
+    }
+
+    /* Signals that no more chunks will come, completing a trailing number and checking the document is whole */
+    public void end() {
+        if (ended) return;
+        ended = true;
+        try {
+            if (state == NUMBER) {
+                finishNumber();
+                state = NONE;
+            } else if (state == LITERAL) {
+                throw new JSONException("dangling in-between char");
+            } else if (state != NONE) {
+                throw new JSONException("unterminated string");
+            }
+            syntax.end();
+        } finally {
+            wipe();
+        }
+    }
+
+    /* Whether a whole JSON value was parsed (a top-level number is only complete after a delimiter or end()) */
+    public boolean isDone() {
+        return syntax.isDone() && state == NONE;
+    }
+
+    /* The parsed entity once the document is done, null while it is incomplete or when a handler was given */
+    public JSONEntity getResult() {
+        if (tree == null || !isDone()) return null;
+        return tree.getResult();
+    }
+
+    private void consume(byte current) {
+        switch (state) {
+            case STRING -> {
+                if (current == '"') {
+                    JSONParser.emitString(handler, key, builder.buffer(), 0, builder.size());
+                    builder.clear();
+                    state = NONE;
+                } else if (current == '\\') {
+                    state = ESCAPE;
+                } else if (current >= 0) {
+                    builder.add((char) current);
+                } else {
+                    int lead = current & 0xFF;
+                    length = JSONParser.utf8Length(lead);
+                    codePoint = JSONParser.utf8Bits(lead, length);
+                    remaining = length - 1;
+                    state = UTF8;
+                }
+            }
+            case ESCAPE -> {
+                if (current == 'u') {
+                    codePoint = 0;
+                    remaining = 4;
+                    state = UNICODE;
+                } else {
+                    builder.add(JSONParser.unescape((char) current));
+                    state = STRING;
+                }
+            }
+            case UNICODE -> {
+                codePoint = (codePoint << 4) | JSONParser.hexDigit((char) current);
+                if (--remaining == 0) {
+                    builder.add((char) codePoint);
+                    state = STRING;
+                }
+            }
+            case UTF8 -> {
+                codePoint = JSONParser.utf8Continue(codePoint, current);
+                if (--remaining == 0) {
+                    JSONParser.addCodePoint(builder, codePoint, length);
+                    state = STRING;
+                }
+            }
+            case NUMBER -> {
+                if (JSONNumberParser.isNumeric(current)) {
+                    digits.add((char) current);
+                } else {
+                    finishNumber();
+                    state = NONE;
+                    consumeToken(current);
+                }
+            }
+            case LITERAL -> {
+                if (current != literal[matched]) throw new JSONException("dangling in-between char");
+                if (++matched == literal.length) {
+                    if (literal == JSONParser.NULL) {
+                        handler.nullValue();
+                    } else {
+                        handler.booleanValue(literal == JSONParser.TRUE);
+                    }
+                    state = NONE;
+                }
+            }
+            default -> consumeToken(current);
+        }
+    }
+
+    private void consumeToken(byte current) {
+        if (current == '"') {
+            key = syntax.isKey();
+            if (key) {
+                syntax.key();
+            } else {
+                syntax.value();
+            }
+            state = STRING;
+        } else if (current == '{') {
+            syntax.open(true);
+            handler.startObject();
+        } else if (current == '[') {
+            syntax.open(false);
+            handler.startList();
+        } else if (current == '}') {
+            syntax.close(true);
+            handler.endObject();
+        } else if (current == ']') {
+            syntax.close(false);
+            handler.endList();
+        } else if (current == '-' || (current >= '0' && current <= '9')) {
+            syntax.value();
+            digits.add((char) current);
+            state = NUMBER;
+        } else if (current == 't' || current == 'f' || current == 'n') {
+            syntax.value();
+            literal = current == 't' ? JSONParser.TRUE : current == 'f' ? JSONParser.FALSE : JSONParser.NULL;
+            matched = 1;
+            state = LITERAL;
+        } else if (current == ':') {
+            syntax.colon();
+        } else if (current == ',') {
+            syntax.comma();
+        } else if (current < 0 || (current != ' ' && current != '\n' && current != '\r' && current != '\t' && !Character.isISOControl(current))) {
+            throw new JSONException("dangling unknown char");
+        }
+    }
+
+    private void finishNumber() {
+        try {
+            numbers.parse(digits.buffer(), 0, digits.size());
+        } finally {
+            digits.clear();
+        }
+        numbers.emit(handler);
+    }
+
+    private void wipe() {
+        builder.clear();
+        digits.clear();
+        codePoint = 0;
+    }
+
+}
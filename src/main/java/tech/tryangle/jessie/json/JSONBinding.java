@@ -0,0 +1,1161 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+/*
+ * How the values of one Java type are read from parse events (see JSONValueReader) and written to a JSONWriter. Bindings are analyzed
+ * once per class and cached (see of(Class)), records and POJOs resolve the bindings of their properties on first
+ * use so types can refer to themselves.
+ */
+abstract class JSONBinding extends JSONValueReader {
+
+    private static final ClassValue<JSONBinding> BINDINGS = new ClassValue<>() {
+        @Override
+        protected JSONBinding computeValue(Class<?> type) {
+            return create(type);
+        }
+    };
+
+    /* Reads any value and its children to nothing, e.g. for unknown keys */
+    static final JSONBinding SKIP = new Skip();
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    JSONBinding(Type type) {
+        super(type);
+    }
+
+    static JSONBinding of(Class<?> type) {
+        return BINDINGS.get(type);
+    }
+
+    /* The binding of a possibly generic type, parameterized collections and maps get one of their own */
+    static JSONBinding of(Type type) {
+        if (type instanceof Class<?> casted) return of(casted);
+        if (type instanceof ParameterizedType parameterized) {
+            Class<?> raw = (Class<?>) parameterized.getRawType();
+            Type[] arguments = parameterized.getActualTypeArguments();
+            if (Iterable.class.isAssignableFrom(raw)) return new CollectionBinding(type, raw, of(arguments[0]));
+            if (Map.class.isAssignableFrom(raw)) return new MapBinding(type, raw, arguments[0], of(arguments[1]));
+            return of(raw);
+        }
+        if (type instanceof GenericArrayType array) {
+            Type component = array.getGenericComponentType();
+            return new ArrayBinding(type, raw(component), of(component));
+        }
+        return of(raw(type));
+    }
+
+    private static Class<?> raw(Type type) {
+        if (type instanceof Class<?> casted) return casted;
+        if (type instanceof ParameterizedType parameterized) return (Class<?>) parameterized.getRawType();
+        if (type instanceof GenericArrayType array) return Array.newInstance(raw(array.getGenericComponentType()), 0).getClass();
+        if (type instanceof WildcardType wildcard) return raw(wildcard.getUpperBounds()[0]);
+        if (type instanceof TypeVariable<?> variable) return raw(variable.getBounds()[0]);
+        return Object.class;
+    }
+
+    private static JSONBinding create(Class<?> type) {
+        if (type == String.class || type == CharSequence.class) return new StringBinding(type);
+        if (type == char[].class) return new CharsBinding(type);
+        if (type == boolean.class || type == Boolean.class) return new BooleanBinding(type);
+        if (type == int.class || type == Integer.class) return new NumberBinding(type, NumberBinding.INT);
+        if (type == long.class || type == Long.class) return new NumberBinding(type, NumberBinding.LONG);
+        if (type == double.class || type == Double.class) return new NumberBinding(type, NumberBinding.DOUBLE);
+        if (type == float.class || type == Float.class) return new NumberBinding(type, NumberBinding.FLOAT);
+        if (type == short.class || type == Short.class) return new NumberBinding(type, NumberBinding.SHORT);
+        if (type == byte.class || type == Byte.class) return new NumberBinding(type, NumberBinding.BYTE);
+        if (type == Number.class) return new NumberBinding(type, NumberBinding.ANY);
+        if (type == JSONEntity.class) return new EntityBinding(type, false);
+        if (type == Object.class) return new EntityBinding(type, true);
+        if (type.isEnum()) return new EnumBinding(type);
+        if (type.isArray()) return new ArrayBinding(type, type.getComponentType(), of(type.getComponentType()));
+        if (type.isAnnotationPresent(JessieJson.class)) {
+            JSONCodec<?> codec = JSONCodec.of(type);
+            if (codec != null) return new CodecBinding(type, codec);
+        }
+        if (type.isRecord()) return new RecordBinding(type);
+        if (Iterable.class.isAssignableFrom(type)) return new CollectionBinding(type, type, of(Object.class));
+        if (Map.class.isAssignableFrom(type)) return new MapBinding(type, type, String.class, of(Object.class));
+        if (type.isPrimitive() || type.isInterface() || Modifier.isAbstract(type.getModifiers())) return new Unsupported(type);
+        return new PojoBinding(type);
+    }
+
+    /* Writes the value (never null) */
+    abstract void write(JSONWriter writer, Object value);
+
+    /* Writes the value or a null */
+    static void write(JSONWriter writer, JSONBinding binding, Object value) {
+        if (value == null) {
+            writer.nullValue();
+        } else {
+            binding.write(writer, value);
+        }
+    }
+
+    /* A lookup able to reach the private members of the type when its module allows it */
+    private static MethodHandles.Lookup lookup(Class<?> type) {
+        try {
+            return MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            return MethodHandles.publicLookup();
+        }
+    }
+
+    private static boolean equals(String name, char[] chars, int offset, int length) {
+        if (name.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != chars[offset + i]) return false;
+        }
+        return true;
+    }
+
+    private static final class Skip extends JSONBinding {
+
+        private static final Frame FRAME = new Frame() {
+            @Override
+            JSONBinding next() {
+                return SKIP;
+            }
+
+            @Override
+            void add(Object value) {
+            }
+
+            @Override
+            Object end() {
+                return null;
+            }
+        };
+
+        Skip() {
+            super(Object.class);
+        }
+
+        @Override
+        Object readString(char[] chars, int offset, int length) {
+            return null;
+        }
+
+        @Override
+        Object readLong(long value) {
+            return null;
+        }
+
+        @Override
+        Object readDouble(double value) {
+            return null;
+        }
+
+        @Override
+        Object readBoolean(boolean value) {
+            return null;
+        }
+
+        /* The keys of a skipped object must still be unique, as the parser requires */
+        @Override
+        Frame startObject() {
+            return new Frame() {
+                private Set<String> keys = null;
+
+                @Override
+                JSONBinding next() {
+                    return SKIP;
+                }
+
+                @Override
+                void key(char[] chars, int offset, int length) {
+                    if (keys == null) keys = new HashSet<>();
+                    if (!keys.add(new String(chars, offset, length))) throw new JSONException("duplicate key");
+                }
+
+                @Override
+                void add(Object value) {
+                }
+
+                @Override
+                Object end() {
+                    return null;
+                }
+            };
+        }
+
+        @Override
+        Frame startList() {
+            return FRAME;
+        }
+
+        @Override
+        void write(JSONWriter writer, Object value) {
+            writer.nullValue();
+        }
+
+    }
+
+    /* A type that cannot be bound, it only fails when used so it can sit in a type that is never filled */
+    private static final class Unsupported extends JSONBinding {
+
+        Unsupported(Type type) {
+            super(type);
+        }
+
+        @Override
+        JSONException mismatch(String found) {
+            return new JSONException("cannot bind to " + type.getTypeName());
+        }
+
+        @Override
+        void write(JSONWriter writer, Object value) {
+            throw new JSONException("cannot bind " + type.getTypeName());
+        }
+
+    }
+
+    private static final class StringBinding extends JSONBinding {
+
+        StringBinding(Type type) {
+            super(type);
+        }
+
+        @Override
+        Object readString(char[] chars, int offset, int length) {
+            return new String(chars, offset, length);
+        }
+
+        @Override
+        void write(JSONWriter writer, Object value) {
+            writer.value((CharSequence) value);
+        }
+
+    }
+
+    private static final class CharsBinding extends JSONBinding {
+
+        CharsBinding(Type type) {
+            super(type);
+        }
+
+        @Override
+        Object readString(char[] chars, int offset, int length) {
+            return Arrays.copyOfRange(chars, offset, offset + length);
+        }
+
+        @Override
+        void write(JSONWriter writer, Object value) {
+            writer.value((char[]) value);
+        }
+
+    }
+
+    private static final class BooleanBinding extends JSONBinding {
+
+        private final boolean primitive;
+
+        BooleanBinding(Class<?> type) {
+            super(type);
+            this.primitive = type.isPrimitive();
+        }
+
+        @Override
+        Object readBoolean(boolean value) {
+            return value;
+        }
+
+        @Override
+        Object readNull() {
+            return primitive ? Boolean.FALSE : null;
+        }
+
+        @Override
+        void write(JSONWriter writer, Object value) {
+            writer.value((boolean) (Boolean) value);
+        }
+
+    }
+
+    private static final class NumberBinding extends JSONBinding {
+
+        static final int INT = 0;
+        static final int LONG = 1;
+        static final int DOUBLE = 2;
+        static final int FLOAT = 3;
+        static final int SHORT = 4;
+        static final int BYTE = 5;
+        /* Long or Double, as parsed */
+        static final int ANY = 6;
+
+        private final int kind;
+
+        /* The zero value read from a null for primitives */
+        private final Object zero;
+
+        NumberBinding(Class<?> type, int kind) {
+            super(type);
+            this.kind = kind;
+            this.zero = type.isPrimitive() ? readLong(0) : null;
+        }
+
+        @Override
+        Object readLong(long value) {
+            return switch (kind) {
+                case INT -> (int) range(value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+                case DOUBLE -> (double) value;
+                case FLOAT -> (float) value;
+                case SHORT -> (short) range(value, Short.MIN_VALUE, Short.MAX_VALUE);
+                case BYTE -> (byte) range(value, Byte.MIN_VALUE, Byte.MAX_VALUE);
+                default -> value;
+            };
+        }
+
+        @Override
+        Object readDouble(double value) {
+            if (kind == DOUBLE || kind == ANY) return value;
+            if (kind == FLOAT) return (float) value;
+            if (value != Math.rint(value) || value >= 0x1p63 || value < -0x1p63) throw mismatch("a decimal");
+            return readLong((long) value);
+        }
+
+        @Override
+        Object readNull() {
+            return zero;
+        }
+
+        @Override
+        void write(JSONWriter writer, Object value) {
+            if (value instanceof Double || value instanceof Float) {
+                writer.value(((Number) value).doubleValue());
+            } else {
+                writer.value(((Number) value).longValue());
+            }
+        }
+
+        private static long range(long value, long min, long max) {
+            if (value < min || value > max) throw new JSONException("numeric out of range");
+            return value;
+        }
+
+    }
+
+    private static final class EnumBinding extends JSONBinding {
+
+        private final Enum<?>[] constants;
+
+        EnumBinding(Class<?> type) {
+            super(type);
+            this.constants = (Enum<?>[]) type.getEnumConstants();
+        }
+
+        @Override
+        Object readString(char[] chars, int offset, int length) {
+            for (Enum<?> constant : constants) {
+                if (JSONBinding.equals(constant.name(), chars, offset, length)) return constant;
+            }
+            throw new JSONException(String.format("unknown constant of %s", type.getTypeName()));
+        }
+
+        @Override
+        void write(JSONWriter writer, Object value) {
+            writer.value(((Enum<?>) value).name());
+        }
+
+    }
+
+    /*
+     * JSON entities as the tree builder makes them, for Object scalars come unwrapped (a string as char[]) and
+     * values are written by their runtime type
+     */
+    private static final class EntityBinding extends JSONBinding {
+
+        /* Whether the binding is the one of Object */
+        private final boolean any;
+
+        EntityBinding(Type type, boolean any) {
+            super(type);
+            this.any = any;
+        }
+
+        @Override
+        Object readString(char[] chars, int offset, int length) {
+            JSONTreeBuilder tree = new JSONTreeBuilder();
+            tree.stringValue(chars, offset, length);
+            return result(tree);
+        }
+
+        @Override
+        Object readLong(long value) {
+            return any ? value : entity(value);
+        }
+
+        @Override
+        Object readDouble(double value) {
+            return any ? value : entity(value);
+        }
+
+        @Override
+        Object readBoolean(boolean value) {
+            return any ? value : entity(value);
+        }
+
+        @Override
+        Frame startObject() {
+            JSONTreeBuilder tree = new JSONTreeBuilder();
+            tree.startObject();
+            return new Capture(tree).frame(true);
+        }
+
+        @Override
+        Frame startList() {
+            JSONTreeBuilder tree = new JSONTreeBuilder();
+            tree.startList();
+            return new Capture(tree).frame(false);
+        }
+
+        @Override
+        void write(JSONWriter writer, Object value) {
+            if (value instanceof JSONEntity entity) {
+                writer.value(entity);
+            } else if (any && value.getClass() != Object.class) {
+                of(value.getClass()).write(writer, value);
+            } else {
+                throw new JSONException("cannot bind " + value.getClass().getTypeName());
+            }
+        }
+
+        private Object result(JSONTreeBuilder tree) {
+            JSONEntity entity = tree.getResult();
+            return any ? entity.getValue() : entity;
+        }
+
+        private static JSONEntity entity(Object value) {
+            JSONEntity entity = JSONEntity.newValue();
+            entity.setValue(value);
+            return entity;
+        }
+
+    }
+
+    /* Forwards the events of one object or list and its children to a tree builder */
+    private static final class Capture extends JSONBinding {
+
+        private final JSONTreeBuilder tree;
+
+        private int depth = 0;
+
+        Capture(JSONTreeBuilder tree) {
+            super(JSONEntity.class);
+            this.tree = tree;
+        }
+
+        Frame frame(boolean object) {
+            depth++;
+            return new Frame() {
+                @Override
+                JSONBinding next() {
+                    return Capture.this;
+                }
+
+                @Override
+                void key(char[] chars, int offset, int length) {
+                    tree.key(chars, offset, length);
+                }
+
+                @Override
+                void add(Object value) {
+                }
+
+                @Override
+                Object end() {
+                    if (object) {
+                        tree.endObject();
+                    } else {
+                        tree.endList();
+                    }
+                    return --depth == 0 ? tree.getResult() : null;
+                }
+            };
+        }
+
+        @Override
+        Object readString(char[] chars, int offset, int length) {
+            tree.stringValue(chars, offset, length);
+            return null;
+        }
+
+        @Override
+        Object readLong(long value) {
+            tree.numberValue(value);
+            return null;
+        }
+
+        @Override
+        Object readDouble(double value) {
+            tree.numberValue(value);
+            return null;
+        }
+
+        @Override
+        Object readBoolean(boolean value) {
+            tree.booleanValue(value);
+            return null;
+        }
+
+        @Override
+        Object readNull() {
+            tree.nullValue();
+            return null;
+        }
+
+        @Override
+        Frame startObject() {
+            tree.startObject();
+            return frame(true);
+        }
+
+        @Override
+        Frame startList() {
+            tree.startList();
+            return frame(false);
+        }
+
+        @Override
+        void write(JSONWriter writer, Object value) {
+            writer.value((JSONEntity) value);
+        }
+
+    }
+
+    private static final class ArrayBinding extends JSONBinding {
+
+        private final Class<?> component;
+
+        private final JSONBinding element;
+
+        ArrayBinding(Type type, Class<?> component, JSONBinding element) {
+            super(type);
+            this.component = component;
+            this.element = element;
+        }
+
+        @Override
+        Frame startList() {
+            List<Object> values = new ArrayList<>();
+            return new Frame() {
+                @Override
+                JSONBinding next() {
+                    return element;
+                }
+
+                @Override
+                void add(Object value) {
+                    values.add(value);
+                }
+
+                @Override
+                Object end() {
+                    Object array = Array.newInstance(component, values.size());
+                    for (int i = 0; i < values.size(); i++) {
+                        Array.set(array, i, values.get(i));
+                    }
+                    return array;
+                }
+            };
+        }
+
+        @Override
+        void write(JSONWriter writer, Object value) {
+            writer.beginList();
+            if (value instanceof long[] longs) {
+                for (long current : longs) writer.value(current);
+            } else if (value instanceof int[] ints) {
+                for (int current : ints) writer.value(current);
+            } else if (value instanceof double[] doubles) {
+                for (double current : doubles) writer.value(current);
+            } else if (value instanceof Object[] objects) {
+                for (Object current : objects) write(writer, element, current);
+            } else {
+                for (int i = 0, length = Array.getLength(value); i < length; i++) element.write(writer, Array.get(value, i));
+            }
+            writer.endList();
+        }
+
+    }
+
+    private static final class CollectionBinding extends JSONBinding {
+
+        private final Supplier<Collection<Object>> factory;
+
+        private final JSONBinding element;
+
+        @SuppressWarnings("unchecked")
+        CollectionBinding(Type type, Class<?> raw, JSONBinding element) {
+            super(type);
+            this.element = element;
+            if (!raw.isInterface() && !Modifier.isAbstract(raw.getModifiers())) {
+                Supplier<Object> constructor = constructor(raw);
+                this.factory = () -> (Collection<Object>) constructor.get();
+            } else if (SortedSet.class.isAssignableFrom(raw)) {
+                this.factory = TreeSet::new;
+            } else if (Set.class.isAssignableFrom(raw)) {
+                this.factory = LinkedHashSet::new;
+            } else if (Queue.class.isAssignableFrom(raw)) {
+                this.factory = ArrayDeque::new;
+            } else {
+                this.factory = ArrayList::new;
+            }
+        }
+
+        @Override
+        Frame startList() {
+            Collection<Object> values = factory.get();
+            return new Frame() {
+                @Override
+                JSONBinding next() {
+                    return element;
+                }
+
+                @Override
+                void add(Object value) {
+                    values.add(value);
+                }
+
+                @Override
+                Object end() {
+                    return values;
+                }
+            };
+        }
+
+        @Override
+        void write(JSONWriter writer, Object value) {
+            writer.beginList();
+            for (Object current : (Iterable<?>) value) {
+                write(writer, element, current);
+            }
+            writer.endList();
+        }
+
+    }
+
+    private static final class MapBinding extends JSONBinding {
+
+        private final Supplier<Map<String, Object>> factory;
+
+        private final JSONBinding element;
+
+        @SuppressWarnings("unchecked")
+        MapBinding(Type type, Class<?> raw, Type key, JSONBinding element) {
+            super(type);
+            this.element = element;
+            if (key != String.class && key != Object.class && key != CharSequence.class) {
+                this.factory = () -> {
+                    throw new JSONException("cannot bind to " + type.getTypeName() + ", keys must be strings");
+                };
+            } else if (!raw.isInterface() && !Modifier.isAbstract(raw.getModifiers())) {
+                Supplier<Object> constructor = constructor(raw);
+                this.factory = () -> (Map<String, Object>) constructor.get();
+            } else if (SortedMap.class.isAssignableFrom(raw)) {
+                this.factory = TreeMap::new;
+            } else {
+                this.factory = LinkedHashMap::new;
+            }
+        }
+
+        @Override
+        Frame startObject() {
+            Map<String, Object> values = factory.get();
+            return new Frame() {
+                private String key;
+
+                @Override
+                JSONBinding next() {
+                    return element;
+                }
+
+                @Override
+                void key(char[] chars, int offset, int length) {
+                    key = new String(chars, offset, length);
+                    if (values.containsKey(key)) throw new JSONException("duplicate key");
+                }
+
+                @Override
+                void add(Object value) {
+                    values.put(key, value);
+                }
+
+                @Override
+                Object end() {
+                    return values;
+                }
+            };
+        }
+
+        @Override
+        void write(JSONWriter writer, Object value) {
+            writer.beginObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                writer.name(String.valueOf(entry.getKey()));
+                write(writer, element, entry.getValue());
+            }
+            writer.endObject();
+        }
+
+    }
+
+    /* The no-arg constructor of the type, failing when used if there is none */
+    private static Supplier<Object> constructor(Class<?> type) {
+        try {
+            MethodHandle handle = lookup(type).unreflectConstructor(type.getDeclaredConstructor()).asType(MethodType.methodType(Object.class));
+            return () -> {
+                try {
+                    return (Object) handle.invokeExact();
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new JSONException(String.format("cannot create %s: %s", type.getTypeName(), e));
+                }
+            };
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return () -> {
+                throw new JSONException(String.format("cannot create %s without an accessible no-arg constructor", type.getTypeName()));
+            };
+        }
+    }
+
+    /*
+     * Records and POJOs, both bound by the names of their properties. Keys usually come in the declared order,
+     * so the property after the last one found is tried first.
+     */
+    private abstract static class ObjectBinding extends JSONBinding {
+
+        final String[] names;
+
+        /* The declared type of every property */
+        private final Type[] types;
+
+        /* The property values as (Object) -> Object handles */
+        final MethodHandle[] getters;
+
+        private volatile JSONBinding[] bindings;
+
+        ObjectBinding(Type type, String[] names, Type[] types, MethodHandle[] getters) {
+            super(type);
+            this.names = names;
+            this.types = types;
+            this.getters = getters;
+        }
+
+        /* The bindings of the properties, resolved on first use */
+        final JSONBinding[] bindings() {
+            JSONBinding[] resolved = bindings;
+            if (resolved == null) {
+                resolved = new JSONBinding[types.length];
+                for (int i = 0; i < types.length; i++) resolved[i] = of(types[i]);
+                bindings = resolved;
+            }
+            return resolved;
+        }
+
+        /* The frame of one object, its keys must be unique as the parser requires */
+        abstract class ObjectFrame extends Frame {
+
+            /* The property of the current key, -1 when unknown */
+            int index = -1;
+
+            private final boolean[] seen = new boolean[names.length];
+
+            private Set<String> unknown = null;
+
+            @Override
+            final void key(char[] chars, int offset, int length) {
+                index = indexOf(chars, offset, length, index + 1);
+                if (index != -1) {
+                    if (seen[index]) throw new JSONException("duplicate key");
+                    seen[index] = true;
+                } else {
+                    if (unknown == null) unknown = new HashSet<>();
+                    if (!unknown.add(new String(chars, offset, length))) throw new JSONException("duplicate key");
+                }
+            }
+
+        }
+
+        final int indexOf(char[] chars, int offset, int length, int guess) {
+            if (guess < names.length && JSONBinding.equals(names[guess], chars, offset, length)) return guess;
+            for (int i = 0; i < names.length; i++) {
+                if (JSONBinding.equals(names[i], chars, offset, length)) return i;
+            }
+            return -1;
+        }
+
+        @Override
+        void write(JSONWriter writer, Object value) {
+            JSONBinding[] resolved = bindings();
+            writer.beginObject();
+            for (int i = 0; i < getters.length; i++) {
+                if (getters[i] == null) continue;
+                writer.name(names[i]);
+                write(writer, resolved[i], get(getters[i], value));
+            }
+            writer.endObject();
+        }
+
+        final Object get(MethodHandle getter, Object value) {
+            try {
+                return (Object) getter.invokeExact(value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new JSONException(String.format("cannot read %s: %s", type.getTypeName(), e));
+            }
+        }
+
+    }
+
+    private static final class RecordBinding extends ObjectBinding {
+
+        /* The canonical constructor as an (Object[]) -> Object handle, null when not accessible */
+        private final MethodHandle constructor;
+
+        /* The arguments of missing properties, zero values for primitives */
+        private final Object[] defaults;
+
+        private RecordBinding(Class<?> type, RecordComponent[] components, MethodHandles.Lookup lookup) {
+            super(type, names(components), types(components), getters(components, lookup));
+            Class<?>[] parameters = new Class<?>[components.length];
+            this.defaults = new Object[components.length];
+            for (int i = 0; i < components.length; i++) {
+                parameters[i] = components[i].getType();
+                if (parameters[i].isPrimitive()) defaults[i] = of(parameters[i]).readNull();
+            }
+            MethodHandle handle;
+            try {
+                Constructor<?> canonical = type.getDeclaredConstructor(parameters);
+                handle = lookup.unreflectConstructor(canonical)
+                        .asSpreader(Object[].class, parameters.length)
+                        .asType(MethodType.methodType(Object.class, Object[].class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                handle = null;
+            }
+            this.constructor = handle;
+        }
+
+        RecordBinding(Class<?> type) {
+            this(type, type.getRecordComponents(), lookup(type));
+        }
+
+        @Override
+        Frame startObject() {
+            if (constructor == null) throw new JSONException("cannot create " + type.getTypeName());
+            JSONBinding[] resolved = bindings();
+            Object[] args = defaults.length == 0 ? NO_ARGS : defaults.clone();
+            return new ObjectFrame() {
+                @Override
+                JSONBinding next() {
+                    return index == -1 ? SKIP : resolved[index];
+                }
+
+                @Override
+                void add(Object value) {
+                    if (index != -1) args[index] = value;
+                }
+
+                @Override
+                Object end() {
+                    try {
+                        return (Object) constructor.invokeExact(args);
+                    } catch (Throwable e) {
+                        throw new JSONException(String.format("cannot create %s: %s", type.getTypeName(), e));
+                    }
+                }
+            };
+        }
+
+        private static String[] names(RecordComponent[] components) {
+            String[] names = new String[components.length];
+            for (int i = 0; i < components.length; i++) names[i] = components[i].getName();
+            return names;
+        }
+
+        private static Type[] types(RecordComponent[] components) {
+            Type[] types = new Type[components.length];
+            for (int i = 0; i < components.length; i++) types[i] = components[i].getGenericType();
+            return types;
+        }
+
+        private static MethodHandle[] getters(RecordComponent[] components, MethodHandles.Lookup lookup) {
+            MethodHandle[] getters = new MethodHandle[components.length];
+            for (int i = 0; i < components.length; i++) {
+                try {
+                    getters[i] = lookup.unreflect(components[i].getAccessor()).asType(MethodType.methodType(Object.class, Object.class));
+                } catch (IllegalAccessException e) {
+                    getters[i] = null;
+                }
+            }
+            return getters;
+        }
+
+    }
+
+    /* Classes with a no-arg constructor, their non static and non transient fields are the properties */
+    private static final class PojoBinding extends ObjectBinding {
+
+        private final Supplier<Object> constructor;
+
+        /* The property setters as (Object, Object) -> void handles, null for read-only properties */
+        private final MethodHandle[] setters;
+
+        private PojoBinding(Class<?> type, List<Field> fields, MethodHandles.Lookup lookup) {
+            super(type, fields.stream().map(Field::getName).toArray(String[]::new), fields.stream().map(Field::getGenericType).toArray(Type[]::new), getters(type, fields, lookup));
+            this.constructor = constructor(type);
+            this.setters = setters(type, fields, lookup);
+        }
+
+        PojoBinding(Class<?> type) {
+            this(type, fields(type), lookup(type));
+        }
+
+        @Override
+        Frame startObject() {
+            JSONBinding[] resolved = bindings();
+            Object instance = constructor.get();
+            return new ObjectFrame() {
+                @Override
+                JSONBinding next() {
+                    return index == -1 || setters[index] == null ? SKIP : resolved[index];
+                }
+
+                @Override
+                void add(Object value) {
+                    if (index == -1 || setters[index] == null) return;
+                    try {
+                        setters[index].invokeExact(instance, value);
+                    } catch (RuntimeException | Error e) {
+                        throw e;
+                    } catch (Throwable e) {
+                        throw new JSONException(String.format("cannot set %s.%s: %s", type.getTypeName(), names[index], e));
+                    }
+                }
+
+                @Override
+                Object end() {
+                    return instance;
+                }
+            };
+        }
+
+        private static List<Field> fields(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                List<Field> declared = new ArrayList<>();
+                for (Field field : current.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()) declared.add(field);
+                }
+                fields.addAll(0, declared);
+            }
+            return fields;
+        }
+
+        /* The getX() (or isX() for booleans) method of the field, else the field itself */
+        private static MethodHandle[] getters(Class<?> type, List<Field> fields, MethodHandles.Lookup lookup) {
+            MethodHandle[] getters = new MethodHandle[fields.size()];
+            for (int i = 0; i < getters.length; i++) {
+                Field field = fields.get(i);
+                String suffix = Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+                Method method = method(type, "get" + suffix);
+                if (method == null && field.getType() == boolean.class) method = method(type, "is" + suffix);
+                try {
+                    MethodHandle handle = method != null && method.getReturnType() == field.getType() ? lookup.unreflect(method) : lookup.unreflectGetter(field);
+                    getters[i] = handle.asType(MethodType.methodType(Object.class, Object.class));
+                } catch (IllegalAccessException e) {
+                    getters[i] = null;
+                }
+            }
+            return getters;
+        }
+
+        /* The setX(value) method of the field, else the field itself unless final */
+        private static MethodHandle[] setters(Class<?> type, List<Field> fields, MethodHandles.Lookup lookup) {
+            MethodHandle[] setters = new MethodHandle[fields.size()];
+            for (int i = 0; i < setters.length; i++) {
+                Field field = fields.get(i);
+                String name = "set" + Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+                Method method = method(type, name, field.getType());
+                try {
+                    MethodHandle handle;
+                    if (method != null) {
+                        handle = lookup.unreflect(method);
+                    } else if (!Modifier.isFinal(field.getModifiers())) {
+                        handle = lookup.unreflectSetter(field);
+                    } else {
+                        continue;
+                    }
+                    setters[i] = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+                } catch (IllegalAccessException e) {
+                    setters[i] = null;
+                }
+            }
+            return setters;
+        }
+
+        private static Method method(Class<?> type, String name, Class<?>... parameters) {
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                try {
+                    Method method = current.getDeclaredMethod(name, parameters);
+                    if (!Modifier.isStatic(method.getModifiers())) return method;
+                } catch (NoSuchMethodException e) {
+                    /* Look in the superclass */
+                }
+            }
+            return null;
+        }
+
+    }
+
+    /* A @JessieJson type read and written by its generated codec */
+    private static final class CodecBinding extends JSONBinding {
+
+        private final JSONCodec<Object> codec;
+
+        @SuppressWarnings("unchecked")
+        CodecBinding(Type type, JSONCodec<?> codec) {
+            super(type);
+            this.codec = (JSONCodec<Object>) codec;
+        }
+
+        @Override
+        Frame startObject() {
+            return new Forward(codec.newFrame()).frame();
+        }
+
+        @Override
+        void write(JSONWriter writer, Object value) {
+            codec.write(writer, value);
+        }
+
+    }
+
+    /* Passes the events of an object or list to a codec frame, the values land in the frame itself (reading only) */
+    private static final class Forward extends JSONValueReader {
+
+        /* What the scalars read give back, there is nothing to add */
+        private static final Object FORWARDED = new Object();
+
+        private final JSONCodec.Frame<?> target;
+
+        Forward(JSONCodec.Frame<?> target) {
+            super(Object.class);
+            this.target = target;
+        }
+
+        Frame frame() {
+            return new Frame() {
+                @Override
+                JSONValueReader next() {
+                    return Forward.this;
+                }
+
+                @Override
+                void key(char[] chars, int offset, int length) {
+                    target.key(chars, offset, length);
+                }
+
+                @Override
+                void add(Object value) {
+                    if (value != FORWARDED) target.add(value);
+                }
+
+                @Override
+                Object end() {
+                    return target.end();
+                }
+            };
+        }
+
+        @Override
+        Object readString(char[] chars, int offset, int length) {
+            target.stringValue(chars, offset, length);
+            return FORWARDED;
+        }
+
+        @Override
+        Object readLong(long value) {
+            target.numberValue(value);
+            return FORWARDED;
+        }
+
+        @Override
+        Object readDouble(double value) {
+            target.numberValue(value);
+            return FORWARDED;
+        }
+
+        @Override
+        Object readBoolean(boolean value) {
+            target.booleanValue(value);
+            return FORWARDED;
+        }
+
+        @Override
+        Object readNull() {
+            target.nullValue();
+            return FORWARDED;
+        }
+
+        @Override
+        Frame startObject() {
+            return new Forward(target.startObject()).frame();
+        }
+
+        @Override
+        Frame startList() {
+            return new Forward(target.startList()).frame();
+        }
+
+    }
+
+}
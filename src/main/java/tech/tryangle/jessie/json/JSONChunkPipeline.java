@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/*
+ * Keeps a pool busy parsing chunks ahead of the caller, who iterates their entities: at most limit chunks are
+ * parsed or waiting to be consumed at any time. Ordered entities come chunk after chunk, unordered ones from
+ * whichever chunk is done first. Closing stops the submissions and clears the entities never handed out.
+ */
+final class JSONChunkPipeline implements Iterator<JSONEntity> {
+
+    /* The chunks still to be submitted, each one parses to its entities */
+    private final Iterator<Supplier<List<JSONEntity>>> chunks;
+
+    /* The pool chunks are parsed on, null for the common pool */
+    private final ForkJoinPool pool;
+
+    private final int limit;
+
+    private final boolean ordered;
+
+    private final ArrayDeque<CompletableFuture<List<JSONEntity>>> pending = new ArrayDeque<>();
+
+    private Iterator<JSONEntity> current = Collections.emptyIterator();
+
+    private boolean closed = false;
+
+    /* A max in flight of 0 means twice the pool parallelism */
+    JSONChunkPipeline(Iterator<Supplier<List<JSONEntity>>> chunks, ForkJoinPool pool, int maxInFlight, boolean ordered) {
+        this.chunks = chunks;
+        this.pool = pool;
+        this.limit = maxInFlight != 0 ? maxInFlight : 2 * (pool != null ? pool : ForkJoinPool.commonPool()).getParallelism();
+        this.ordered = ordered;
+    }
+
+    /* A sequential stream of the entities, closing it closes the pipeline */
+    static Stream<JSONEntity> stream(Iterator<Supplier<List<JSONEntity>>> chunks, ForkJoinPool pool, int maxInFlight, boolean ordered) {
+        JSONChunkPipeline pipeline = new JSONChunkPipeline(chunks, pool, maxInFlight, ordered);
+        int characteristics = ordered ? Spliterator.ORDERED | Spliterator.NONNULL : Spliterator.NONNULL;
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pipeline, characteristics), false).onClose(pipeline::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (closed) return false;
+            fill();
+            if (pending.isEmpty()) return false;
+            current = take().iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public JSONEntity next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return current.next();
+    }
+
+    /* Stops submitting and clears whatever was parsed but not handed out */
+    void close() {
+        closed = true;
+        current.forEachRemaining(JSONEntity::clear);
+        for (CompletableFuture<List<JSONEntity>> chunk : pending) {
+            chunk.thenAccept(entities -> entities.forEach(JSONEntity::clear));
+        }
+        pending.clear();
+    }
+
+    /* Submits chunks until the limit is reached or there are no more */
+    private void fill() {
+        while (pending.size() < limit && chunks.hasNext()) {
+            Supplier<List<JSONEntity>> chunk = chunks.next();
+            pending.add(pool != null ? CompletableFuture.supplyAsync(chunk, pool) : CompletableFuture.supplyAsync(chunk));
+        }
+    }
+
+    /* The next chunk, the oldest one when ordered or else the first one done */
+    private List<JSONEntity> take() {
+        CompletableFuture<List<JSONEntity>> chunk = pending.peek();
+        if (!ordered && !chunk.isDone()) {
+            CompletableFuture.anyOf(pending.toArray(new CompletableFuture<?>[0])).exceptionally(e -> null).join();
+            for (CompletableFuture<List<JSONEntity>> candidate : pending) {
+                if (candidate.isDone()) {
+                    chunk = candidate;
+                    break;
+                }
+            }
+        }
+        pending.remove(chunk);
+        try {
+            return chunk.join();
+        } catch (CompletionException e) {
+            close();
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/*
+ * The base of the codecs generated for @JessieJson types. Reading feeds the parse events straight to frames that
+ * fill the properties of the type (keys are matched by length and chars, numbers are never boxed), writing goes
+ * straight to a JSONWriter, nothing is reflected at runtime.
+ */
+public abstract class JSONCodec<T> {
+
+    /* Skips a value of an unknown key and all of its children, every object skipped gets a frame checking its keys */
+    public static final Frame<Object> SKIP = new Frame<>() {
+        @Override
+        public void stringValue(char[] chars, int offset, int length) {
+        }
+
+        @Override
+        public void numberValue(long value) {
+        }
+
+        @Override
+        public void numberValue(double value) {
+        }
+
+        @Override
+        public void booleanValue(boolean value) {
+        }
+
+        @Override
+        public Frame<?> startObject() {
+            return new SkipObject();
+        }
+
+        @Override
+        public Frame<?> startList() {
+            return SKIP;
+        }
+
+        @Override
+        public Object end() {
+            return null;
+        }
+    };
+
+    protected JSONCodec() {
+    }
+
+    /* The generated codec of the marked type, null when there is none */
+    static JSONCodec<?> of(Class<?> type) {
+        String name = type.getName();
+        int dot = name.lastIndexOf('.');
+        String codec = name.substring(0, dot + 1) + name.substring(dot + 1).replace('$', '_') + "JSONCodec";
+        try {
+            return (JSONCodec<?>) Class.forName(codec, true, type.getClassLoader()).getField("INSTANCE").get(null);
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            return null;
+        }
+    }
+
+    /* A frame reading one object of the type */
+    public abstract Frame<T> newFrame();
+
+    /* Writes the value (never null) */
+    public abstract void write(JSONWriter writer, T value);
+
+    public final T read(char[] json) {
+        Driver<T> driver = new Driver<>(this);
+        JSONParserContext.current().parseJson(json, driver);
+        return driver.result;
+    }
+
+    public final T read(byte[] json) {
+        return read(ByteBuffer.wrap(json));
+    }
+
+    /* Reads the UTF-8 bytes between the position and the limit, the buffer position is left untouched */
+    public final T read(ByteBuffer json) {
+        Driver<T> driver = new Driver<>(this);
+        JSONParserContext.current().parseJson(json, driver);
+        return driver.result;
+    }
+
+    public final char[] write(T value) {
+        JSONWriter writer = new JSONWriter(false);
+        try {
+            if (value == null) {
+                writer.nullValue();
+            } else {
+                write(writer, value);
+            }
+            return writer.toCharArray();
+        } finally {
+            writer.wipe();
+        }
+    }
+
+    public static int toInt(long value) {
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) throw new JSONException("numeric out of range");
+        return (int) value;
+    }
+
+    public static int toInt(double value) {
+        return toInt(toLong(value));
+    }
+
+    /* The value of an integral decimal, e.g. 1e3 */
+    public static long toLong(double value) {
+        if (value != Math.rint(value) || value >= 0x1p63 || value < -0x1p63) throw new JSONException("cannot bind a decimal to an integer");
+        return (long) value;
+    }
+
+    public static short toShort(long value) {
+        if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) throw new JSONException("numeric out of range");
+        return (short) value;
+    }
+
+    public static short toShort(double value) {
+        return toShort(toLong(value));
+    }
+
+    public static byte toByte(long value) {
+        if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) throw new JSONException("numeric out of range");
+        return (byte) value;
+    }
+
+    public static byte toByte(double value) {
+        return toByte(toLong(value));
+    }
+
+    /* The constant named by the chars */
+    public static <E extends Enum<E>> E constant(E[] constants, char[] chars, int offset, int length) {
+        next:
+        for (E constant : constants) {
+            String name = constant.name();
+            if (name.length() != length) continue;
+            for (int i = 0; i < length; i++) {
+                if (name.charAt(i) != chars[offset + i]) continue next;
+            }
+            return constant;
+        }
+        throw new JSONException("unknown constant of " + constants.getClass().getComponentType().getTypeName());
+    }
+
+    public static JSONException mismatch(String found, String property) {
+        return new JSONException(String.format("cannot bind %s to %s", found, property));
+    }
+
+    /* Receives the events of one object or list, its children start frames of their own */
+    public abstract static class Frame<T> {
+
+        /* The keys matching no property, only made once there is one */
+        private Set<String> unknown;
+
+        public void key(char[] chars, int offset, int length) {
+        }
+
+        public void stringValue(char[] chars, int offset, int length) {
+            throw new JSONException("cannot bind a string");
+        }
+
+        public void numberValue(long value) {
+            throw new JSONException("cannot bind a number");
+        }
+
+        public void numberValue(double value) {
+            throw new JSONException("cannot bind a number");
+        }
+
+        public void booleanValue(boolean value) {
+            throw new JSONException("cannot bind a boolean");
+        }
+
+        public void nullValue() {
+        }
+
+        public Frame<?> startObject() {
+            throw new JSONException("cannot bind an object");
+        }
+
+        public Frame<?> startList() {
+            throw new JSONException("cannot bind a list");
+        }
+
+        /* Receives the value of the child object or list just ended */
+        public void add(Object value) {
+        }
+
+        /* The value of the whole object or list */
+        public abstract T end();
+
+        /* Remembers a key matching no property, a second one is a duplicate key */
+        protected final void unknownKey(char[] chars, int offset, int length) {
+            if (unknown == null) unknown = new HashSet<>();
+            if (!unknown.add(new String(chars, offset, length))) throw new JSONException("duplicate key");
+        }
+
+    }
+
+    /* Skips an object of an unknown key, its keys are still checked */
+    private static final class SkipObject extends Frame<Object> {
+
+        @Override
+        public void key(char[] chars, int offset, int length) {
+            unknownKey(chars, offset, length);
+        }
+
+        @Override
+        public void stringValue(char[] chars, int offset, int length) {
+        }
+
+        @Override
+        public void numberValue(long value) {
+        }
+
+        @Override
+        public void numberValue(double value) {
+        }
+
+        @Override
+        public void booleanValue(boolean value) {
+        }
+
+        @Override
+        public Frame<?> startObject() {
+            return new SkipObject();
+        }
+
+        @Override
+        public Frame<?> startList() {
+            return SKIP;
+        }
+
+        @Override
+        public Object end() {
+            return null;
+        }
+
+    }
+
+    /* Feeds the parse events to the frames, the top-level value must be an object (or null) */
+    private static final class Driver<T> implements JSONHandler {
+
+        private final JSONCodec<T> codec;
+
+        private Frame<?>[] frames = new Frame<?>[16];
+
+        private int depth = 0;
+
+        private T result;
+
+        Driver(JSONCodec<T> codec) {
+            this.codec = codec;
+        }
+
+        @Override
+        public void startObject() {
+            push(depth == 0 ? codec.newFrame() : frames[depth - 1].startObject());
+        }
+
+        @Override
+        public void key(char[] chars, int offset, int length) {
+            frames[depth - 1].key(chars, offset, length);
+        }
+
+        @Override
+        public void endObject() {
+            pop();
+        }
+
+        @Override
+        public void startList() {
+            if (depth == 0) throw new JSONException("cannot bind a list");
+            push(frames[depth - 1].startList());
+        }
+
+        @Override
+        public void endList() {
+            pop();
+        }
+
+        @Override
+        public void stringValue(char[] chars, int offset, int length) {
+            top("a string").stringValue(chars, offset, length);
+        }
+
+        @Override
+        public void numberValue(long value) {
+            top("a number").numberValue(value);
+        }
+
+        @Override
+        public void numberValue(double value) {
+            top("a number").numberValue(value);
+        }
+
+        @Override
+        public void booleanValue(boolean value) {
+            top("a boolean").booleanValue(value);
+        }
+
+        @Override
+        public void nullValue() {
+            if (depth > 0) frames[depth - 1].nullValue();
+        }
+
+        private Frame<?> top(String found) {
+            if (depth == 0) throw new JSONException("cannot bind " + found);
+            return frames[depth - 1];
+        }
+
+        private void push(Frame<?> frame) {
+            if (depth == frames.length) frames = Arrays.copyOf(frames, depth << 1);
+            frames[depth++] = frame;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void pop() {
+            Frame<?> frame = frames[--depth];
+            frames[depth] = null;
+            Object value = frame.end();
+            if (depth == 0) {
+                result = (T) value;
+            } else {
+                frames[depth - 1].add(value);
+            }
+        }
+
+    }
+
+}
@@ -16,10 +16,12 @@
 package tech.tryangle.jessie.json;
 
 import tech.tryangle.jessie.util.CharArrayBuilder;
+import tech.tryangle.jessie.util.CharSlice;
 import tech.tryangle.jessie.util.Chars;
+import tech.tryangle.jessie.util.SecureChars;
 
+import java.nio.ByteBuffer;
 import java.util.*;
-import java.util.regex.Pattern;
 
 /* This object represents a JSON entity */
 public class JSONEntity {
@@ -39,6 +41,16 @@ public class JSONEntity {
     /* Create a JSON value */
     public static JSONEntity newValue() { return new JSONEntity(VALUE); }
 
+    /* Create a JSON object whose keys follow the transitions of the root shape */
+    static JSONEntity newObject(JSONShape root) {
+        JSONEntity entity = new JSONEntity(OBJECT);
+        entity.map = new JSONMap(root);
+        return entity;
+    }
+
+    /* Create a JSON object or list whose content is read from the tape when accessed */
+    static JSONEntity newLazy(JSONTape tape, int entry) { return new JSONEntity(tape, entry); }
+
     /* The type of JSON entity */
     private final int type;
 
@@ -51,26 +63,54 @@ public class JSONEntity {
     /* The value for the JSON pair or JSON value */
     private Object value;
 
-    /* The list for the JSON list */
-    private List<Object> list = null;
+    /* The list for the JSON list, numbers stay unboxed while the list holds nothing else */
+    private JSONList list = null;
+
+    /* The map for the JSON object, its keys are a shape shared with similar objects while it stays small */
+    private JSONMap map = null;
+
+    /* The tape a lazy JSON object or list reads from until it is materialized */
+    private JSONTape tape = null;
 
-    /* The map for the JSON object */
-    private Map<String, Object> map = null;
+    /* The tape entry of the lazy JSON object or list */
+    private int entry;
+
+    /* The lazy objects and lists already handed out, by ordinal */
+    private JSONEntity[] children = null;
+
+    /* The content of a frozen entity, null while the entity is mutable */
+    private final JSONFrozen frozen;
 
     /* As we have factory methods, there is no need to expose the constructor */
     private JSONEntity(int type) {
         boolean typeIsInvalid = type != OBJECT && type != PAIR && type != LIST && type != VALUE;
         if (typeIsInvalid) throw new IllegalStateException(String.format("unknown type: %s", type));
         this.type = type;
-        if (type == OBJECT) this.map = new LinkedHashMap<>();
-        if (type == LIST) this.list = new ArrayList<>();
+        this.frozen = null;
+        if (type == OBJECT) this.map = new JSONMap();
+        if (type == LIST) this.list = new JSONList();
+    }
+
+    private JSONEntity(JSONTape tape, int entry) {
+        this.type = tape.kind(entry) == JSONTape.OBJECT ? OBJECT : LIST;
+        this.frozen = null;
+        this.tape = tape;
+        this.entry = entry;
+    }
+
+    private JSONEntity(int type, JSONFrozen frozen) {
+        this.type = type;
+        this.frozen = frozen;
     }
 
     // General methods
 
-    public int getBit() { return bit; }
+    public int getBit() { return frozen != null ? frozen.bit : bit; }
 
-    public void setBit(int bit) { this.bit = bit; }
+    public void setBit(int bit) {
+        mutable();
+        this.bit = bit;
+    }
 
     public boolean isObject() { return type == OBJECT; }
 
@@ -81,6 +121,8 @@ public class JSONEntity {
     public boolean isValue() { return type == VALUE; }
 
     public int size() {
+        if (frozen != null) return frozen.size();
+        if (tape != null) return tape.size(entry);
         if (type == OBJECT) return map.size();
         if (type == LIST) return list.size();
         return 0;
@@ -89,24 +131,26 @@ public class JSONEntity {
     // JSON pair and JSON value methods
 
     public String getKey() {
-        return key;
+        return frozen != null ? frozen.key : key;
     }
 
     public void setKey(String key) {
         if (key == null) throw new NullPointerException("key must not be null");
+        mutable();
         this.key = key;
     }
 
     public Object getValue() {
-        return value;
+        return frozen != null ? frozen.value() : value;
     }
 
     public <T> T getValue(Class<T> type) {
         if (type == null) throw new NullPointerException("type must not be null");
-        return parseObject(type, value);
+        return parseObject(type, frozen != null ? frozen.value() : value);
     }
 
     public void setValue(Object value) {
+        mutable();
         this.value = value;
     }
 
@@ -120,6 +164,8 @@ public class JSONEntity {
 
     public boolean has(String key) {
         if (key == null) throw new NullPointerException("key must not be null");
+        if (frozen != null) return frozen.indexOf(key) != -1;
+        if (tape != null) return type == OBJECT && tape.find(entry, key) != -1;
         if (map == null) return false;
         return map.containsKey(key);
     }
@@ -132,6 +178,8 @@ public class JSONEntity {
 
     public Object get(String key) {
         if (key == null) throw new NullPointerException("key must not be null");
+        if (frozen != null) return frozen.get(key);
+        if (tape != null) materialize();
         if (map == null) return null;
         return map.get(key);
     }
@@ -145,6 +193,8 @@ public class JSONEntity {
     public <T> T get(String key, Class<T> type) {
         if (key == null) throw new NullPointerException("key must not be null");
         if (type == null) throw new NullPointerException("type must not be null");
+        if (frozen != null) return parseObject(type, frozen.get(key));
+        if (tape != null) return this.type == OBJECT ? lazyGet(key, type) : null;
         if (map == null) return null;
         return parseObject(type, map.get(key));
     }
@@ -170,24 +220,37 @@ public class JSONEntity {
     public <T> T resolve(String pattern, Class<T> type) {
         if (pattern == null) throw new NullPointerException("pattern must not be null");
         if (type == null) throw new NullPointerException("type must not be null");
-        T result = null;
         JSONEntity root = this;
-        String[] split = pattern.split(Pattern.quote("."));
-        int current = 0;
-        while (current != split.length) {
-            if (!root.has(split[current])) {
-                break;
-            }
-            if (current == split.length - 1) {
-                result = root.get(split[current], type);
-            } else {
-                root = root.get(split[current], JSONEntity.class);
-            }
-            current++;
+        int from = 0;
+        int dot;
+        while ((dot = pattern.indexOf('.', from)) != -1) {
+            root = root.childEntity(pattern.substring(from, dot));
+            if (root == null) return null;
+            from = dot + 1;
         }
+        return root.get(pattern.substring(from), type);
+    }
+
+    public <T> T resolveOrElse(JSONPath path, Class<T> type, T fallback) {
+        T result = resolve(path, type);
+        if (result == null) return fallback;
         return result;
     }
 
+    /* Walks the compiled path, nothing is allocated but the returned value */
+    public <T> T resolve(JSONPath path, Class<T> type) {
+        if (path == null) throw new NullPointerException("path must not be null");
+        if (type == null) throw new NullPointerException("type must not be null");
+        JSONEntity root = this;
+        int last = path.size() - 1;
+        for (int i = 0; i < last; i++) {
+            root = path.isIndex(i) ? root.childEntity(path.getIndex(i)) : root.childEntity(path.getKey(i));
+            if (root == null) return null;
+        }
+        if (path.isIndex(last)) return root.getElement(path.getIndex(last), type);
+        return root.get(path.getKey(last), type);
+    }
+
     /** Use {@link JSONEntity#addPair(String, Object)} instead */
     @Deprecated(since = "1.0.3")
     public void addObjectPair(String key, Object value) {
@@ -196,11 +259,18 @@ public class JSONEntity {
 
     public JSONEntity addPair(String key, Object value) {
         if (key == null) throw new NullPointerException("key must not be null");
+        mutable();
+        if (tape != null) materialize();
         if (map.containsKey(key)) throw new JSONException("duplicate key");
         map.put(key, value);
         return this;
     }
 
+    /* Adds a parsed pair, sharing the shape of the objects parsed before it with the same keys */
+    void addParsedPair(String key, Object value) {
+        if (!map.putParsed(key, value)) throw new JSONException("duplicate key");
+    }
+
     /** Use {@link JSONEntity#setPair(String, Object)} instead */
     @Deprecated(since = "1.0.3")
     public void setObjectPair(String key, Object value) {
@@ -209,23 +279,32 @@ public class JSONEntity {
 
     public JSONEntity setPair(String key, Object value) {
         if (key == null) throw new NullPointerException("key must not be null");
+        mutable();
+        if (tape != null) materialize();
         map.put(key, value);
         return this;
     }
 
     public JSONEntity removePair(String key) {
         if (key == null) throw new NullPointerException("key must not be null");
+        mutable();
+        if (tape != null) materialize();
         map.remove(key);
         return this;
     }
 
     public Map<String, Object> getPairs() {
+        if (frozen != null) return frozen.pairs != null ? frozen.pairs : Map.of();
+        if (tape != null) materialize();
         return Collections.unmodifiableMap(map);
     }
 
     // JSON list methods
 
+    /* The elements of a JSON list, read-only for a frozen one */
     public List<Object> getList() {
+        if (frozen != null) return frozen.list;
+        if (tape != null) materialize();
         return type == LIST ? list : null;
     }
 
@@ -248,6 +327,10 @@ public class JSONEntity {
             } else if (type == String.class) {
                 if (object instanceof char[] chars) {
                     result.add(type.cast(String.valueOf(chars)));
+                } else if (object instanceof CharSlice slice) {
+                    result.add(type.cast(slice.toString()));
+                } else if (object instanceof SecureChars secure) {
+                    result.add(type.cast(parseObject(String.class, secure)));
                 } else {
                     result.add(type.cast(String.valueOf(object)));
                 }
@@ -256,46 +339,294 @@ public class JSONEntity {
                 result.add(type.cast(String.valueOf(chars)));
             } else if (type.isAssignableFrom(object.getClass())) {
                 result.add(type.cast(object));
+            } else if (object instanceof CharSlice slice && type == char[].class) {
+                result.add(type.cast(slice.toCharArray()));
+            } else if (object instanceof SecureChars secure && type == char[].class) {
+                result.add(type.cast(secure.toCharArray()));
+            } else if (object instanceof JSONFrozen.Text text && type == char[].class) {
+                result.add(type.cast(text.toCharArray()));
             }
         }
         return result;
     }
 
+    /* The element at the index of a JSON list, null when out of range */
+    public <T> T getElement(int index, Class<T> type) {
+        if (type == null) throw new NullPointerException("type must not be null");
+        if (this.type != LIST || index < 0 || index >= size()) return null;
+        if (frozen != null) return parseObject(type, frozen.get(index));
+        if (tape == null) return parseObject(type, list.get(index));
+        int child = tape.child(entry, index);
+        if (tape.isContainer(child)) return parseObject(type, lazyChild(tape, index, child));
+        Object value = tape.scalar(child);
+        try {
+            return parseObject(type, value);
+        } finally {
+            clear(value);
+        }
+    }
+
+    /* The integers of a JSON list, null when not a list */
+    public long[] getLongArray() {
+        if (type != LIST) return null;
+        if (frozen != null) {
+            if (!frozen.isLongs()) throw new JSONException("list holds non-integer values");
+            return frozen.toLongArray();
+        }
+        if (tape != null) materialize();
+        if (!list.isLongs()) throw new JSONException("list holds non-integer values");
+        return list.toLongArray();
+    }
+
+    /* The numbers of a JSON list widened to doubles, null when not a list */
+    public double[] getDoubleArray() {
+        if (type != LIST) return null;
+        if (frozen != null) {
+            if (!frozen.isNumeric()) throw new JSONException("list holds non-numeric values");
+            return frozen.toDoubleArray();
+        }
+        if (tape != null) materialize();
+        if (!list.isNumeric()) throw new JSONException("list holds non-numeric values");
+        return list.toDoubleArray();
+    }
+
+    /* Iterates the integers of a JSON list without boxing them, null when not a list */
+    public PrimitiveIterator.OfLong getLongIterator() {
+        if (type != LIST) return null;
+        if (frozen != null) {
+            if (!frozen.isLongs()) throw new JSONException("list holds non-integer values");
+            return frozen.longIterator();
+        }
+        if (tape != null) materialize();
+        if (!list.isLongs()) throw new JSONException("list holds non-integer values");
+        JSONList source = list;
+        return new PrimitiveIterator.OfLong() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < source.size();
+            }
+
+            @Override
+            public long nextLong() {
+                if (index >= source.size()) throw new NoSuchElementException();
+                return source.getLong(index++);
+            }
+        };
+    }
+
+    /* Iterates the numbers of a JSON list widened to doubles without boxing them, null when not a list */
+    public PrimitiveIterator.OfDouble getDoubleIterator() {
+        if (type != LIST) return null;
+        if (frozen != null) {
+            if (!frozen.isNumeric()) throw new JSONException("list holds non-numeric values");
+            return frozen.doubleIterator();
+        }
+        if (tape != null) materialize();
+        if (!list.isNumeric()) throw new JSONException("list holds non-numeric values");
+        JSONList source = list;
+        return new PrimitiveIterator.OfDouble() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < source.size();
+            }
+
+            @Override
+            public double nextDouble() {
+                if (index >= source.size()) throw new NoSuchElementException();
+                return source.getDouble(index++);
+            }
+        };
+    }
+
     public void addToList(Object object) {
+        mutable();
+        if (tape != null) materialize();
         list.add(object);
     }
 
+    void addLong(long value) {
+        mutable();
+        if (tape != null) materialize();
+        list.addLong(value);
+    }
+
+    void addDouble(double value) {
+        mutable();
+        if (tape != null) materialize();
+        list.addDouble(value);
+    }
+
     public void removeFromList(Object object) {
+        mutable();
+        if (tape != null) materialize();
         list.remove(object);
     }
 
+    // Freezing
+
+    /*
+     * A deep copy that can never change, with objects and lists in compact arrays: it is safe to share between threads
+     * without any synchronization, reads take no lock and copy nothing, mutations throw UnsupportedOperationException.
+     * Chars are copied (secure ones in their arena) so the source can still be changed or cleared, reads hand them out
+     * as read-only CharSequence views and release() wipes the frozen entity once it is no longer read.
+     */
+    public JSONEntity freeze() {
+        if (frozen != null) return this;
+        if (type == OBJECT) return new JSONEntity(type, JSONFrozen.object(bit, getPairs()));
+        if (type == LIST) return new JSONEntity(type, JSONFrozen.list(bit, getList()));
+        return new JSONEntity(type, JSONFrozen.scalar(bit, key, value));
+    }
+
+    public boolean isFrozen() {
+        return frozen != null;
+    }
+
+    /*
+     * Wipes a frozen entity for good, the caller makes sure no other thread still reads it. Its frozen children are
+     * only dropped, they may be shared and are released on their own. A mutable entity is cleared.
+     */
+    public void release() {
+        if (frozen == null) {
+            clear();
+        } else {
+            frozen.release();
+        }
+    }
+
+    /* Rejects the mutation of a frozen entity */
+    private void mutable() {
+        if (frozen != null) throw new UnsupportedOperationException("frozen entity");
+    }
+
+    // Navigation
+
+    /* The JSON object or list under the key, null when missing or not an object or list */
+    private JSONEntity childEntity(String key) {
+        if (type != OBJECT) return null;
+        if (frozen != null) return frozen.get(key) instanceof JSONEntity entity ? entity : null;
+        if (tape != null) {
+            int ordinal = tape.find(entry, key);
+            if (ordinal == -1) return null;
+            int child = tape.child(entry, ordinal);
+            return tape.isContainer(child) ? lazyChild(tape, ordinal, child) : null;
+        }
+        return map.get(key) instanceof JSONEntity entity ? entity : null;
+    }
+
+    /* The JSON object or list at the index, null when out of range or not an object or list */
+    private JSONEntity childEntity(int index) {
+        if (type != LIST || index < 0 || index >= size()) return null;
+        if (frozen != null) return frozen.get(index) instanceof JSONEntity entity ? entity : null;
+        if (tape != null) {
+            int child = tape.child(entry, index);
+            return tape.isContainer(child) ? lazyChild(tape, index, child) : null;
+        }
+        return list.get(index) instanceof JSONEntity entity ? entity : null;
+    }
+
+    // Lazy loading
+
+    private <T> T lazyGet(String key, Class<T> type) {
+        int ordinal = tape.find(entry, key);
+        if (ordinal == -1) return null;
+        int child = tape.child(entry, ordinal);
+        if (tape.isContainer(child)) return parseObject(type, lazyChild(tape, ordinal, child));
+        Object value = tape.scalar(child);
+        try {
+            return parseObject(type, value);
+        } finally {
+            clear(value);
+        }
+    }
+
+    private JSONEntity lazyChild(JSONTape source, int ordinal, int child) {
+        if (children == null) children = new JSONEntity[source.size(entry)];
+        if (children[ordinal] == null) children[ordinal] = newLazy(source, child);
+        return children[ordinal];
+    }
+
+    /* Reads this level from the tape into the regular map or list, nested objects and lists stay lazy */
+    private void materialize() {
+        JSONTape source = tape;
+        tape = null;
+        if (type == OBJECT) {
+            map = new JSONMap();
+        } else {
+            list = new JSONList();
+        }
+        int child = entry + 1;
+        for (int ordinal = 0; ordinal < source.size(entry); ordinal++) {
+            String key = null;
+            if (type == OBJECT) {
+                key = source.key(child);
+                child++;
+            }
+            Object value = source.isContainer(child) ? lazyChild(source, ordinal, child) : source.scalar(child);
+            if (type == OBJECT) {
+                map.put(key, value);
+            } else {
+                list.add(value);
+            }
+            child = source.next(child);
+        }
+        children = null;
+    }
+
+    /* Clears a lazy entity that was never materialized, it drops the tape and becomes empty */
+    private void forget() {
+        if (children != null) {
+            for (JSONEntity child : children) clear(child);
+        }
+        children = null;
+        tape = null;
+        if (type == OBJECT) {
+            map = new JSONMap();
+        } else {
+            list = new JSONList();
+        }
+    }
+
     // Casting
 
     private <T> T parseObject(Class<T> type, Object value) {
-        if (value instanceof char[] chars) return parseObject(type, chars);
+        if (value instanceof char[] chars) return parseObject(type, chars, 0, chars.length);
+        if (value instanceof CharSlice slice && !type.isInstance(slice)) return parseObject(type, slice.getSource(), slice.getOffset(), slice.getOffset() + slice.length());
+        if (value instanceof JSONFrozen.Text text && !type.isInstance(text)) return parseObject(type, text.chars, 0, text.chars.length);
+        if (value instanceof SecureChars secure && !type.isInstance(secure)) {
+            char[] chars = secure.toCharArray();
+            try {
+                return parseObject(type, chars, 0, chars.length);
+            } finally {
+                Arrays.fill(chars, '\0');
+            }
+        }
         if (value instanceof Integer casted && type == Long.class) return type.cast(Long.valueOf(casted));
         return type.cast(value);
     }
 
-    private <T> T parseObject(Class<T> type, char[] value) {
+    private <T> T parseObject(Class<T> type, char[] value, int start, int end) {
         if (type == String.class) {
-            String result = String.valueOf(value);
+            String result = new String(value, start, end - start);
             return type.cast(result);
         }
         if (type == Integer.class) {
-            int result = Chars.charsToInt(value);
+            int result = Chars.charsToInt(value, start, end);
             return type.cast(result);
         }
         if (type == Long.class) {
-            long result = Chars.charsToLong(value);
+            long result = Chars.charsToLong(value, start, end);
             return type.cast(result);
         }
         if (type == Boolean.class) {
-            boolean result = Chars.charsToBoolean(value);
+            boolean result = Chars.charsToBoolean(value, start, end);
             return type.cast(result);
         }
         if (type == char[].class) {
-            char[] result = value.clone();
+            char[] result = Arrays.copyOfRange(value, start, end);
             return type.cast(result);
         }
         throw new UnsupportedOperationException();
@@ -308,7 +639,13 @@ public class JSONEntity {
         return "Secure:XYZ";
     }
 
+    /* Wipes the values, frozen children are only dropped (they may be shared, see release()) */
     public void clear() {
+        mutable();
+        if (tape != null) {
+            forget();
+            return;
+        }
         if (type == VALUE) {
             if (value != null) {
                 clear(value);
@@ -316,10 +653,11 @@ public class JSONEntity {
             }
         } else if (type == LIST) {
             if (list != null && !list.isEmpty()) {
+                list.wipe();
                 for (int i = 0; i < list.size(); i++) {
                     Object object = list.get(i);
                     clear(object);
-                    if (!(object instanceof JSONEntity)) {
+                    if (!(object instanceof JSONEntity entity) || entity.isFrozen()) {
                         list.set(i, null);
                     }
                 }
@@ -327,7 +665,7 @@ public class JSONEntity {
         } else if (type == OBJECT) {
             if (map != null && !map.isEmpty()) {
                 map.values().forEach(this::clear);
-                map.keySet().stream().filter(k -> !(map.get(k) instanceof JSONEntity)).forEach(k -> map.put(k, null));
+                map.keySet().stream().filter(k -> !(map.get(k) instanceof JSONEntity entity) || entity.isFrozen()).forEach(k -> map.put(k, null));
             }
         }
     }
@@ -348,65 +686,50 @@ public class JSONEntity {
         if (object instanceof Object[] bytes) {
             Arrays.fill(bytes, null);
         }
-        if (object instanceof JSONEntity entity) {
+        if (object instanceof SecureChars secure) {
+            secure.clear();
+        }
+        if (object instanceof JSONEntity entity && !entity.isFrozen()) {
             entity.clear();
         }
     }
 
+    /* Writes the entity through an in-memory JSON writer, a pair on its own has no JSON form */
     public char[] toCharArray() {
-        if (type == VALUE) {
-            if (value == null) {
-                return new char[]{'n','u','l','l'};
-            } else {
-                return toCharArray(value);
-            }
-        } else if (type == LIST) {
-            if (list == null || list.isEmpty()) {
-                return new char[] { '[', ']' };
-            } else {
-                CharArrayBuilder builder = new CharArrayBuilder();
-                builder.add('[');
-                for (int i = 0; i < list.size(); i++) {
-                    Object object = list.get(i);
-                    char[] array = toCharArray(object);
-                    builder.add(array);
-                    Arrays.fill(array, '\0');
-                    if (i < list.size() - 1) {
-                        builder.add(',');
-                    }
-                }
-                builder.add(']');
-                char[] result = builder.asCharArray();
-                builder.clear();
-                return result;
-            }
-        } else if (type == OBJECT) {
-            if (map == null || map.isEmpty()) {
-                return new char[] { '{', '}' };
-            } else {
-                CharArrayBuilder builder = new CharArrayBuilder();
-                builder.add('{');
-                Iterator<Map.Entry<String, Object>> iterator = map.entrySet().iterator();
-                while (iterator.hasNext()) {
-                    Map.Entry<String, Object> entry = iterator.next();
-                    char[] keyChars = toCharArray(entry.getKey());
-                    builder.add(keyChars);
-                    Arrays.fill(keyChars, '\0');
-                    builder.add(':');
-                    char[] valueChars = toCharArray(entry.getValue());
-                    builder.add(valueChars);
-                    Arrays.fill(valueChars, '\0');
-                    if (iterator.hasNext()) {
-                        builder.add(',');
-                    }
-                }
-                builder.add('}');
-                char[] result = builder.asCharArray();
-                builder.clear();
-                return result;
-            }
-        } else {
-            return new char[0];
+        if (type == PAIR) return new char[0];
+        JSONWriter writer = new JSONWriter(false);
+        try {
+            return writer.value(this).toCharArray();
+        } finally {
+            writer.wipe();
+        }
+    }
+
+    /* Encodes the entity straight to UTF-8 bytes, a pair on its own has no JSON form */
+    public byte[] toUtf8Bytes() {
+        if (type == PAIR) return new byte[0];
+        JSONWriter writer = new JSONWriter(true);
+        try {
+            return writer.value(this).toUtf8Bytes();
+        } finally {
+            writer.wipe();
+        }
+    }
+
+    /*
+     * Encodes the entity straight to UTF-8 bytes from the position of the buffer onwards, moving the position past them.
+     * When the remaining bytes are not enough a BufferOverflowException is thrown, leaving the position untouched.
+     */
+    public void writeUtf8(ByteBuffer target) {
+        if (target == null) throw new NullPointerException("target must not be null");
+        if (type == PAIR) return;
+        int start = target.position();
+        try {
+            new JSONWriter(target).value(this).finish();
+        } catch (RuntimeException e) {
+            for (int i = start; i < target.position(); i++) target.put(i, (byte) 0);
+            target.position(start);
+            throw e;
         }
     }
 
@@ -415,7 +738,27 @@ public class JSONEntity {
             return Chars.nullToChars();
         }
         if (object instanceof char[] casted) {
-            char[] escaped = escapeChars(casted);
+            char[] escaped = escapeChars(casted, 0, casted.length);
+            char[] quoted = quoteText(escaped);
+            Arrays.fill(escaped, '\0');
+            return quoted;
+        }
+        if (object instanceof CharSlice casted) {
+            char[] escaped = escapeChars(casted.getSource(), casted.getOffset(), casted.getOffset() + casted.length());
+            char[] quoted = quoteText(escaped);
+            Arrays.fill(escaped, '\0');
+            return quoted;
+        }
+        if (object instanceof JSONFrozen.Text casted) {
+            char[] escaped = escapeChars(casted.chars, 0, casted.chars.length);
+            char[] quoted = quoteText(escaped);
+            Arrays.fill(escaped, '\0');
+            return quoted;
+        }
+        if (object instanceof SecureChars casted) {
+            char[] chars = casted.toCharArray();
+            char[] escaped = escapeChars(chars, 0, chars.length);
+            Arrays.fill(chars, '\0');
             char[] quoted = quoteText(escaped);
             Arrays.fill(escaped, '\0');
             return quoted;
@@ -437,7 +780,7 @@ public class JSONEntity {
         }
         if (object instanceof String casted) {
             char[] chars = Chars.stringToChars(casted);
-            char[] escaped = escapeChars(chars);
+            char[] escaped = escapeChars(chars, 0, chars.length);
             Arrays.fill(chars, '\0');
             char[] quoted = quoteText(escaped);
             Arrays.fill(escaped, '\0');
@@ -449,10 +792,10 @@ public class JSONEntity {
         return null;
     }
 
-    private char[] escapeChars(char[] chars) {
+    private char[] escapeChars(char[] chars, int start, int end) {
         CharArrayBuilder builder = new CharArrayBuilder();
-        int i = 0;
-        while (i < chars.length) {
+        int i = start;
+        while (i < end) {
             char current = chars[i];
             if (current == '"' || current == '\\') {
                 builder.add('\\');
@@ -0,0 +1,381 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import tech.tryangle.jessie.util.CharSlice;
+import tech.tryangle.jessie.util.SecureChars;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/*
+ * The content of a frozen JSON entity (see JSONEntity.freeze()) in compact arrays: the keys and values of an
+ * object, the unboxed numbers or the elements of a list, the key and value of a pair or value. Every field is
+ * final and nothing changes once built (until release()), so reads take no lock and a frozen entity is safe
+ * however it is shared. The chars are its own and handed out as read-only views made once, see Text.
+ */
+final class JSONFrozen {
+
+    /* Objects with more keys than this are searched through a hash table of the keys */
+    private static final int LINEAR_KEYS = 8;
+
+    private static final int LONGS = 0, DOUBLES = 1, OBJECTS = 2;
+
+    private static final String[] NO_KEYS = new String[0];
+
+    final int bit;
+
+    final String key;
+
+    /* The keys of an object, in order */
+    private final String[] keys;
+
+    /* The key indexes (plus one) by hash slot of a large object, null for small ones */
+    private final int[] table;
+
+    /* How a list keeps its elements, in longs, doubles or values */
+    private final int mode;
+
+    private final long[] longs;
+
+    private final double[] doubles;
+
+    /* The values of an object, the elements of a list of objects or the one value of a pair or value */
+    private final Object[] values;
+
+    /* The read-only views of the object or list, null for the other kinds */
+    final Map<String, Object> pairs;
+
+    final List<Object> list;
+
+    private JSONFrozen(int bit, String key, String[] keys, int mode, long[] longs, double[] doubles, Object[] values,
+                       boolean isObject, boolean isList) {
+        this.bit = bit;
+        this.key = key;
+        this.keys = keys;
+        this.table = keys.length > LINEAR_KEYS ? table(keys) : null;
+        this.mode = mode;
+        this.longs = longs;
+        this.doubles = doubles;
+        this.values = values;
+        this.pairs = isObject ? new Pairs() : null;
+        this.list = isList ? new Elements() : null;
+    }
+
+    static JSONFrozen object(int bit, Map<String, Object> pairs) {
+        String[] keys = new String[pairs.size()];
+        Object[] values = new Object[keys.length];
+        int i = 0;
+        for (Map.Entry<String, Object> pair : pairs.entrySet()) {
+            keys[i] = pair.getKey();
+            values[i++] = freeze(pair.getValue());
+        }
+        return new JSONFrozen(bit, null, keys, OBJECTS, null, null, values, true, false);
+    }
+
+    /* A list of unboxed integers or decimals is kept unboxed, any other list in values (a Long stays a Long) */
+    static JSONFrozen list(int bit, List<Object> elements) {
+        if (elements instanceof JSONList numbers && numbers.isUnboxedLongs()) {
+            return new JSONFrozen(bit, null, NO_KEYS, LONGS, numbers.toLongArray(), null, null, false, true);
+        }
+        if (elements instanceof JSONList numbers && numbers.isDoubles()) {
+            return new JSONFrozen(bit, null, NO_KEYS, DOUBLES, null, numbers.toDoubleArray(), null, false, true);
+        }
+        Object[] values = new Object[elements.size()];
+        for (int i = 0; i < values.length; i++) values[i] = freeze(elements.get(i));
+        return new JSONFrozen(bit, null, NO_KEYS, OBJECTS, null, null, values, false, true);
+    }
+
+    static JSONFrozen scalar(int bit, String key, Object value) {
+        return new JSONFrozen(bit, key, NO_KEYS, OBJECTS, null, null, new Object[] {freeze(value)}, false, false);
+    }
+
+    /* Entities are frozen and chars copied (secure ones in their arena) so the source can be changed or cleared */
+    private static Object freeze(Object value) {
+        if (value instanceof JSONEntity entity) return entity.freeze();
+        if (value instanceof char[] chars) return new Text(chars.clone());
+        if (value instanceof CharSlice slice) return new Text(slice.toCharArray());
+        if (value instanceof Text text) return new Text(text.chars.clone());
+        if (value instanceof SecureChars secure && !secure.isCleared()) return secure.copy();
+        return value;
+    }
+
+    private static int[] table(String[] keys) {
+        int[] table = new int[Integer.highestOneBit(keys.length) << 2];
+        int mask = table.length - 1;
+        for (int i = 0; i < keys.length; i++) {
+            int slot = spread(keys[i].hashCode()) & mask;
+            while (table[slot] != 0) slot = (slot + 1) & mask;
+            table[slot] = i + 1;
+        }
+        return table;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    int size() {
+        if (pairs != null) return keys.length;
+        if (list == null) return 0;
+        if (mode == LONGS) return longs.length;
+        if (mode == DOUBLES) return doubles.length;
+        return values.length;
+    }
+
+    /* The index of the key in an object, -1 when missing */
+    int indexOf(Object key) {
+        int hash = key.hashCode();
+        if (table == null) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key || (keys[i].hashCode() == hash && keys[i].equals(key))) return i;
+            }
+            return -1;
+        }
+        int mask = table.length - 1;
+        for (int slot = spread(hash) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            String candidate = keys[table[slot] - 1];
+            if (candidate == key || (candidate.hashCode() == hash && candidate.equals(key))) return table[slot] - 1;
+        }
+        return -1;
+    }
+
+    /* The value of a pair or value as stored, null for objects and lists */
+    Object value() {
+        return pairs == null && list == null ? values[0] : null;
+    }
+
+    /* The value under the key of an object as stored, null when missing */
+    Object get(String key) {
+        int index = indexOf(key);
+        return index == -1 ? null : values[index];
+    }
+
+    /* The element of a list (or value of an object) at the index as stored, numbers boxed the way JSONList does */
+    Object get(int index) {
+        if (mode == LONGS) return JSONList.box(longs[index]);
+        if (mode == DOUBLES) return doubles[index];
+        return values[index];
+    }
+
+    boolean isLongs() {
+        if (mode != OBJECTS) return mode == LONGS || size() == 0;
+        for (Object element : values) {
+            if (!(element instanceof Integer) && !(element instanceof Long)) return false;
+        }
+        return true;
+    }
+
+    boolean isDoubles() {
+        return mode == DOUBLES;
+    }
+
+    boolean isNumeric() {
+        if (mode != OBJECTS) return true;
+        for (Object element : values) {
+            if (!(element instanceof Number)) return false;
+        }
+        return true;
+    }
+
+    long getLong(int index) {
+        if (mode == LONGS) return longs[index];
+        if (mode == DOUBLES) return (long) doubles[index];
+        return ((Number) values[index]).longValue();
+    }
+
+    double getDouble(int index) {
+        if (mode == LONGS) return longs[index];
+        if (mode == DOUBLES) return doubles[index];
+        return ((Number) values[index]).doubleValue();
+    }
+
+    /* A copy of the numbers, the frozen ones are never handed out */
+    long[] toLongArray() {
+        if (mode == LONGS) return longs.clone();
+        long[] result = new long[size()];
+        for (int i = 0; i < result.length; i++) result[i] = getLong(i);
+        return result;
+    }
+
+    double[] toDoubleArray() {
+        if (mode == DOUBLES) return doubles.clone();
+        double[] result = new double[size()];
+        for (int i = 0; i < result.length; i++) result[i] = getDouble(i);
+        return result;
+    }
+
+    PrimitiveIterator.OfLong longIterator() {
+        if (mode == LONGS) return Arrays.stream(longs).iterator();
+        return Arrays.stream(toLongArray()).iterator();
+    }
+
+    PrimitiveIterator.OfDouble doubleIterator() {
+        if (mode == DOUBLES) return Arrays.stream(doubles).iterator();
+        if (mode == LONGS) return Arrays.stream(longs).asDoubleStream().iterator();
+        return Arrays.stream(toDoubleArray()).iterator();
+    }
+
+    /* The key at the index of an object */
+    String keyAt(int index) {
+        return keys[index];
+    }
+
+    /*
+     * Wipes the chars, the secure chars and the numbers and drops the values, frozen children are only dropped
+     * (they may be shared, each one is released on its own). Nothing can be read afterwards, the caller makes
+     * sure no other thread still does.
+     */
+    void release() {
+        if (values != null) {
+            for (Object stored : values) wipe(stored);
+            Arrays.fill(values, null);
+        }
+        if (longs != null) Arrays.fill(longs, 0);
+        if (doubles != null) Arrays.fill(doubles, 0);
+    }
+
+    private static void wipe(Object stored) {
+        if (stored instanceof Text text) Arrays.fill(text.chars, (char) -1);
+        if (stored instanceof SecureChars secure) secure.clear();
+    }
+
+    /* The pairs of a frozen object, in order */
+    final class Pairs extends AbstractMap<String, Object> {
+
+        @Override
+        public int size() {
+            return keys.length;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key != null && indexOf(key) != -1;
+        }
+
+        @Override
+        public Object get(Object key) {
+            int index = key == null ? -1 : indexOf(key);
+            return index == -1 ? null : values[index];
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<>() {
+                        private int index = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < keys.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (index >= keys.length) throw new NoSuchElementException();
+                            int at = index++;
+                            return new SimpleImmutableEntry<>(keys[at], values[at]);
+                        }
+                    };
+                }
+            };
+        }
+
+        JSONFrozen content() {
+            return JSONFrozen.this;
+        }
+
+    }
+
+    /* The elements of a frozen list, numbers boxed on get() */
+    final class Elements extends AbstractList<Object> implements RandomAccess {
+
+        @Override
+        public int size() {
+            return JSONFrozen.this.size();
+        }
+
+        @Override
+        public Object get(int index) {
+            if (index < 0 || index >= size()) throw new IndexOutOfBoundsException(index);
+            return JSONFrozen.this.get(index);
+        }
+
+        JSONFrozen content() {
+            return JSONFrozen.this;
+        }
+
+    }
+
+
+    /*
+     * The chars of a frozen string, read-only for everyone but the frozen entity: reads hand the same view out
+     * without copying, release() wipes it
+     */
+    static final class Text implements CharSequence {
+
+        final char[] chars;
+
+        Text(char[] chars) {
+            this.chars = chars;
+        }
+
+        @Override
+        public int length() {
+            return chars.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= chars.length) throw new IndexOutOfBoundsException(index);
+            return chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > chars.length || start > end) throw new IndexOutOfBoundsException("range out of the text");
+            return new Text(Arrays.copyOfRange(chars, start, end));
+        }
+
+        /* A copy of the chars (the caller is responsible for clearing it) */
+        char[] toCharArray() {
+            return chars.clone();
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars);
+        }
+
+    }
+
+}
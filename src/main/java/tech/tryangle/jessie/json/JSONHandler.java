@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+/*
+ * Receives the parse events of a JSON document, the char arrays given to key and stringValue
+ * are only valid during the call (copy them if they must be kept, never keep the reference)
+ */
+public interface JSONHandler {
+
+    default void startObject() {}
+
+    default void key(char[] chars, int offset, int length) {}
+
+    default void endObject() {}
+
+    default void startList() {}
+
+    default void endList() {}
+
+    default void stringValue(char[] chars, int offset, int length) {}
+
+    default void numberValue(long value) {}
+
+    default void numberValue(double value) {}
+
+    default void booleanValue(boolean value) {}
+
+    default void nullValue() {}
+
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/*
+ * Parses JSON Lines (one UTF-8 document per line) in parallel: the input is cut into chunks of whole lines, which
+ * are parsed on the pool with the parser context of each worker while the caller consumes the entities. At most
+ * max-in-flight chunks are parsed or waiting to be consumed at any time, so the memory held does not depend on
+ * the input size. Blank lines are skipped. Immutable (every with-method returns a copy).
+ */
+public final class JSONLines {
+
+    /* The number of bytes a chunk is cut at (extended to the end of the line) */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private static final JSONLines DEFAULTS = new JSONLines(null, JSONParserOptions.defaults(), DEFAULT_CHUNK_SIZE, 0, true);
+
+    /* The pool chunks are parsed on, null for the common pool */
+    private final ForkJoinPool pool;
+
+    private final JSONParserOptions options;
+
+    private final int chunkSize;
+
+    /* The number of chunks parsed ahead of the caller, 0 for twice the pool parallelism */
+    private final int maxInFlight;
+
+    /* Whether the entities come in the order of the lines */
+    private final boolean ordered;
+
+    private JSONLines(ForkJoinPool pool, JSONParserOptions options, int chunkSize, int maxInFlight, boolean ordered) {
+        this.pool = pool;
+        this.options = options;
+        this.chunkSize = chunkSize;
+        this.maxInFlight = maxInFlight;
+        this.ordered = ordered;
+    }
+
+    public static JSONLines defaults() {
+        return DEFAULTS;
+    }
+
+    public JSONLines withPool(ForkJoinPool pool) {
+        if (pool == null) throw new NullPointerException("pool must not be null");
+        return new JSONLines(pool, options, chunkSize, maxInFlight, ordered);
+    }
+
+    /* The options every line is parsed with, a symbol table or arena in them is shared by all the workers */
+    public JSONLines withOptions(JSONParserOptions options) {
+        if (options == null) throw new NullPointerException("options must not be null");
+        return new JSONLines(pool, options, chunkSize, maxInFlight, ordered);
+    }
+
+    public JSONLines withChunkSize(int chunkSize) {
+        if (chunkSize < 1) throw new IllegalArgumentException("chunk size must be positive");
+        return new JSONLines(pool, options, chunkSize, maxInFlight, ordered);
+    }
+
+    public JSONLines withMaxInFlight(int maxInFlight) {
+        if (maxInFlight < 1) throw new IllegalArgumentException("max in flight must be positive");
+        return new JSONLines(pool, options, chunkSize, maxInFlight, ordered);
+    }
+
+    /* Unordered entities come chunk by chunk as soon as each chunk is parsed, a slow chunk holds nothing back */
+    public JSONLines withOrdered(boolean ordered) {
+        return new JSONLines(pool, options, chunkSize, maxInFlight, ordered);
+    }
+
+    public Stream<JSONEntity> parse(byte[] lines) {
+        return parse(ByteBuffer.wrap(lines));
+    }
+
+    /*
+     * Parses the UTF-8 lines between the position and the limit (left untouched). The stream itself is sequential,
+     * the parsing runs on the pool as it is consumed, and closing it early clears the entities never handed out
+     */
+    public Stream<JSONEntity> parse(ByteBuffer lines) {
+        if (lines == null) throw new NullPointerException("lines must not be null");
+        return stream(List.of(lines.slice()), new long[] { 0 });
+    }
+
+    /* Parses a UTF-8 file through memory mappings, errors report the byte offset of the line in the file */
+    public Stream<JSONEntity> parseFile(Path path) throws IOException {
+        if (path == null) throw new NullPointerException("path must not be null");
+        List<ByteBuffer> windows = new ArrayList<>();
+        List<Long> bases = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(JSONParser.MAPPED_WINDOW, size - position));
+                if (position + window.limit() < size) {
+                    int newline = lastIndexOf(window, (byte) '\n');
+                    if (newline == -1) throw new JSONException(String.format("line at byte %s is longer than a mapping", position));
+                    window.limit(newline + 1);
+                }
+                windows.add(window);
+                bases.add(position);
+                position += window.limit();
+            }
+        }
+        long[] array = new long[bases.size()];
+        for (int i = 0; i < array.length; i++) array[i] = bases.get(i);
+        return stream(windows, array);
+    }
+
+    /* Hands every entity to the consumer on the calling thread, one at a time */
+    public void forEach(ByteBuffer lines, Consumer<? super JSONEntity> consumer) {
+        if (consumer == null) throw new NullPointerException("consumer must not be null");
+        try (Stream<JSONEntity> stream = parse(lines)) {
+            stream.forEach(consumer);
+        }
+    }
+
+    public void forEachFile(Path path, Consumer<? super JSONEntity> consumer) throws IOException {
+        if (consumer == null) throw new NullPointerException("consumer must not be null");
+        try (Stream<JSONEntity> stream = parseFile(path)) {
+            stream.forEach(consumer);
+        }
+    }
+
+    private Stream<JSONEntity> stream(List<ByteBuffer> windows, long[] bases) {
+        return JSONChunkPipeline.stream(new Chunks(windows, bases), pool, maxInFlight, ordered);
+    }
+
+    /* Parses every non blank line of the range with the context of the current worker */
+    private List<JSONEntity> parseChunk(ByteBuffer window, int start, int end, long base) {
+        JSONParserContext context = JSONParserContext.current();
+        List<JSONEntity> entities = new ArrayList<>();
+        int i = start;
+        while (i < end) {
+            int newline = indexOf(window, i, end, (byte) '\n');
+            if (!isBlank(window, i, newline)) {
+                try {
+                    entities.add(context.parseJson(window.slice(i, newline - i), options));
+                } catch (JSONException e) {
+                    entities.forEach(JSONEntity::clear);
+                    throw new JSONException(String.format("%s in the line at byte %s", e.getMessage(), base + i));
+                }
+            }
+            i = newline + 1;
+        }
+        return entities;
+    }
+
+    private static int indexOf(ByteBuffer bytes, int from, int to, byte target) {
+        for (int i = from; i < to; i++) {
+            if (bytes.get(i) == target) return i;
+        }
+        return to;
+    }
+
+    private static int lastIndexOf(ByteBuffer bytes, byte target) {
+        for (int i = bytes.limit() - 1; i >= 0; i--) {
+            if (bytes.get(i) == target) return i;
+        }
+        return -1;
+    }
+
+    private static boolean isBlank(ByteBuffer bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte current = bytes.get(i);
+            if (current != ' ' && current != '\t' && current != '\r') return false;
+        }
+        return true;
+    }
+
+    /* Cuts the windows into chunks of whole lines */
+    private final class Chunks implements Iterator<Supplier<List<JSONEntity>>> {
+
+        private final List<ByteBuffer> windows;
+
+        /* The byte offset of every window in the input */
+        private final long[] bases;
+
+        private int window = 0;
+
+        /* Where the next chunk of the window starts */
+        private int position = 0;
+
+        private Chunks(List<ByteBuffer> windows, long[] bases) {
+            this.windows = windows;
+            this.bases = bases;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return window < windows.size();
+        }
+
+        @Override
+        public Supplier<List<JSONEntity>> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            ByteBuffer bytes = windows.get(window);
+            int start = position;
+            int end = start + chunkSize < bytes.limit() ? indexOf(bytes, start + chunkSize, bytes.limit(), (byte) '\n') : bytes.limit();
+            long base = bases[window];
+            if (end < bytes.limit()) {
+                position = end + 1;
+            } else {
+                window++;
+                position = 0;
+            }
+            return () -> parseChunk(bytes, start, end, base);
+        }
+
+    }
+
+}
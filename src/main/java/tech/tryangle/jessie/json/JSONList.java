@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/*
+ * The list of a JSON list entity, numbers are kept unboxed while every element is of the same kind:
+ * ➔ longs: every element is an Integer, or a Long outside the int range (the way the parser boxes them)
+ * ➔ doubles: every element is a Double
+ * ➔ objects: anything else, a list is promoted here for good once an element of another kind shows up
+ * Elements are boxed back on get(), so longs come out exactly as they went in.
+ */
+final class JSONList extends AbstractList<Object> implements RandomAccess {
+
+    private static final int LONGS = 0, DOUBLES = 1, OBJECTS = 2;
+
+    private static final int INITIAL_CAPACITY = 10;
+
+    /* Shared by every list until its first element, which picks the kind of array really allocated */
+    private static final long[] NO_LONGS = new long[0];
+
+    private int mode = LONGS;
+
+    private long[] longs = NO_LONGS;
+
+    private double[] doubles;
+
+    private Object[] objects;
+
+    private int size = 0;
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Object get(int index) {
+        Objects.checkIndex(index, size);
+        if (mode == LONGS) return box(longs[index]);
+        if (mode == DOUBLES) return doubles[index];
+        return objects[index];
+    }
+
+    @Override
+    public Object set(int index, Object element) {
+        Objects.checkIndex(index, size);
+        Object previous = get(index);
+        if (kind(element) != mode) promote();
+        if (mode == LONGS) {
+            longs[index] = ((Number) element).longValue();
+        } else if (mode == DOUBLES) {
+            doubles[index] = (Double) element;
+        } else {
+            objects[index] = element;
+        }
+        return previous;
+    }
+
+    @Override
+    public void add(int index, Object element) {
+        Objects.checkIndex(index, size + 1);
+        int kind = kind(element);
+        if (size == 0 && mode != kind) {
+            reset(kind);
+        } else if (mode != kind) {
+            promote();
+        }
+        grow();
+        if (mode == LONGS) {
+            System.arraycopy(longs, index, longs, index + 1, size - index);
+            longs[index] = ((Number) element).longValue();
+        } else if (mode == DOUBLES) {
+            System.arraycopy(doubles, index, doubles, index + 1, size - index);
+            doubles[index] = (Double) element;
+        } else {
+            System.arraycopy(objects, index, objects, index + 1, size - index);
+            objects[index] = element;
+        }
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Object remove(int index) {
+        Objects.checkIndex(index, size);
+        Object previous = get(index);
+        int moved = size - index - 1;
+        size--;
+        if (mode == LONGS) {
+            System.arraycopy(longs, index + 1, longs, index, moved);
+            longs[size] = 0;
+        } else if (mode == DOUBLES) {
+            System.arraycopy(doubles, index + 1, doubles, index, moved);
+            doubles[size] = 0;
+        } else {
+            System.arraycopy(objects, index + 1, objects, index, moved);
+            objects[size] = null;
+        }
+        modCount++;
+        return previous;
+    }
+
+    /* Adds an integer without boxing it */
+    void addLong(long value) {
+        if (size == 0 && mode != LONGS) reset(LONGS);
+        if (mode != LONGS) {
+            add(box(value));
+            return;
+        }
+        grow();
+        longs[size++] = value;
+        modCount++;
+    }
+
+    /* Adds a decimal without boxing it */
+    void addDouble(double value) {
+        if (size == 0 && mode != DOUBLES) reset(DOUBLES);
+        if (mode != DOUBLES) {
+            add(value);
+            return;
+        }
+        grow();
+        doubles[size++] = value;
+        modCount++;
+    }
+
+    /* Whether every element is an integer (an empty list is one) */
+    boolean isLongs() {
+        if (mode != OBJECTS) return mode == LONGS || size == 0;
+        for (int i = 0; i < size; i++) {
+            if (!(objects[i] instanceof Integer) && !(objects[i] instanceof Long)) return false;
+        }
+        return true;
+    }
+
+    /* Whether the elements are kept as unboxed integers (boxed back exactly as they went in) */
+    boolean isUnboxedLongs() {
+        return mode == LONGS;
+    }
+
+    /* Whether the elements are kept as unboxed decimals */
+    boolean isDoubles() {
+        return mode == DOUBLES;
+    }
+
+    /* Whether every element is a number, integer or decimal */
+    boolean isNumeric() {
+        if (mode != OBJECTS) return true;
+        for (int i = 0; i < size; i++) {
+            if (!(objects[i] instanceof Number)) return false;
+        }
+        return true;
+    }
+
+    long getLong(int index) {
+        if (mode == LONGS) return longs[index];
+        if (mode == DOUBLES) return (long) doubles[index];
+        return ((Number) objects[index]).longValue();
+    }
+
+    double getDouble(int index) {
+        if (mode == LONGS) return longs[index];
+        if (mode == DOUBLES) return doubles[index];
+        return ((Number) objects[index]).doubleValue();
+    }
+
+    long[] toLongArray() {
+        if (mode == LONGS) return Arrays.copyOf(longs, size);
+        long[] result = new long[size];
+        for (int i = 0; i < size; i++) result[i] = getLong(i);
+        return result;
+    }
+
+    double[] toDoubleArray() {
+        if (mode == DOUBLES) return Arrays.copyOf(doubles, size);
+        double[] result = new double[size];
+        for (int i = 0; i < size; i++) result[i] = getDouble(i);
+        return result;
+    }
+
+    /* Wipes the unboxed numbers and turns them into nulls, the elements are not boxed on the way */
+    void wipe() {
+        if (mode == OBJECTS) return;
+        Object[] nulls = new Object[mode == LONGS ? longs.length : doubles.length];
+        if (longs != null) Arrays.fill(longs, 0);
+        if (doubles != null) Arrays.fill(doubles, 0);
+        longs = null;
+        doubles = null;
+        objects = nulls;
+        mode = OBJECTS;
+    }
+
+    private static int kind(Object element) {
+        if (element instanceof Integer) return LONGS;
+        if (element instanceof Long casted && (casted < Integer.MIN_VALUE || casted > Integer.MAX_VALUE)) return LONGS;
+        if (element instanceof Double) return DOUBLES;
+        return OBJECTS;
+    }
+
+    static Object box(long value) {
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) return value;
+        return (int) value;
+    }
+
+    /* Switches an empty list to the kind of its first element */
+    private void reset(int kind) {
+        int capacity = Math.max(INITIAL_CAPACITY, mode == LONGS ? longs.length : mode == DOUBLES ? doubles.length : objects.length);
+        longs = kind == LONGS ? new long[capacity] : null;
+        doubles = kind == DOUBLES ? new double[capacity] : null;
+        objects = kind == OBJECTS ? new Object[capacity] : null;
+        mode = kind;
+    }
+
+    /* Boxes every number into the general representation */
+    private void promote() {
+        if (mode == OBJECTS) return;
+        Object[] boxed = new Object[mode == LONGS ? longs.length : doubles.length];
+        for (int i = 0; i < size; i++) boxed[i] = get(i);
+        wipe();
+        objects = boxed;
+    }
+
+    private void grow() {
+        int capacity = mode == LONGS ? longs.length : mode == DOUBLES ? doubles.length : objects.length;
+        if (size < capacity) return;
+        int newCapacity = Math.max(INITIAL_CAPACITY, capacity + (capacity >> 1) + 1);
+        if (mode == LONGS) {
+            longs = Arrays.copyOf(longs, newCapacity);
+        } else if (mode == DOUBLES) {
+            doubles = Arrays.copyOf(doubles, newCapacity);
+        } else {
+            objects = Arrays.copyOf(objects, newCapacity);
+        }
+    }
+
+}
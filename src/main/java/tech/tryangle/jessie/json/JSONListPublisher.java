@@ -0,0 +1,476 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * Subscribes to the UTF-8 chunks of a document (e.g. an HTTP body from BodyHandlers.ofPublisher()) and publishes
+ * every element of its top-level list, or of the list at the path, as soon as the element is complete. Chunks are
+ * only requested and parsed (a few kilobytes at a time) while the subscriber has unmet demand, so a slow subscriber
+ * stops the reading instead of piling up parsed elements. The rest of the document is still checked once the list
+ * is over. One subscriber only, signals are serialized on whichever thread triggers them.
+ */
+public final class JSONListPublisher implements Flow.Processor<List<ByteBuffer>, JSONEntity> {
+
+    /* The most bytes parsed before checking for elements and demand again */
+    private static final int FEED_SIZE = 1 << 13;
+
+    /* The path to the list, null for the top-level one */
+    private final JSONPath path;
+
+    /* The number of path segments */
+    private final int segments;
+
+    private final Selector selector = new Selector();
+
+    private final JSONAsyncParser parser = new JSONAsyncParser(selector);
+
+    private final JSONTreeBuilder tree;
+
+    /* The chunks received but not parsed yet */
+    private final Queue<List<ByteBuffer>> inbox = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong demand = new AtomicLong();
+
+    /* The number of signals to drain, only the thread moving it from 0 drains */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /* Parsed elements not handed out yet, only touched while draining */
+    private final ArrayDeque<JSONEntity> ready = new ArrayDeque<>();
+
+    /* The bytes of the received chunks left to parse, only touched while draining */
+    private final ArrayDeque<ByteBuffer> bytes = new ArrayDeque<>();
+
+    private volatile Flow.Subscription upstream;
+
+    /* The subscriber once subscribed, it only gets signals after its onSubscribe returned */
+    private final AtomicReference<Flow.Subscriber<? super JSONEntity>> downstream = new AtomicReference<>();
+
+    private volatile boolean subscribed = false;
+
+    private volatile boolean completed = false;
+
+    /* The error received from upstream */
+    private volatile Throwable error;
+
+    /* The error of a bad request from the subscriber */
+    private volatile Throwable rejection;
+
+    private volatile boolean cancelled = false;
+
+    /* Whether a chunk was requested and not received yet, only touched while draining */
+    private boolean requested = false;
+
+    private boolean terminated = false;
+
+    /* Publishes the elements of the top-level list */
+    public JSONListPublisher() {
+        this(JSONParserOptions.defaults());
+    }
+
+    /* Builds the elements with the options, strings are always copied out of the chunks */
+    public JSONListPublisher(JSONParserOptions options) {
+        if (options == null) throw new NullPointerException("options must not be null");
+        this.path = null;
+        this.segments = 0;
+        this.tree = new JSONTreeBuilder(options, null);
+    }
+
+    /* Publishes the elements of the list at the path, e.g. "data.items" */
+    public JSONListPublisher(JSONPath path) {
+        this(path, JSONParserOptions.defaults());
+    }
+
+    public JSONListPublisher(JSONPath path, JSONParserOptions options) {
+        if (path == null) throw new NullPointerException("path must not be null");
+        if (options == null) throw new NullPointerException("options must not be null");
+        this.path = path;
+        this.segments = path.size();
+        this.tree = new JSONTreeBuilder(options, null);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super JSONEntity> subscriber) {
+        if (subscriber == null) throw new NullPointerException("subscriber must not be null");
+        if (downstream.compareAndSet(null, subscriber)) {
+            subscriber.onSubscribe(new Subscription());
+            subscribed = true;
+            drain();
+            return;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        subscriber.onError(new IllegalStateException("already subscribed"));
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (subscription == null) throw new NullPointerException("subscription must not be null");
+        if (upstream != null || cancelled) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        drain();
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> chunk) {
+        if (chunk == null) throw new NullPointerException("chunk must not be null");
+        inbox.add(chunk);
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        if (throwable == null) throw new NullPointerException("throwable must not be null");
+        error = throwable;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        completed = true;
+        drain();
+    }
+
+    /* Hands out elements while there is demand and parses more while there is demand left, one thread at a time */
+    private void drain() {
+        if (pending.getAndIncrement() != 0) return;
+        int missed = 1;
+        do {
+            if (subscribed) {
+                drain(downstream.get());
+            }
+            missed = pending.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void drain(Flow.Subscriber<? super JSONEntity> subscriber) {
+        while (!terminated) {
+            if (rejection != null) {
+                fail(rejection, true);
+                return;
+            }
+            if (cancelled) {
+                terminate();
+                return;
+            }
+            if (demand.get() > 0 && !ready.isEmpty()) {
+                demand.decrementAndGet();
+                try {
+                    subscriber.onNext(ready.poll());
+                } catch (RuntimeException e) {
+                    cancelled = true;
+                    Flow.Subscription subscription = upstream;
+                    if (subscription != null) subscription.cancel();
+                }
+                continue;
+            }
+            if (!selector.isOver() && (demand.get() == 0 || !ready.isEmpty())) return;
+            List<ByteBuffer> chunk;
+            while ((chunk = inbox.poll()) != null) {
+                for (ByteBuffer buffer : chunk) {
+                    if (buffer.hasRemaining()) bytes.add(buffer);
+                }
+                requested = false;
+            }
+            try {
+                if (!bytes.isEmpty()) {
+                    feed();
+                    continue;
+                }
+                if (error != null) {
+                    fail(error, false);
+                    return;
+                }
+                if (completed) {
+                    parser.end();
+                    if (!selector.isOver()) {
+                        throw new JSONException(path == null ? "expected a top-level list" : String.format("no list found at '%s'", path));
+                    }
+                    if (!ready.isEmpty()) return;
+                    terminate();
+                    subscriber.onComplete();
+                    return;
+                }
+            } catch (JSONException e) {
+                fail(e, true);
+                return;
+            }
+            Flow.Subscription subscription = upstream;
+            if (subscription == null || requested) return;
+            requested = true;
+            subscription.request(1);
+            if (inbox.isEmpty()) return;
+        }
+    }
+
+    /* Parses the next few kilobytes, the elements completed by them go to the ready queue */
+    private void feed() {
+        ByteBuffer head = bytes.peek();
+        int length = Math.min(head.remaining(), FEED_SIZE);
+        ByteBuffer slice = head.slice(head.position(), length);
+        head.position(head.position() + length);
+        if (!head.hasRemaining()) bytes.poll();
+        parser.feed(slice);
+    }
+
+    /* Signals the error, cancelling upstream unless the error came from there */
+    private void fail(Throwable throwable, boolean cancel) {
+        Flow.Subscription subscription = upstream;
+        if (subscription != null && cancel) subscription.cancel();
+        terminate();
+        downstream.get().onError(throwable);
+    }
+
+    /* Clears the elements never handed out and drops the bytes left */
+    private void terminate() {
+        terminated = true;
+        ready.forEach(JSONEntity::clear);
+        ready.clear();
+        bytes.clear();
+        inbox.clear();
+    }
+
+    private final class Subscription implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                rejection = new IllegalArgumentException("requested a non positive number of elements");
+                drain();
+                return;
+            }
+            demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            Flow.Subscription subscription = upstream;
+            if (subscription != null) subscription.cancel();
+            drain();
+        }
+
+    }
+
+    /*
+     * Follows the parse events down the path, forwarding the events of every element of the selected list to the
+     * tree builder, whose result is the element once its last event is in
+     */
+    private final class Selector implements JSONHandler {
+
+        /* Whether each open container is reached by the path */
+        private boolean[] onPath = new boolean[16];
+
+        private boolean[] lists = new boolean[16];
+
+        /* The number of values started in each open list */
+        private int[] counts = new int[16];
+
+        /* Whether the key just read in each open object is the one of the path */
+        private boolean[] keysOnPath = new boolean[16];
+
+        private int depth = 0;
+
+        /* Whether the selected list was opened, and since closed */
+        private boolean found = false;
+
+        private boolean over = false;
+
+        /* The depth the element being built started at, -1 when none */
+        private int element = -1;
+
+        boolean isOver() {
+            return over;
+        }
+
+        @Override
+        public void startObject() {
+            if (startContainer()) tree.startObject();
+            else enter(false);
+        }
+
+        @Override
+        public void key(char[] chars, int offset, int length) {
+            if (element != -1) {
+                tree.key(chars, offset, length);
+                return;
+            }
+            int level = depth - 1;
+            keysOnPath[level] = onPath[level] && level < segments && !path.isIndex(level) && equals(path.getKey(level), chars, offset, length);
+        }
+
+        @Override
+        public void endObject() {
+            if (element != -1) {
+                tree.endObject();
+                endContainer();
+            } else {
+                leave();
+            }
+        }
+
+        @Override
+        public void startList() {
+            if (startContainer()) tree.startList();
+            else enter(true);
+        }
+
+        @Override
+        public void endList() {
+            if (element != -1) {
+                tree.endList();
+                endContainer();
+            } else {
+                leave();
+            }
+        }
+
+        @Override
+        public void stringValue(char[] chars, int offset, int length) {
+            if (startScalar()) {
+                tree.stringValue(chars, offset, length);
+                endScalar();
+            }
+        }
+
+        @Override
+        public void numberValue(long value) {
+            if (startScalar()) {
+                tree.numberValue(value);
+                endScalar();
+            }
+        }
+
+        @Override
+        public void numberValue(double value) {
+            if (startScalar()) {
+                tree.numberValue(value);
+                endScalar();
+            }
+        }
+
+        @Override
+        public void booleanValue(boolean value) {
+            if (startScalar()) {
+                tree.booleanValue(value);
+                endScalar();
+            }
+        }
+
+        @Override
+        public void nullValue() {
+            if (startScalar()) {
+                tree.nullValue();
+                endScalar();
+            }
+        }
+
+        /* Whether the values goes to the tree, either nested in an element or as a whole element */
+        private boolean isElement() {
+            return element != -1 || (found && !over && depth == segments + 1);
+        }
+
+        private boolean startContainer() {
+            if (!isElement()) return false;
+            if (element == -1) {
+                tree.next();
+                element = depth;
+            }
+            depth++;
+            return true;
+        }
+
+        private void endContainer() {
+            depth--;
+            if (depth == element) {
+                element = -1;
+                ready.add(tree.getResult());
+            }
+        }
+
+        private boolean startScalar() {
+            if (isElement()) {
+                if (element == -1) tree.next();
+                return true;
+            }
+            if (depth > 0 && lists[depth - 1]) counts[depth - 1]++;
+            return false;
+        }
+
+        private void endScalar() {
+            if (element == -1) ready.add(tree.getResult());
+        }
+
+        private void enter(boolean list) {
+            boolean reached = depth == 0 || isChildOnPath(depth - 1);
+            if (depth == onPath.length) {
+                onPath = Arrays.copyOf(onPath, depth << 1);
+                lists = Arrays.copyOf(lists, depth << 1);
+                counts = Arrays.copyOf(counts, depth << 1);
+                keysOnPath = Arrays.copyOf(keysOnPath, depth << 1);
+            }
+            onPath[depth] = reached;
+            lists[depth] = list;
+            counts[depth] = 0;
+            keysOnPath[depth] = false;
+            if (list && reached && depth == segments && !found) found = true;
+            depth++;
+        }
+
+        private void leave() {
+            depth--;
+            if (found && depth == segments && onPath[depth]) over = true;
+        }
+
+        /* Whether the value starting in the container of the level is reached by the path */
+        private boolean isChildOnPath(int level) {
+            if (!lists[level]) return keysOnPath[level];
+            int index = counts[level]++;
+            return onPath[level] && level < segments && path.isIndex(level) && path.getIndex(level) == index;
+        }
+
+        private static boolean equals(String key, char[] chars, int offset, int length) {
+            if (key.length() != length) return false;
+            for (int i = 0; i < length; i++) {
+                if (key.charAt(i) != chars[offset + i]) return false;
+            }
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/*
+ * The map of a JSON object entity, a shape plus the values by key index while the object stays small.
+ * It falls back to a LinkedHashMap once it outgrows JSONShape.MAX_KEYS or a key is removed.
+ */
+final class JSONMap extends AbstractMap<String, Object> {
+
+    private JSONShape shape;
+
+    private Object[] values;
+
+    /* The fallback map, null while shaped */
+    private Map<String, Object> map = null;
+
+    JSONMap() {
+        this(JSONShape.root());
+    }
+
+    JSONMap(JSONShape root) {
+        this.shape = root;
+        this.values = new Object[4];
+    }
+
+    @Override
+    public int size() {
+        return map == null ? shape.size() : map.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (map != null) return map.containsKey(key);
+        return key != null && shape.indexOf(key) != -1;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (map != null) return map.get(key);
+        int index = key == null ? -1 : shape.indexOf(key);
+        return index == -1 ? null : values[index];
+    }
+
+    /* Adds a parsed pair following the shape transitions, false when the key is already there */
+    boolean putParsed(String key, Object value) {
+        if (map == null) {
+            /* a cached transition can only lead to a key the shape doesn't have */
+            JSONShape next = shape.cached(key);
+            if (next == null) {
+                if (shape.indexOf(key) != -1) return false;
+                if (shape.size() < JSONShape.MAX_KEYS) next = shape.with(key);
+            }
+            if (next != null) {
+                int size = shape.size();
+                if (size == values.length) values = Arrays.copyOf(values, size << 1);
+                values[size] = value;
+                shape = next;
+                return true;
+            }
+            unshape();
+        }
+        if (map.containsKey(key)) return false;
+        map.put(key, value);
+        return true;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (map == null) {
+            if (key == null || shape.indexOf(key) == -1) return null;
+            unshape();
+        }
+        return map.remove(key);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (map != null) return map.entrySet();
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return JSONMap.this.size();
+            }
+
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return map != null ? map.entrySet().iterator() : new ShapedIterator();
+            }
+        };
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        if (map != null) return map.put(key, value);
+        int index = shape.indexOf(key);
+        if (index != -1) {
+            Object previous = values[index];
+            values[index] = value;
+            return previous;
+        }
+        int size = shape.size();
+        if (size == JSONShape.MAX_KEYS) {
+            unshape();
+            return map.put(key, value);
+        }
+        if (size == values.length) values = Arrays.copyOf(values, size << 1);
+        shape = shape.extend(key);
+        values[size] = value;
+        return null;
+    }
+
+    private void unshape() {
+        map = new LinkedHashMap<>();
+        for (int i = 0; i < shape.size(); i++) map.put(shape.key(i), values[i]);
+        Arrays.fill(values, null);
+        values = null;
+        shape = null;
+    }
+
+    private final class ShapedIterator implements Iterator<Entry<String, Object>> {
+
+        private final JSONShape current = shape;
+
+        private int index = 0;
+
+        @Override
+        public boolean hasNext() {
+            return index < current.size();
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (index >= current.size()) throw new NoSuchElementException();
+            if (shape != current) throw new ConcurrentModificationException();
+            int at = index++;
+            return new SimpleEntry<>(current.key(at), values[at]) {
+                @Override
+                public Object setValue(Object value) {
+                    if (shape != current) throw new ConcurrentModificationException();
+                    super.setValue(value);
+                    Object previous = values[at];
+                    values[at] = value;
+                    return previous;
+                }
+            };
+        }
+
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/*
+ * Binds JSON straight to records, POJOs, collections, maps, arrays, enums and scalars, and writes them back, with
+ * no JSON entity in between. Every class is analyzed once (method handles to its constructor and accessors are
+ * cached with it), then each parse event goes to the object or list being filled:
+ * ➔ records are built through their canonical constructor, missing properties being null (or zero)
+ * ➔ POJOs need a no-arg constructor, their fields are set through setX() when there is one
+ * ➔ unknown keys are skipped, JSONEntity and Object properties keep the JSON as the parser would build it
+ */
+public final class JSONMapper {
+
+    private JSONMapper() {
+    }
+
+    public static <T> T read(char[] json, Class<T> type) {
+        if (type == null) throw new NullPointerException("type must not be null");
+        Binder binder = new Binder(JSONBinding.of(type));
+        JSONParserContext.current().parseJson(json, binder);
+        return binder.getResult();
+    }
+
+    public static <T> T read(byte[] json, Class<T> type) {
+        return read(ByteBuffer.wrap(json), type);
+    }
+
+    /* Reads the UTF-8 bytes between the position and the limit, the buffer position is left untouched */
+    public static <T> T read(ByteBuffer json, Class<T> type) {
+        if (type == null) throw new NullPointerException("type must not be null");
+        Binder binder = new Binder(JSONBinding.of(type));
+        JSONParserContext.current().parseJson(json, binder);
+        return binder.getResult();
+    }
+
+    /* The JSON of the value, bound by its runtime type */
+    public static char[] write(Object value) {
+        JSONWriter writer = new JSONWriter(false);
+        try {
+            return write(value, writer).toCharArray();
+        } finally {
+            writer.wipe();
+        }
+    }
+
+    /* Writes the value as the next value of the writer */
+    public static JSONWriter write(Object value, JSONWriter writer) {
+        if (writer == null) throw new NullPointerException("writer must not be null");
+        if (value == null) return writer.nullValue();
+        JSONBinding.of(value.getClass()).write(writer, value);
+        return writer;
+    }
+
+    /* Feeds the parse events to the frames of the objects and lists being filled */
+    private static final class Binder implements JSONHandler {
+
+        private final JSONBinding root;
+
+        private JSONBinding.Frame[] frames = new JSONBinding.Frame[16];
+
+        private int depth = 0;
+
+        private Object result;
+
+        Binder(JSONBinding root) {
+            this.root = root;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> T getResult() {
+            return (T) result;
+        }
+
+        @Override
+        public void startObject() {
+            push(expected().startObject());
+        }
+
+        @Override
+        public void key(char[] chars, int offset, int length) {
+            frames[depth - 1].key(chars, offset, length);
+        }
+
+        @Override
+        public void endObject() {
+            pop();
+        }
+
+        @Override
+        public void startList() {
+            push(expected().startList());
+        }
+
+        @Override
+        public void endList() {
+            pop();
+        }
+
+        @Override
+        public void stringValue(char[] chars, int offset, int length) {
+            add(expected().readString(chars, offset, length));
+        }
+
+        @Override
+        public void numberValue(long value) {
+            add(expected().readLong(value));
+        }
+
+        @Override
+        public void numberValue(double value) {
+            add(expected().readDouble(value));
+        }
+
+        @Override
+        public void booleanValue(boolean value) {
+            add(expected().readBoolean(value));
+        }
+
+        @Override
+        public void nullValue() {
+            add(expected().readNull());
+        }
+
+        /* The binding of the value starting */
+        private JSONValueReader expected() {
+            return depth == 0 ? root : frames[depth - 1].next();
+        }
+
+        private void push(JSONBinding.Frame frame) {
+            if (depth == frames.length) frames = Arrays.copyOf(frames, depth << 1);
+            frames[depth++] = frame;
+        }
+
+        private void pop() {
+            JSONBinding.Frame frame = frames[--depth];
+            frames[depth] = null;
+            add(frame.end());
+        }
+
+        private void add(Object value) {
+            if (depth == 0) {
+                result = value;
+            } else {
+                frames[depth - 1].add(value);
+            }
+        }
+
+    }
+
+}
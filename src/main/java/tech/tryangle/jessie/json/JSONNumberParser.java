@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import java.math.BigInteger;
+
+/*
+ * Reads RFC 8259 numbers straight from chars in a single pass, keeping the last value unboxed:
+ * ➔ integers are accumulated into a long, going past its range is an error
+ * ➔ decimals and exponents keep up to 19 significant digits and a power of ten, which are converted exactly with
+ *   the Clinger fast path or else Eisel-Lemire, falling back to Double.parseDouble only when dropped digits matter
+ */
+final class JSONNumberParser {
+
+    private static final int SMALLEST_POWER = -342, LARGEST_POWER = 308;
+
+    private static final int MAX_DIGITS = 19;
+
+    /* The largest exponent still worth accumulating, anything past it is zero or infinite already */
+    private static final int MAX_EXPONENT = 100_000;
+
+    private static final long MANTISSA_MASK = (1L << 52) - 1;
+
+    private static final double[] EXACT_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /* The powers of five from 5^-342 to 5^308 as truncated 128-bit mantissas, the high half first */
+    private static final long[] POWERS_OF_FIVE = powersOfFive();
+
+    private boolean decimal;
+
+    private long longValue;
+
+    private double doubleValue;
+
+    /* Whether the char can belong to a number token, the token itself is validated by parse() */
+    static boolean isNumeric(int c) {
+        return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E';
+    }
+
+    /* The end of the number token starting at i */
+    static int end(char[] chars, int i, int end) {
+        while (i < end && isNumeric(chars[i])) i++;
+        return i;
+    }
+
+    boolean isDecimal() {
+        return decimal;
+    }
+
+    long longValue() {
+        return longValue;
+    }
+
+    double doubleValue() {
+        return doubleValue;
+    }
+
+    /* The value the way JSON entities store it (Integer when it fits, else Long, or Double for decimals) */
+    Object value() {
+        if (decimal) return doubleValue;
+        if (longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE) return (int) longValue;
+        return longValue;
+    }
+
+    void emit(JSONHandler handler) {
+        if (decimal) {
+            handler.numberValue(doubleValue);
+        } else {
+            handler.numberValue(longValue);
+        }
+    }
+
+    /* Parses the whole range as one number */
+    void parse(char[] chars, int start, int end) {
+        int i = start;
+        boolean negative = i < end && chars[i] == '-';
+        if (negative) i++;
+        if (i >= end || chars[i] < '0' || chars[i] > '9') throw new JSONException("malformed numeric");
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean truncated = false;
+        if (chars[i] == '0') {
+            i++;
+            if (i < end && chars[i] >= '0' && chars[i] <= '9') throw new JSONException("found numeric with leading zeros");
+        } else {
+            for (; i < end && chars[i] >= '0' && chars[i] <= '9'; i++) {
+                if (digits < MAX_DIGITS) {
+                    mantissa = 10 * mantissa + (chars[i] - '0');
+                    digits++;
+                } else {
+                    truncated = true;
+                    exponent++;
+                }
+            }
+        }
+        boolean fraction = i < end && chars[i] == '.';
+        if (fraction) {
+            int first = ++i;
+            for (; i < end && chars[i] >= '0' && chars[i] <= '9'; i++) {
+                if (digits < MAX_DIGITS) {
+                    mantissa = 10 * mantissa + (chars[i] - '0');
+                    if (mantissa != 0) digits++;
+                    exponent--;
+                } else {
+                    truncated = true;
+                }
+            }
+            if (i == first) throw new JSONException("found decimal with no fraction digits");
+        }
+        boolean scientific = i < end && (chars[i] == 'e' || chars[i] == 'E');
+        if (scientific) {
+            i++;
+            boolean negativeExponent = i < end && chars[i] == '-';
+            if (i < end && (chars[i] == '-' || chars[i] == '+')) i++;
+            int first = i;
+            int power = 0;
+            for (; i < end && chars[i] >= '0' && chars[i] <= '9'; i++) {
+                if (power < MAX_EXPONENT) power = 10 * power + (chars[i] - '0');
+            }
+            if (i == first) throw new JSONException("found exponent with no digits");
+            exponent += negativeExponent ? -power : power;
+        }
+        if (i < end) {
+            if (chars[i] == '.') throw new JSONException("found decimal with multiple dots");
+            if (chars[i] == '-') throw new JSONException("found numeric with multiple minuses");
+            throw new JSONException("malformed numeric");
+        }
+        decimal = fraction || scientific;
+        if (!decimal) {
+            /* the mantissa is unsigned, 19 digits fit in 64 bits but not always in a signed long */
+            if (truncated || Long.compareUnsigned(mantissa, negative ? Long.MIN_VALUE : Long.MAX_VALUE) > 0) {
+                throw new JSONException("numeric out of range");
+            }
+            longValue = negative ? -mantissa : mantissa;
+            return;
+        }
+        double value = toDouble(mantissa, exponent);
+        if (truncated && value != toDouble(mantissa + 1, exponent)) {
+            value = Double.parseDouble(new String(chars, start, end - start));
+        }
+        if (Double.isInfinite(value)) throw new JSONException("numeric out of range");
+        doubleValue = negative ? -value : value;
+    }
+
+    /* The double nearest to mantissa * 10^exponent, the mantissa being unsigned */
+    static double toDouble(long mantissa, int exponent) {
+        if (mantissa == 0 || exponent < SMALLEST_POWER) return 0.0;
+        if (exponent > LARGEST_POWER) return Double.POSITIVE_INFINITY;
+        if (exponent >= -22 && exponent <= 22 && mantissa >= 0 && mantissa <= 1L << 53) {
+            return exponent < 0 ? mantissa / EXACT_POWERS_OF_TEN[-exponent] : mantissa * EXACT_POWERS_OF_TEN[exponent];
+        }
+        int zeros = Long.numberOfLeadingZeros(mantissa);
+        long normalized = mantissa << zeros;
+        int index = 2 * (exponent - SMALLEST_POWER);
+        long high = Math.unsignedMultiplyHigh(normalized, POWERS_OF_FIVE[index]);
+        long low = normalized * POWERS_OF_FIVE[index];
+        if ((high & 0x1FF) == 0x1FF) {
+            /* the truncated power is not enough to round, bring in the next 64 bits */
+            long carry = Math.unsignedMultiplyHigh(normalized, POWERS_OF_FIVE[index + 1]);
+            low += carry;
+            if (Long.compareUnsigned(carry, low) > 0) high++;
+        }
+        int upper = (int) (high >>> 63);
+        int shift = upper + 9;
+        long bits = high >>> shift;
+        int power = (((152170 + 65536) * exponent) >> 16) + 63 + upper - zeros + 1023;
+        if (power <= 0) {
+            if (1 - power >= 64) return 0.0;
+            bits >>>= 1 - power;
+            bits += bits & 1;
+            bits >>>= 1;
+            /* rounding up to 1 << 52 lands on the smallest normal */
+            return Double.longBitsToDouble(bits);
+        }
+        if (Long.compareUnsigned(low, 1) <= 0 && exponent >= -4 && exponent <= 23 && (bits & 3) == 1 && bits << shift == high) {
+            /* exactly halfway, round to even */
+            bits &= ~1L;
+        }
+        bits += bits & 1;
+        bits >>>= 1;
+        if (bits >= 2L << 52) {
+            bits = 1L << 52;
+            power++;
+        }
+        if (power >= 0x7FF) return Double.POSITIVE_INFINITY;
+        return Double.longBitsToDouble((long) power << 52 | bits & MANTISSA_MASK);
+    }
+
+    private static long[] powersOfFive() {
+        long[] powers = new long[2 * (LARGEST_POWER - SMALLEST_POWER + 1)];
+        BigInteger five = BigInteger.valueOf(5);
+        for (int q = SMALLEST_POWER; q <= LARGEST_POWER; q++) {
+            BigInteger power;
+            if (q < 0) {
+                /* reciprocals are rounded up so the product never falls short */
+                BigInteger divisor = five.pow(-q);
+                int bits = divisor.bitLength();
+                int scale = q >= -27 ? bits + 127 : 2 * bits + 128;
+                power = BigInteger.ONE.shiftLeft(scale).divide(divisor).add(BigInteger.ONE);
+            } else {
+                power = five.pow(q);
+            }
+            int excess = power.bitLength() - 128;
+            power = excess > 0 ? power.shiftRight(excess) : power.shiftLeft(-excess);
+            int index = 2 * (q - SMALLEST_POWER);
+            powers[index] = power.shiftRight(64).longValue();
+            powers[index + 1] = power.longValue();
+        }
+        return powers;
+    }
+
+}
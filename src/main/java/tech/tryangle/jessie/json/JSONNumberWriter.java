@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import java.math.BigInteger;
+
+/*
+ * Writes decimals as the shortest digits that read back to the same value (Schubfach, the algorithm behind
+ * Double.toString and Float.toString since Java 19) straight into a char array, in their exact format:
+ * ➔ plain digits with at least one after the point from 10^-3 up to 10^7, e.g. 0.001 or 1234567.0
+ * ➔ computerized scientific notation otherwise, e.g. 1.0E-5 or 1.2345678E7
+ * Nothing is allocated once the class is loaded, the caller gives room for MAX_CHARS chars.
+ */
+final class JSONNumberWriter {
+
+    /* The longest decimal written, e.g. -2.2250738585072014E-308 */
+    static final int MAX_CHARS = 24;
+
+    private static final int DOUBLE_P = 53, DOUBLE_Q_MIN = -1074, DOUBLE_H = 17;
+
+    private static final long DOUBLE_C_MIN = 1L << (DOUBLE_P - 1), DOUBLE_C_TINY = 3;
+
+    private static final int FLOAT_P = 24, FLOAT_Q_MIN = -149, FLOAT_H = 9;
+
+    private static final int FLOAT_C_MIN = 1 << (FLOAT_P - 1), FLOAT_C_TINY = 8;
+
+    private static final int K_MIN = -324, K_MAX = 292;
+
+    private static final long MASK_63 = (1L << 63) - 1, MASK_32 = (1L << 32) - 1;
+
+    private static final int MASK_28 = (1 << 28) - 1;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L
+    };
+
+    /* The 126-bit approximations g of 10^-k from above (g - 1 <= 10^-k 2^-r < g), the high 63 bits first */
+    private static final long[] POWERS_OF_TEN_INVERSE = inversePowersOfTen();
+
+    private JSONNumberWriter() {
+    }
+
+    /* Writes the finite double at the offset, returns where its chars end */
+    static int write(double value, char[] into, int offset) {
+        long bits = Double.doubleToRawLongBits(value);
+        int at = offset;
+        if (bits < 0) into[at++] = '-';
+        long t = bits & (DOUBLE_C_MIN - 1);
+        int bq = (int) (bits >>> (DOUBLE_P - 1)) & 0x7FF;
+        if (bq != 0) {
+            int mq = -DOUBLE_Q_MIN + 1 - bq;
+            long c = DOUBLE_C_MIN | t;
+            if (0 < mq && mq < DOUBLE_P) {
+                /* integers below 2^53 are their own shortest digits */
+                long f = c >> mq;
+                if (f << mq == c) return writeDigits(f, 0, into, at);
+            }
+            return writeDouble(-mq, c, 0, into, at);
+        }
+        if (t != 0) return t < DOUBLE_C_TINY ? writeDouble(DOUBLE_Q_MIN, 10 * t, -1, into, at) : writeDouble(DOUBLE_Q_MIN, t, 0, into, at);
+        into[at] = '0';
+        into[at + 1] = '.';
+        into[at + 2] = '0';
+        return at + 3;
+    }
+
+    /* Writes the finite float at the offset with the digits of Float.toString, returns where its chars end */
+    static int write(float value, char[] into, int offset) {
+        int bits = Float.floatToRawIntBits(value);
+        int at = offset;
+        if (bits < 0) into[at++] = '-';
+        int t = bits & (FLOAT_C_MIN - 1);
+        int bq = (bits >>> (FLOAT_P - 1)) & 0xFF;
+        if (bq != 0) {
+            int mq = -FLOAT_Q_MIN + 1 - bq;
+            int c = FLOAT_C_MIN | t;
+            if (0 < mq && mq < FLOAT_P) {
+                int f = c >> mq;
+                if (f << mq == c) return writeDigits(f, 0, into, at);
+            }
+            return writeFloat(-mq, c, 0, into, at);
+        }
+        if (t != 0) return t < FLOAT_C_TINY ? writeFloat(FLOAT_Q_MIN, 10 * t, -1, into, at) : writeFloat(FLOAT_Q_MIN, t, 0, into, at);
+        into[at] = '0';
+        into[at + 1] = '.';
+        into[at + 2] = '0';
+        return at + 3;
+    }
+
+    /* Picks the shortest digits of c 2^q within the rounding interval, the closest one on ties */
+    private static int writeDouble(int q, long c, int dk, char[] into, int at) {
+        int out = (int) c & 1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != DOUBLE_C_MIN || q == DOUBLE_Q_MIN) {
+            cbl = cb - 2;
+            k = floorLog10Pow2(q);
+        } else {
+            /* the interval is asymmetric at a power of two */
+            cbl = cb - 1;
+            k = floorLog10ThreeQuartersPow2(q);
+        }
+        int h = q + floorLog2Pow10(-k) + 2;
+        int index = (k - K_MIN) << 1;
+        long g1 = POWERS_OF_TEN_INVERSE[index];
+        long g0 = POWERS_OF_TEN_INVERSE[index + 1];
+        long vb = roundToOdd(g1, g0, cb << h);
+        long vbl = roundToOdd(g1, g0, cbl << h);
+        long vbr = roundToOdd(g1, g0, cbr << h);
+        long s = vb >> 2;
+        if (s >= 100) {
+            /* one digit less when a multiple of ten is within the interval */
+            long sp10 = 10 * Math.multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) return writeDigits(upin ? sp10 : tp10, k, into, at);
+        }
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) return writeDigits(uin ? s : t, k + dk, into, at);
+        long cmp = vb - (s + t << 1);
+        return writeDigits(cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk, into, at);
+    }
+
+    private static int writeFloat(int q, int c, int dk, char[] into, int at) {
+        int out = c & 1;
+        long cb = (long) c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != FLOAT_C_MIN || q == FLOAT_Q_MIN) {
+            cbl = cb - 2;
+            k = floorLog10Pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = floorLog10ThreeQuartersPow2(q);
+        }
+        int h = q + floorLog2Pow10(-k) + 33;
+        long g = POWERS_OF_TEN_INVERSE[(k - K_MIN) << 1] + 1;
+        int vb = roundToOdd(g, cb << h);
+        int vbl = roundToOdd(g, cbl << h);
+        int vbr = roundToOdd(g, cbr << h);
+        int s = vb >> 2;
+        if (s >= 100) {
+            int sp10 = 10 * (int) (s * 1_717_986_919L >>> 34);
+            int tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) return writeDigits(upin ? sp10 : tp10, k, into, at);
+        }
+        int t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) return writeDigits(uin ? s : t, k + dk, into, at);
+        int cmp = vb - (s + t << 1);
+        return writeDigits(cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk, into, at);
+    }
+
+    /* The product of g and cp shifted right by 127 bits, its lowest bit set when any dropped bit is */
+    private static long roundToOdd(long g1, long g0, long cp) {
+        long x1 = Math.multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = Math.multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    private static int roundToOdd(long g, long cp) {
+        long x1 = Math.multiplyHigh(g, cp);
+        long vbp = x1 >>> 31;
+        return (int) (vbp | (x1 & MASK_32) + MASK_32 >>> 32);
+    }
+
+    /* Writes f 10^e, f having at most 17 digits */
+    private static int writeDigits(long f, int e, char[] into, int at) {
+        int length = floorLog10Pow2(Long.SIZE - Long.numberOfLeadingZeros(f));
+        if (f >= POWERS_OF_TEN[length]) length++;
+        /* scales f to exactly 17 digits, so f 10^e = 0.f 10^(e + length) */
+        f *= POWERS_OF_TEN[DOUBLE_H - length];
+        e += length;
+        long hm = Math.multiplyHigh(f, 193_428_131_138_340_668L) >>> 20;
+        int l = (int) (f - 100_000_000L * hm);
+        int h = (int) (hm * 1_441_151_881L >>> 57);
+        int m = (int) (hm - 100_000_000 * h);
+        return format(h, m, l, e, into, at);
+    }
+
+    /* Writes f 10^e, f having at most 9 digits */
+    private static int writeDigits(int f, int e, char[] into, int at) {
+        int length = floorLog10Pow2(Integer.SIZE - Integer.numberOfLeadingZeros(f));
+        if (f >= POWERS_OF_TEN[length]) length++;
+        f *= (int) POWERS_OF_TEN[FLOAT_H - length];
+        e += length;
+        int h = (int) (f * 1_441_151_881L >>> 57);
+        int m = f - 100_000_000 * h;
+        return format(h, m, 0, e, into, at);
+    }
+
+    /* Writes 0.h m l 10^e, h being one digit then m and l eight digits each */
+    private static int format(int h, int m, int l, int e, char[] into, int at) {
+        if (0 < e && e <= 7) {
+            into[at++] = (char) ('0' + h);
+            int y = eightDigits(m);
+            int i = 1;
+            for (; i < e; i++) {
+                int t = 10 * y;
+                into[at++] = (char) ('0' + (t >>> 28));
+                y = t & MASK_28;
+            }
+            into[at++] = '.';
+            for (; i <= 8; i++) {
+                int t = 10 * y;
+                into[at++] = (char) ('0' + (t >>> 28));
+                y = t & MASK_28;
+            }
+            return lowDigits(l, into, at);
+        }
+        if (-3 < e && e <= 0) {
+            into[at++] = '0';
+            into[at++] = '.';
+            for (; e < 0; e++) into[at++] = '0';
+            into[at++] = (char) ('0' + h);
+            at = writeEightDigits(m, into, at);
+            return lowDigits(l, into, at);
+        }
+        into[at++] = (char) ('0' + h);
+        into[at++] = '.';
+        at = writeEightDigits(m, into, at);
+        at = lowDigits(l, into, at);
+        return writeExponent(e - 1, into, at);
+    }
+
+    private static int lowDigits(int l, char[] into, int at) {
+        if (l != 0) at = writeEightDigits(l, into, at);
+        /* trailing zeros go but the digit right after the point */
+        while (into[at - 1] == '0') at--;
+        if (into[at - 1] == '.') at++;
+        return at;
+    }
+
+    private static int writeEightDigits(int m, char[] into, int at) {
+        int y = eightDigits(m);
+        for (int i = 0; i < 8; i++) {
+            int t = 10 * y;
+            into[at++] = (char) ('0' + (t >>> 28));
+            y = t & MASK_28;
+        }
+        return at;
+    }
+
+    /* The fixed point fraction m / 10^8 in 28 bits, its digits come out left to right by multiplying by ten */
+    private static int eightDigits(int m) {
+        return (int) (Math.multiplyHigh((long) (m + 1) << 28, 193_428_131_138_340_668L) >>> 20) - 1;
+    }
+
+    private static int writeExponent(int e, char[] into, int at) {
+        into[at++] = 'E';
+        if (e < 0) {
+            into[at++] = '-';
+            e = -e;
+        }
+        if (e < 10) {
+            into[at++] = (char) ('0' + e);
+            return at;
+        }
+        if (e >= 100) {
+            int d = e * 1_311 >>> 17;
+            into[at++] = (char) ('0' + d);
+            e -= 100 * d;
+        }
+        int d = e * 103 >>> 10;
+        into[at++] = (char) ('0' + d);
+        into[at++] = (char) ('0' + e - 10 * d);
+        return at;
+    }
+
+    private static int floorLog10Pow2(int e) {
+        return (int) (e * 661_971_961_083L >> 41);
+    }
+
+    private static int floorLog10ThreeQuartersPow2(int e) {
+        return (int) (e * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    private static int floorLog2Pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+
+    private static long[] inversePowersOfTen() {
+        long[] powers = new long[2 * (K_MAX - K_MIN + 1)];
+        BigInteger ten = BigInteger.TEN;
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            /* 10^-k = beta 2^r with 2^125 <= beta < 2^126, g = floor(beta) + 1 */
+            int r = floorLog2Pow10(-k) - 125;
+            BigInteger numerator = k <= 0 ? ten.pow(-k) : BigInteger.ONE;
+            BigInteger denominator = k > 0 ? ten.pow(k) : BigInteger.ONE;
+            if (r < 0) {
+                numerator = numerator.shiftLeft(-r);
+            } else {
+                denominator = denominator.shiftLeft(r);
+            }
+            BigInteger g = numerator.divide(denominator).add(BigInteger.ONE);
+            int index = 2 * (k - K_MIN);
+            powers[index] = g.shiftRight(63).longValue();
+            powers[index + 1] = g.longValue() & MASK_63;
+        }
+        return powers;
+    }
+
+}
@@ -0,0 +1,390 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import tech.tryangle.jessie.util.CharScanner;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/*
+ * Parses a document holding one big top-level list in parallel: a quote and escape aware bracket scan finds
+ * where every element starts and ends, then runs of elements are parsed on the pool with the parser context of
+ * each worker. Malformed input is parsed again sequentially, so the error thrown is exactly the one JSONParser
+ * throws. Immutable (every with-method returns a copy).
+ */
+public final class JSONParallelParser {
+
+    /* The number of chars (or bytes) of elements parsed together as one task */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+    private static final JSONParallelParser DEFAULTS = new JSONParallelParser(null, JSONParserOptions.defaults(), DEFAULT_CHUNK_SIZE, 0, true);
+
+    /* The pool elements are parsed on, null for the common pool */
+    private final ForkJoinPool pool;
+
+    private final JSONParserOptions options;
+
+    private final int chunkSize;
+
+    /* The number of chunks parsed ahead of the caller, 0 for twice the pool parallelism */
+    private final int maxInFlight;
+
+    /* Whether streamed elements come in the order of the list */
+    private final boolean ordered;
+
+    private JSONParallelParser(ForkJoinPool pool, JSONParserOptions options, int chunkSize, int maxInFlight, boolean ordered) {
+        this.pool = pool;
+        this.options = options;
+        this.chunkSize = chunkSize;
+        this.maxInFlight = maxInFlight;
+        this.ordered = ordered;
+    }
+
+    public static JSONParallelParser defaults() {
+        return DEFAULTS;
+    }
+
+    public JSONParallelParser withPool(ForkJoinPool pool) {
+        if (pool == null) throw new NullPointerException("pool must not be null");
+        return new JSONParallelParser(pool, options, chunkSize, maxInFlight, ordered);
+    }
+
+    /* The options the elements are parsed with, a symbol table or arena in them is shared by all the workers */
+    public JSONParallelParser withOptions(JSONParserOptions options) {
+        if (options == null) throw new NullPointerException("options must not be null");
+        return new JSONParallelParser(pool, options, chunkSize, maxInFlight, ordered);
+    }
+
+    public JSONParallelParser withChunkSize(int chunkSize) {
+        if (chunkSize < 1) throw new IllegalArgumentException("chunk size must be positive");
+        return new JSONParallelParser(pool, options, chunkSize, maxInFlight, ordered);
+    }
+
+    public JSONParallelParser withMaxInFlight(int maxInFlight) {
+        if (maxInFlight < 1) throw new IllegalArgumentException("max in flight must be positive");
+        return new JSONParallelParser(pool, options, chunkSize, maxInFlight, ordered);
+    }
+
+    /* Only applies to stream(), unordered elements come chunk by chunk as soon as each chunk is parsed */
+    public JSONParallelParser withOrdered(boolean ordered) {
+        return new JSONParallelParser(pool, options, chunkSize, maxInFlight, ordered);
+    }
+
+    /*
+     * Parses the chars to the same entity JSONParser.parseJson(json, options) returns, documents smaller
+     * than a chunk or whose top-level value is not a list are parsed sequentially
+     */
+    public JSONEntity parse(char[] json) {
+        if (json == null) throw new NullPointerException("json must not be null");
+        Chunks chunks = new CharChunks(json).open();
+        if (json.length <= chunkSize || chunks.isNotList()) return JSONParser.parseJson(json, options);
+        return collect(JSONChunkPipeline.stream(chunks, pool, maxInFlight, true));
+    }
+
+    public JSONEntity parse(byte[] json) {
+        return parse(ByteBuffer.wrap(json));
+    }
+
+    /* Parses the UTF-8 bytes between the position and the limit (left untouched), e.g. of a mapped file */
+    public JSONEntity parse(ByteBuffer json) {
+        if (json == null) throw new NullPointerException("json must not be null");
+        Chunks chunks = new ByteChunks(json.slice()).open();
+        if (json.remaining() <= chunkSize || chunks.isNotList()) return JSONParser.parseJson(json, options);
+        return collect(JSONChunkPipeline.stream(chunks, pool, maxInFlight, true));
+    }
+
+    /*
+     * Streams the elements of the top-level list (scalars as JSON values) while they are parsed on the pool,
+     * the stream itself is sequential and closing it early clears the elements never handed out
+     */
+    public Stream<JSONEntity> stream(char[] json) {
+        if (json == null) throw new NullPointerException("json must not be null");
+        return JSONChunkPipeline.stream(new CharChunks(json).open(), pool, maxInFlight, ordered);
+    }
+
+    public Stream<JSONEntity> stream(byte[] json) {
+        return stream(ByteBuffer.wrap(json));
+    }
+
+    public Stream<JSONEntity> stream(ByteBuffer json) {
+        if (json == null) throw new NullPointerException("json must not be null");
+        return JSONChunkPipeline.stream(new ByteChunks(json.slice()).open(), pool, maxInFlight, ordered);
+    }
+
+    /* Adds the elements to a list the way the tree builder does, numbers go unboxed */
+    private static JSONEntity collect(Stream<JSONEntity> elements) {
+        JSONEntity list = JSONEntity.newList();
+        try (elements) {
+            elements.forEach(element -> {
+                if (!element.isValue()) {
+                    list.addToList(element);
+                } else if (element.getValue() instanceof Integer || element.getValue() instanceof Long) {
+                    list.addLong(((Number) element.getValue()).longValue());
+                } else if (element.getValue() instanceof Double value) {
+                    list.addDouble(value);
+                } else {
+                    list.addToList(element.getValue());
+                }
+            });
+        } catch (RuntimeException e) {
+            list.clear();
+            throw e;
+        }
+        return list;
+    }
+
+    /* Whether the parser skips the char between tokens */
+    private static boolean isBlank(int current) {
+        return current == ' ' || current == '\n' || current == '\r' || current == '\t' || Character.isISOControl(current);
+    }
+
+    /*
+     * Scans the top-level list element by element, cutting it into chunks of whole elements. Anything
+     * unexpected ends the chunks with one that throws the error of a sequential parse.
+     */
+    private abstract class Chunks implements Iterator<Supplier<List<JSONEntity>>> {
+
+        final int end;
+
+        /* Where the scan goes on */
+        private int position;
+
+        private boolean finished = false;
+
+        private boolean failed = false;
+
+        private boolean notList = false;
+
+        private JSONException failure;
+
+        Chunks(int end) {
+            this.end = end;
+        }
+
+        /* Scans up to the first element */
+        Chunks open() {
+            int i = skipBlank(0);
+            if (i == end || at(i) != '[') {
+                notList = true;
+                fail();
+                return this;
+            }
+            position = i + 1;
+            i = skipBlank(position);
+            if (i < end && at(i) == ']') {
+                finished = true;
+                if (skipBlank(i + 1) != end) fail();
+            }
+            return this;
+        }
+
+        /* The char (or byte) at the index */
+        abstract int at(int index);
+
+        /* The index after the quote closing the string that starts at the index, -1 when it is unterminated */
+        abstract int skipString(int from);
+
+        /* Parses the elements of the ranges (start and end pairs) */
+        abstract List<JSONEntity> parse(JSONParserContext context, int[] ranges, int count);
+
+        /* Parses the whole input sequentially into a tree for its error, duplicate keys included */
+        abstract void parseSequentially();
+
+        boolean isNotList() {
+            return notList;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !finished;
+        }
+
+        @Override
+        public Supplier<List<JSONEntity>> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            if (failed) {
+                finished = true;
+                return () -> {
+                    throw failure(null);
+                };
+            }
+            int[] ranges = new int[16];
+            int count = 0;
+            int start = position;
+            while (!failed && !finished && position - start < chunkSize) {
+                if (count == ranges.length) ranges = Arrays.copyOf(ranges, count << 1);
+                ranges[count] = position;
+                ranges[count + 1] = nextElement();
+                if (!failed) count += 2;
+            }
+            if (count == 0) return next();
+            int[] elements = ranges;
+            int size = count;
+            return () -> parseElements(elements, size);
+        }
+
+        private List<JSONEntity> parseElements(int[] ranges, int count) {
+            try {
+                return parse(JSONParserContext.current(), ranges, count);
+            } catch (JSONException e) {
+                throw failure(e);
+            }
+        }
+
+        /* Scans the element at the position, returns where it ends and moves past the comma or closing bracket */
+        private int nextElement() {
+            int start = position;
+            int depth = 0;
+            int i = position;
+            while (i < end) {
+                int current = at(i);
+                if (current == '"') {
+                    i = skipString(i + 1);
+                    if (i == -1) break;
+                    continue;
+                }
+                if (current == '{' || current == '[') {
+                    depth++;
+                } else if (current == '}' || current == ']') {
+                    if (depth-- > 0) {
+                        i++;
+                        continue;
+                    }
+                    if (current == '}' || skipBlank(i + 1) != end) break;
+                    finished = true;
+                    return checkElement(start, i);
+                } else if (current == ',' && depth == 0) {
+                    position = i + 1;
+                    return checkElement(start, i);
+                }
+                i++;
+            }
+            fail();
+            return i;
+        }
+
+        private int checkElement(int start, int end) {
+            if (skipBlank(start) >= end) fail();
+            return end;
+        }
+
+        private int skipBlank(int from) {
+            int i = from;
+            while (i < end && isBlank(at(i))) i++;
+            return i;
+        }
+
+        private void fail() {
+            failed = true;
+            finished = false;
+        }
+
+        /* The error of the sequential parse, computed once whichever chunk needs it first (the cause when it passes) */
+        private synchronized JSONException failure(JSONException cause) {
+            if (failure == null) {
+                try {
+                    parseSequentially();
+                    failure = cause != null ? cause : new JSONException("expected a top-level list");
+                } catch (JSONException e) {
+                    failure = e;
+                }
+            }
+            return failure;
+        }
+
+    }
+
+    private final class CharChunks extends Chunks {
+
+        private final char[] json;
+
+        CharChunks(char[] json) {
+            super(json.length);
+            this.json = json;
+        }
+
+        @Override
+        int at(int index) {
+            return json[index];
+        }
+
+        @Override
+        int skipString(int from) {
+            int i = CharScanner.indexOfQuoteOrBackslash(json, from, end);
+            while (i < end && json[i] == '\\') {
+                if (i + 2 > end) return -1;
+                i = CharScanner.indexOfQuoteOrBackslash(json, i + 2, end);
+            }
+            return i < end ? i + 1 : -1;
+        }
+
+        @Override
+        List<JSONEntity> parse(JSONParserContext context, int[] ranges, int count) {
+            return context.parseRanges(json, ranges, count, options);
+        }
+
+        @Override
+        void parseSequentially() {
+            JSONParser.parseJson(json, options).clear();
+        }
+
+    }
+
+    private final class ByteChunks extends Chunks {
+
+        private final ByteBuffer json;
+
+        ByteChunks(ByteBuffer json) {
+            super(json.limit());
+            this.json = json;
+        }
+
+        @Override
+        int at(int index) {
+            return json.get(index);
+        }
+
+        @Override
+        int skipString(int from) {
+            int i = from;
+            while ((i = CharScanner.indexOfQuoteBackslashOrNonAscii(json, i, end)) < end) {
+                byte current = json.get(i);
+                if (current == '"') return i + 1;
+                i += current == '\\' ? 2 : 1;
+            }
+            return -1;
+        }
+
+        @Override
+        List<JSONEntity> parse(JSONParserContext context, int[] ranges, int count) {
+            return context.parseRanges(json, ranges, count, options);
+        }
+
+        @Override
+        void parseSequentially() {
+            JSONParser.parseJson(json, options).clear();
+        }
+
+    }
+
+}
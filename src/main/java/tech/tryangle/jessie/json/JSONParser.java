@@ -16,278 +16,432 @@
 package tech.tryangle.jessie.json;
 
 import tech.tryangle.jessie.util.CharArrayBuilder;
+import tech.tryangle.jessie.util.CharScanner;
 
-import java.util.LinkedList;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 public class JSONParser {
 
+    static final char[] TRUE = { 't', 'r', 'u', 'e' };
+
+    static final char[] FALSE = { 'f', 'a', 'l', 's', 'e' };
+
+    static final char[] NULL = { 'n', 'u', 'l', 'l' };
+
+    /* Files up to this size are mapped at once, bigger ones are mapped window by window */
+    static final long MAPPED_WINDOW = 1L << 30;
+
     public static JSONEntity parseJson(char[] json) {
-        LinkedList<JSONEntity> stack = new LinkedList<>();
+        JSONTreeBuilder builder = new JSONTreeBuilder();
+        parseJson(json, builder);
+        return builder.getResult();
+    }
+
+    public static JSONEntity parseJson(char[] json, JSONParserOptions options) {
+        if (options == null) throw new NullPointerException("options must not be null");
+        JSONTreeBuilder builder = new JSONTreeBuilder(options, json);
+        parseJson(json, builder);
+        return builder.getResult();
+    }
+
+    public static JSONEntity parseJson(char[] json, int offset, int length) {
+        JSONTreeBuilder builder = new JSONTreeBuilder();
+        parseJson(json, offset, length, builder);
+        return builder.getResult();
+    }
+
+    /* Parses only the values reached by the paths, the result is a sparse entity holding nothing else */
+    public static JSONEntity parseJson(char[] json, JSONPathSet paths) {
+        if (paths == null) throw new NullPointerException("paths must not be null");
+        return JSONProjector.project(json, paths);
+    }
+
+    public static JSONEntity parseJson(byte[] json) {
+        return parseJson(ByteBuffer.wrap(json));
+    }
+
+    /* Parses the UTF-8 bytes between the position and the limit, the buffer position is left untouched */
+    public static JSONEntity parseJson(ByteBuffer json) {
+        return parseJson(json, JSONParserOptions.defaults());
+    }
+
+    /* Parses the UTF-8 bytes with the options, strings are always copied out of the bytes */
+    public static JSONEntity parseJson(ByteBuffer json, JSONParserOptions options) {
+        if (options == null) throw new NullPointerException("options must not be null");
+        JSONTreeBuilder builder = new JSONTreeBuilder(options, null);
+        parseJson(json, builder);
+        return builder.getResult();
+    }
+
+    /*
+     * Indexes the chars in a single pass and returns an entity whose objects and lists are only
+     * materialized when accessed, the chars must be kept (not cleared) while the entity is in use
+     */
+    public static JSONEntity parseLazy(char[] json) {
+        JSONTape tape = JSONTape.index(json);
+        if (tape.isEmpty()) return JSONEntity.newValue();
+        if (tape.isContainer(0)) return JSONEntity.newLazy(tape, 0);
+        JSONEntity value = JSONEntity.newValue();
+        value.setValue(tape.scalar(0));
+        return value;
+    }
+
+    /* Parses a UTF-8 file through a memory mapping, only the extracted values are copied to the heap */
+    public static JSONEntity parseFile(Path path) throws IOException {
+        JSONTreeBuilder builder = new JSONTreeBuilder();
+        parseFile(path, builder);
+        return builder.getResult();
+    }
+
+    /* Streams the events of a memory-mapped UTF-8 file to the handler, files of any size are supported */
+    public static void parseFile(Path path, JSONHandler handler) throws IOException {
+        if (path == null) throw new NullPointerException("path must not be null");
+        if (handler == null) throw new NullPointerException("handler must not be null");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= MAPPED_WINDOW) {
+                parseJson(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), handler);
+                return;
+            }
+            JSONAsyncParser parser = new JSONAsyncParser(handler);
+            for (long position = 0; position < size; position += MAPPED_WINDOW) {
+                parser.feed(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPED_WINDOW, size - position)));
+            }
+            parser.end();
+        }
+    }
+
+    /* Parses the chars emitting every event to the handler, no JSON entity is built */
+    public static void parseJson(char[] json, JSONHandler handler) {
+        parseJson(json, 0, json.length, handler);
+    }
+
+    /* Parses the chars of the given range emitting every event to the handler */
+    public static void parseJson(char[] json, int offset, int length, JSONHandler handler) {
+        if (handler == null) throw new NullPointerException("handler must not be null");
+        if (offset < 0 || length < 0 || offset + length > json.length) throw new IndexOutOfBoundsException("range out of the chars");
         CharArrayBuilder builder = new CharArrayBuilder();
-        JSONEntity node = null;
-        int curlyBrackets = 0;
-        int squareBrackets = 0;
-        int start = -1;
-        int i = 0;
-        while (i < json.length) {
+        try {
+            scan(json, offset, offset + length, handler, new JSONSyntax(), builder, new JSONNumberParser());
+        } finally {
+            builder.clear();
+        }
+    }
+
+    /* Scans the chars of the range emitting every event to the handler, the caller owns (and wipes) the buffers */
+    static void scan(char[] json, int offset, int end, JSONHandler handler, JSONSyntax syntax, CharArrayBuilder builder, JSONNumberParser numbers) {
+        int i = offset;
+        while (i < end) {
             char current = json[i];
             if (current == '"') {
-                if (start == -1) {
-                    start = i + 1;
+                boolean key = syntax.isKey();
+                if (key) {
+                    syntax.key();
                 } else {
-                    if (node == null) {
-                        node = JSONEntity.newValue();
-                        node.setValue(builder.asCharArray());
-                    } else {
-                        if (node.isValue()) {
-                            throw new JSONException("expected single value");
-                        } else if (node.isObject()) {
-                            stack.push(node);
-                            node = JSONEntity.newPair();
-                            node.setKey(builder.asString());
-                        } else if (node.isPair()) {
-                            if (node.getBit() != 1) throw new JSONException("no colon in key/value pair");
-                            node.setValue(builder.asCharArray());
-                            JSONEntity last = stack.pop();
-                            last.addPair(node.getKey(), node.getValue());
-                            node = last;
-                        } else if (node.isList()) {
-                            node.addToList(builder.asCharArray());
-                        }
-                    }
-                    start = -1;
+                    syntax.value();
+                }
+                int start = i + 1;
+                int j = CharScanner.indexOfQuoteOrBackslash(json, start, end);
+                if (j == end) throw new JSONException("unterminated string");
+                if (json[j] == '"') {
+                    emitString(handler, key, json, start, j - start);
+                } else {
+                    builder.add(json, start, j - start);
+                    j = readEscaped(json, j, end, builder);
+                    emitString(handler, key, builder.buffer(), 0, builder.size());
                     builder.clear();
                 }
-            } else if (start == -1) {
-                if (current == '{') {
-                    if (node != null) {
-                        if (node.isValue()) throw new JSONException("expected single value");
-                        stack.push(node);
-                    }
-                    node = JSONEntity.newObject();
-                    curlyBrackets++;
-                } else if (current == '[') {
-                    if (node != null) {
-                        if (node.isValue()) throw new JSONException("expected single value");
-                        stack.push(node);
-                    }
-                    node = JSONEntity.newList();
-                    squareBrackets++;
-                } else if (current == '}' || current == ']') {
-                    if (node == null) throw new JSONException("closing an un-opened object or list");
-                    if (node.size() > 1 && node.getBit() != node.size() - 1) throw new JSONException("unbalanced commas");
-                    if (current == '}') {
-                        if (!node.isObject()) throw new JSONException("closing an un-opened object");
-                        curlyBrackets--;
-                    } else {
-                        if (!node.isList()) throw new JSONException("closing an un-opened list");
-                        squareBrackets--;
-                    }
-                    if (!stack.isEmpty()) {
-                        int count = 1;
-                        while (count > 0) {
-                            JSONEntity last = stack.pop();
-                            if (node.isValue()) {
-                                throw new JSONException("expected single value");
-                            } else if (last.isObject()) {
-                                last.addPair(node.getKey(), node.getValue());
-                            } else if (last.isPair()) {
-                                if (last.getBit() != 1) throw new JSONException("no colon in key/value pair");
-                                last.setValue(node);
-                                count++;
-                            } else if (last.isList()) {
-                                last.addToList(node);
-                            }
-                            node = last;
-                            count--;
-                        }
-                    }
-                } else if (current == '-' || (current >= '0' && current <= '9')) {
-                    int dots = 0;
-                    int minuses = 0;
-                    int j = i;
-                    while (j < json.length) {
-                        char traverse = json[j];
-                        if (traverse == '.') {
-                            dots++;
-                            if (dots > 1) throw new JSONException("found decimal with multiple dots");
-                        } else if (traverse == '-') {
-                            minuses++;
-                            if (minuses > 1) throw new JSONException("found numeric with multiple minuses");
-                        } else if (traverse < '0' || traverse > '9') {
-                            break;
-                        }
-                        j++;
-                    }
-                    char[] raw = substring(json, i, j);
-                    Object parsed;
-                    if (dots > 0) {
-                        parsed = Double.parseDouble(String.valueOf(raw));
-                    } else {
-                        long value = Long.parseLong(String.valueOf(raw));
-                        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
-                            parsed = value;
-                        } else {
-                            parsed = Integer.parseInt(String.valueOf(raw));
-                        }
-                    }
-                    if (node == null) {
-                        node = JSONEntity.newValue();
-                        node.setValue(parsed);
-                    } else {
-                        if (node.isValue()) {
-                            throw new JSONException("expected single value");
-                        } else if (node.isPair()) {
-                            if (node.getBit() != 1) throw new JSONException("no colon in key/value pair");
-                            node.setValue(parsed);
-                            JSONEntity last = stack.pop();
-                            last.addPair(node.getKey(), node.getValue());
-                            node = last;
-                        } else if (node.isList()) {
-                            node.addToList(parsed);
-                        }
-                    }
-                    i = j - 1;
-                } else if (current == 't') {
-                    if (i + 3 >= json.length) throw new JSONException("dangling in-between char");
-                    if (json[i + 1] != 'r') throw new JSONException("dangling in-between char");
-                    if (json[i + 2] != 'u') throw new JSONException("dangling in-between char");
-                    if (json[i + 3] != 'e') throw new JSONException("dangling in-between char");
-                    i += 3;
-                    if (node == null) {
-                        node = JSONEntity.newValue();
-                        node.setValue(true);
-                    } else {
-                        if (node.isValue()) {
-                            throw new JSONException("expected single value");
-                        } else if (node.isPair()) {
-                            if (node.getBit() != 1) throw new JSONException("no colon in key/value pair");
-                            node.setValue(true);
-                            JSONEntity last = stack.pop();
-                            last.addPair(node.getKey(), node.getValue());
-                            node = last;
-                        } else if (node.isList()) {
-                            node.addToList(true);
-                        }
-                    }
-                } else if (current == 'f') {
-                    if (i + 4 >= json.length) throw new JSONException("dangling in-between char");
-                    if (json[i + 1] != 'a') throw new JSONException("dangling in-between char");
-                    if (json[i + 2] != 'l') throw new JSONException("dangling in-between char");
-                    if (json[i + 3] != 's') throw new JSONException("dangling in-between char");
-                    if (json[i + 4] != 'e') throw new JSONException("dangling in-between char");
+                i = j;
+            } else if (current == '{') {
+                syntax.open(true);
+                handler.startObject();
+            } else if (current == '[') {
+                syntax.open(false);
+                handler.startList();
+            } else if (current == '}') {
+                syntax.close(true);
+                handler.endObject();
+            } else if (current == ']') {
+                syntax.close(false);
+                handler.endList();
+            } else if (current == '-' || (current >= '0' && current <= '9')) {
+                syntax.value();
+                int j = JSONNumberParser.end(json, i, end);
+                numbers.parse(json, i, j);
+                numbers.emit(handler);
+                i = j - 1;
+            } else if (current == 't') {
+                syntax.value();
+                expectLiteral(json, i, end, TRUE);
+                i += TRUE.length - 1;
+                handler.booleanValue(true);
+            } else if (current == 'f') {
+                syntax.value();
+                expectLiteral(json, i, end, FALSE);
+                i += FALSE.length - 1;
+                handler.booleanValue(false);
+            } else if (current == 'n') {
+                syntax.value();
+                expectLiteral(json, i, end, NULL);
+                i += NULL.length - 1;
+                handler.nullValue();
+            } else if (current == ':') {
+                syntax.colon();
+            } else if (current == ',') {
+                syntax.comma();
+            } else if (current == '\n') {
+                i = CharScanner.skipWhitespace(json, i + 1, end) - 1;
+            } else if (current != ' ' && current != '\r' && current != '\t' && !Character.isISOControl(current)) {
+                throw new JSONException("dangling unknown char");
+            }
+            i++;
+        }
+        syntax.end();
+    }
+
+    public static void parseJson(byte[] json, JSONHandler handler) {
+        parseJson(ByteBuffer.wrap(json), handler);
+    }
+
+    /* Parses the UTF-8 bytes emitting every event to the handler, the buffer position is left untouched */
+    public static void parseJson(ByteBuffer json, JSONHandler handler) {
+        if (handler == null) throw new NullPointerException("handler must not be null");
+        CharArrayBuilder builder = new CharArrayBuilder();
+        CharArrayBuilder digits = new CharArrayBuilder();
+        try {
+            scan(json, handler, new JSONSyntax(), builder, digits, new JSONNumberParser());
+        } finally {
+            builder.clear();
+            digits.clear();
+        }
+    }
+
+    /* Scans the UTF-8 bytes emitting every event to the handler, the caller owns (and wipes) the buffers */
+    static void scan(ByteBuffer json, JSONHandler handler, JSONSyntax syntax, CharArrayBuilder builder, CharArrayBuilder digits, JSONNumberParser numbers) {
+        int limit = json.limit();
+        int i = json.position();
+        while (i < limit) {
+            byte current = json.get(i);
+            if (current == '"') {
+                boolean key = syntax.isKey();
+                if (key) {
+                    syntax.key();
+                } else {
+                    syntax.value();
+                }
+                i = readString(json, i + 1, limit, builder);
+                emitString(handler, key, builder.buffer(), 0, builder.size());
+                builder.clear();
+            } else if (current == '{') {
+                syntax.open(true);
+                handler.startObject();
+            } else if (current == '[') {
+                syntax.open(false);
+                handler.startList();
+            } else if (current == '}') {
+                syntax.close(true);
+                handler.endObject();
+            } else if (current == ']') {
+                syntax.close(false);
+                handler.endList();
+            } else if (current == '-' || (current >= '0' && current <= '9')) {
+                syntax.value();
+                int j = i;
+                while (j < limit && JSONNumberParser.isNumeric(json.get(j))) j++;
+                digits.addAscii(json, i, j - i);
+                numbers.parse(digits.buffer(), 0, digits.size());
+                digits.clear();
+                numbers.emit(handler);
+                i = j - 1;
+            } else if (current == 't') {
+                syntax.value();
+                expectLiteral(json, i, limit, TRUE);
+                i += TRUE.length - 1;
+                handler.booleanValue(true);
+            } else if (current == 'f') {
+                syntax.value();
+                expectLiteral(json, i, limit, FALSE);
+                i += FALSE.length - 1;
+                handler.booleanValue(false);
+            } else if (current == 'n') {
+                syntax.value();
+                expectLiteral(json, i, limit, NULL);
+                i += NULL.length - 1;
+                handler.nullValue();
+            } else if (current == ':') {
+                syntax.colon();
+            } else if (current == ',') {
+                syntax.comma();
+            } else if (current < 0 || (current != ' ' && current != '\n' && current != '\r' && current != '\t' && !Character.isISOControl(current))) {
+                throw new JSONException("dangling unknown char");
+            }
+            i++;
+        }
+        syntax.end();
+    }
+
+    static void emitString(JSONHandler handler, boolean key, char[] chars, int offset, int length) {
+        if (key) {
+            handler.key(chars, offset, length);
+        } else {
+            handler.stringValue(chars, offset, length);
+        }
+    }
+
+    // Scalars
+
+    /* The number in the range the way JSON entities store it */
+    static Object parseNumber(char[] chars, int start, int end) {
+        JSONNumberParser numbers = new JSONNumberParser();
+        numbers.parse(chars, start, end);
+        return numbers.value();
+    }
+
+    private static void expectLiteral(char[] json, int i, int end, char[] literal) {
+        if (i + literal.length - 1 >= end) throw new JSONException("dangling in-between char");
+        for (int j = 1; j < literal.length; j++) {
+            if (json[i + j] != literal[j]) throw new JSONException("dangling in-between char");
+        }
+    }
+
+    private static void expectLiteral(ByteBuffer json, int i, int limit, char[] literal) {
+        if (i + literal.length - 1 >= limit) throw new JSONException("dangling in-between char");
+        for (int j = 1; j < literal.length; j++) {
+            if (json.get(i + j) != literal[j]) throw new JSONException("dangling in-between char");
+        }
+    }
+
+    // Strings
+
+    /* Reads a string body from the given backslash on, returns the index of the closing quote */
+    static int readEscaped(char[] json, int i, int end, CharArrayBuilder builder) {
+        while (i < end) {
+            char current = json[i];
+            if (current == '"') return i;
+            if (current == '\\') {
+                char next = charAt(json, i + 1, end);
+                if (next == 'u') {
+                    builder.add(parseUnicode(charAt(json, i + 2, end), charAt(json, i + 3, end), charAt(json, i + 4, end), charAt(json, i + 5, end)));
                     i += 4;
-                    if (node == null) {
-                        node = JSONEntity.newValue();
-                        node.setValue(false);
-                    } else {
-                        if (node.isValue()) {
-                            throw new JSONException("expected single value");
-                        } else if (node.isPair()) {
-                            if (node.getBit() != 1) throw new JSONException("no colon in key/value pair");
-                            node.setValue(false);
-                            JSONEntity last = stack.pop();
-                            last.addPair(node.getKey(), node.getValue());
-                            node = last;
-                        } else if (node.isList()) {
-                            node.addToList(false);
-                        }
-                    }
-                } else if (current == 'n') {
-                    if (i + 3 >= json.length) throw new JSONException("dangling in-between char");
-                    if (json[i + 1] != 'u') throw new JSONException("dangling in-between char");
-                    if (json[i + 2] != 'l') throw new JSONException("dangling in-between char");
-                    if (json[i + 3] != 'l') throw new JSONException("dangling in-between char");
-                    i += 3;
-                    if (node == null) {
-                        node = JSONEntity.newValue();
-                        node.setValue(null);
-                    } else {
-                        if (node.isValue()) {
-                            throw new JSONException("expected single value");
-                        } else if (node.isPair()) {
-                            if (node.getBit() != 1) throw new JSONException("no colon in key/value pair");
-                            node.setValue(null);
-                            JSONEntity last = stack.pop();
-                            last.addPair(node.getKey(), node.getValue());
-                            node = last;
-                        } else if (node.isList()) {
-                            node.addToList(null);
-                        }
-                    }
-                } else if (current == ':') {
-                    if (node == null) throw new JSONException("dangling colon inside no object");
-                    if (!node.isPair()) throw new JSONException("dangling colon inside no object");
-                    node.setBit(1);
-                } else if (current == ',') {
-                    if (node == null) throw new JSONException("dangling comma inside no object or list");
-                    if (!node.isObject() && !node.isList()) throw new JSONException("dangling comma inside no object or list");
-                    node.setBit(node.getBit() + 1);
-                } else if (current != ' ' && current != '\n' && current != '\r' && current != '\t' && !Character.isISOControl(current)) {
-                    throw new JSONException("dangling unknown char");
+                } else {
+                    builder.add(unescape(next));
                 }
+                i += 2;
             } else {
-                char next = i + 1 < json.length ? json[i + 1] : '\0';
-                if (current == '\\') {
-                    if (next == '\"') {
-                        builder.add('"');
-                    } else if (next == '\\') {
-                        builder.add('\\');
-                    } else if (next == '/') {
-                        builder.add('/');
-                    } else if (next == 'b') {
-                        builder.add('\b');
-                    } else if (next == 'f') {
-                        builder.add('\f');
-                    } else if (next == 'n') {
-                        builder.add('\n');
-                    } else if (next == 'r') {
-                        builder.add('\r');
-                    } else if (next == 't') {
-                        builder.add('\t');
-                    } else if (next == 'u') {
-                        StringBuilder unicode = new StringBuilder();
-                        int begin = i + 2;
-                        for (int j = 0; j < 4; j++) {
-                            char cur = begin + j < json.length ? json[begin + j] : '\0';
-                            if (!Character.isLetterOrDigit(cur)) break;
-                            unicode.append(cur);
-                        }
-                        if (unicode.length() == 4) {
-                            builder.add(parseUnicode(unicode.toString()));
-                            i += 4;
-                        } else {
-                            throw new JSONException("invalid unicode 4 hex digits");
-                        }
-                    } else {
-                        throw new JSONException("dangling unknown escape char");
-                    }
-                    i++;
+                int run = CharScanner.indexOfQuoteOrBackslash(json, i, end);
+                builder.add(json, i, run - i);
+                i = run;
+            }
+        }
+        throw new JSONException("unterminated string");
+    }
+
+    /* Decodes a UTF-8 string body into the builder, returns the index of the closing quote */
+    private static int readString(ByteBuffer json, int i, int limit, CharArrayBuilder builder) {
+        while (i < limit) {
+            byte current = json.get(i);
+            if (current == '"') return i;
+            if (current == '\\') {
+                char next = charAt(json, i + 1, limit);
+                if (next == 'u') {
+                    builder.add(parseUnicode(charAt(json, i + 2, limit), charAt(json, i + 3, limit), charAt(json, i + 4, limit), charAt(json, i + 5, limit)));
+                    i += 4;
                 } else {
-                    builder.add(current);
+                    builder.add(unescape(next));
                 }
+                i++;
+            } else if (current >= 0) {
+                int run = CharScanner.indexOfQuoteBackslashOrNonAscii(json, i, limit);
+                builder.addAscii(json, i, run - i);
+                i = run - 1;
+            } else {
+                i = decodeUtf8(json, i, limit, builder);
             }
             i++;
         }
-        builder.clear();
-        if (curlyBrackets != 0) throw new JSONException("unbalanced curly brackets");
-        if (squareBrackets != 0) throw new JSONException("unbalanced square brackets");
-        if (node == null) node = JSONEntity.newValue();
-        return node;
+        throw new JSONException("unterminated string");
     }
 
-    private static char parseUnicode(String input) {
-        try {
-            return (char) Integer.parseInt(input, 16);
-        } catch (Exception e) {
-            throw new JSONException("invalid unicode 4 hex digits");
+    static char unescape(char next) {
+        if (next == '"') return '"';
+        if (next == '\\') return '\\';
+        if (next == '/') return '/';
+        if (next == 'b') return '\b';
+        if (next == 'f') return '\f';
+        if (next == 'n') return '\n';
+        if (next == 'r') return '\r';
+        if (next == 't') return '\t';
+        throw new JSONException("dangling unknown escape char");
+    }
+
+    static char parseUnicode(char first, char second, char third, char fourth) {
+        return (char) ((hexDigit(first) << 12) | (hexDigit(second) << 8) | (hexDigit(third) << 4) | hexDigit(fourth));
+    }
+
+    static int hexDigit(char digit) {
+        if (digit >= '0' && digit <= '9') return digit - '0';
+        if (digit >= 'a' && digit <= 'f') return digit - 'a' + 10;
+        if (digit >= 'A' && digit <= 'F') return digit - 'A' + 10;
+        throw new JSONException("invalid unicode 4 hex digits");
+    }
+
+    /* Decodes the multi-byte UTF-8 sequence starting at the given index, returns the index of its last byte */
+    private static int decodeUtf8(ByteBuffer json, int i, int limit, CharArrayBuilder builder) {
+        int lead = json.get(i) & 0xFF;
+        int length = utf8Length(lead);
+        if (i + length > limit) throw new JSONException("invalid utf-8 sequence");
+        int codePoint = utf8Bits(lead, length);
+        for (int j = 1; j < length; j++) {
+            codePoint = utf8Continue(codePoint, json.get(i + j));
         }
+        addCodePoint(builder, codePoint, length);
+        return i + length - 1;
+    }
+
+    /* The length of the UTF-8 sequence started by the given lead byte */
+    static int utf8Length(int lead) {
+        if (lead >= 0xC2 && lead <= 0xDF) return 2;
+        if (lead >= 0xE0 && lead <= 0xEF) return 3;
+        if (lead >= 0xF0 && lead <= 0xF4) return 4;
+        throw new JSONException("invalid utf-8 sequence");
+    }
+
+    /* The code point bits carried by the lead byte */
+    static int utf8Bits(int lead, int length) {
+        if (length == 2) return lead & 0x1F;
+        if (length == 3) return lead & 0x0F;
+        return lead & 0x07;
+    }
+
+    /* Appends the bits of a continuation byte to the code point */
+    static int utf8Continue(int codePoint, byte continuation) {
+        if ((continuation & 0xC0) != 0x80) throw new JSONException("invalid utf-8 sequence");
+        return (codePoint << 6) | (continuation & 0x3F);
+    }
+
+    /* Adds a decoded code point, rejecting overlong encodings and surrogates */
+    static void addCodePoint(CharArrayBuilder builder, int codePoint, int length) {
+        int min = length == 2 ? 0x80 : length == 3 ? 0x800 : 0x10000;
+        if (codePoint < min || codePoint > Character.MAX_CODE_POINT) throw new JSONException("invalid utf-8 sequence");
+        if (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE) throw new JSONException("invalid utf-8 sequence");
+        if (codePoint >= 0x10000) {
+            builder.add(Character.highSurrogate(codePoint));
+            builder.add(Character.lowSurrogate(codePoint));
+        } else {
+            builder.add((char) codePoint);
+        }
+    }
+
+    private static char charAt(char[] json, int i, int end) {
+        return i < end ? json[i] : '\0';
     }
 
-    private static char[] substring(char[] original, int from, int to) {
-        char[] array = new char[to - from];
-        System.arraycopy(original, from, array, 0, to - from);
-        return array;
+    private static char charAt(ByteBuffer json, int i, int limit) {
+        return i < limit ? (char) json.get(i) : '\0';
     }
 
 }
@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import tech.tryangle.jessie.util.CharArrayBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * A parser that keeps its buffers, syntax stack and tree builder warm across calls, so parsing many small
+ * documents allocates little more than the result. Buffers are wiped (their used part only) after every call
+ * and dropped when they grew past the retained size. A context is meant for one thread at a time, current()
+ * hands out one per thread, and a call made while the context is busy (e.g. from a handler) uses a fresh one.
+ */
+public final class JSONParserContext {
+
+    /* The largest buffer kept from one call to the next, in chars */
+    public static final int DEFAULT_RETAINED_SIZE = 1 << 16;
+
+    private static final int INITIAL_SIZE = 256;
+
+    private static final ThreadLocal<JSONParserContext> CURRENT = ThreadLocal.withInitial(JSONParserContext::new);
+
+    private final int retainedSize;
+
+    private final JSONSyntax syntax = new JSONSyntax();
+
+    private final JSONNumberParser numbers = new JSONNumberParser();
+
+    private final JSONTreeBuilder tree = new JSONTreeBuilder();
+
+    /* Holds the chars of the current string or key */
+    private CharArrayBuilder builder = new CharArrayBuilder(INITIAL_SIZE);
+
+    /* Holds the chars of the current number */
+    private CharArrayBuilder digits = new CharArrayBuilder(32);
+
+    private boolean busy = false;
+
+    public JSONParserContext() {
+        this(DEFAULT_RETAINED_SIZE);
+    }
+
+    public JSONParserContext(int retainedSize) {
+        if (retainedSize < INITIAL_SIZE) throw new IllegalArgumentException("retained size must be at least " + INITIAL_SIZE);
+        this.retainedSize = retainedSize;
+    }
+
+    /* The context of the current thread */
+    public static JSONParserContext current() {
+        return CURRENT.get();
+    }
+
+    public JSONEntity parseJson(char[] json) {
+        return parseJson(json, JSONParserOptions.defaults());
+    }
+
+    public JSONEntity parseJson(char[] json, JSONParserOptions options) {
+        return parseJson(json, 0, json.length, options);
+    }
+
+    /* Parses the chars of the given range, zero-copy strings are slices of the whole chars */
+    public JSONEntity parseJson(char[] json, int offset, int length, JSONParserOptions options) {
+        if (options == null) throw new NullPointerException("options must not be null");
+        if (busy) return new JSONParserContext(retainedSize).parseJson(json, offset, length, options);
+        tree.reset(options, json);
+        try {
+            parseJson(json, offset, length, tree);
+            return tree.getResult();
+        } finally {
+            tree.reset(JSONParserOptions.defaults(), null);
+        }
+    }
+
+    /* Parses the ranges (start and end pairs) to separate trees sharing their shapes, e.g. the elements of a list */
+    List<JSONEntity> parseRanges(char[] json, int[] ranges, int count, JSONParserOptions options) {
+        if (busy) return new JSONParserContext(retainedSize).parseRanges(json, ranges, count, options);
+        List<JSONEntity> entities = new ArrayList<>(count >> 1);
+        tree.reset(options, json);
+        try {
+            for (int i = 0; i < count; i += 2) {
+                tree.next();
+                parseJson(json, ranges[i], ranges[i + 1] - ranges[i], tree);
+                entities.add(tree.getResult());
+            }
+            return entities;
+        } catch (RuntimeException e) {
+            entities.forEach(JSONEntity::clear);
+            throw e;
+        } finally {
+            tree.reset(JSONParserOptions.defaults(), null);
+        }
+    }
+
+    List<JSONEntity> parseRanges(ByteBuffer json, int[] ranges, int count, JSONParserOptions options) {
+        if (busy) return new JSONParserContext(retainedSize).parseRanges(json, ranges, count, options);
+        List<JSONEntity> entities = new ArrayList<>(count >> 1);
+        tree.reset(options, null);
+        try {
+            for (int i = 0; i < count; i += 2) {
+                tree.next();
+                parseJson(json.slice(ranges[i], ranges[i + 1] - ranges[i]), tree);
+                entities.add(tree.getResult());
+            }
+            return entities;
+        } catch (RuntimeException e) {
+            entities.forEach(JSONEntity::clear);
+            throw e;
+        } finally {
+            tree.reset(JSONParserOptions.defaults(), null);
+        }
+    }
+
+    public JSONEntity parseJson(byte[] json) {
+        return parseJson(ByteBuffer.wrap(json));
+    }
+
+    /* Parses the UTF-8 bytes between the position and the limit, the buffer position is left untouched */
+    public JSONEntity parseJson(ByteBuffer json) {
+        return parseJson(json, JSONParserOptions.defaults());
+    }
+
+    public JSONEntity parseJson(ByteBuffer json, JSONParserOptions options) {
+        if (options == null) throw new NullPointerException("options must not be null");
+        if (busy) return new JSONParserContext(retainedSize).parseJson(json, options);
+        tree.reset(options, null);
+        try {
+            parseJson(json, tree);
+            return tree.getResult();
+        } finally {
+            tree.reset(JSONParserOptions.defaults(), null);
+        }
+    }
+
+    public void parseJson(char[] json, JSONHandler handler) {
+        parseJson(json, 0, json.length, handler);
+    }
+
+    public void parseJson(char[] json, int offset, int length, JSONHandler handler) {
+        if (handler == null) throw new NullPointerException("handler must not be null");
+        if (offset < 0 || length < 0 || offset + length > json.length) throw new IndexOutOfBoundsException("range out of the chars");
+        if (busy) {
+            new JSONParserContext(retainedSize).parseJson(json, offset, length, handler);
+            return;
+        }
+        busy = true;
+        try {
+            JSONParser.scan(json, offset, offset + length, handler, syntax, builder, numbers);
+        } finally {
+            release();
+        }
+    }
+
+    public void parseJson(byte[] json, JSONHandler handler) {
+        parseJson(ByteBuffer.wrap(json), handler);
+    }
+
+    public void parseJson(ByteBuffer json, JSONHandler handler) {
+        if (handler == null) throw new NullPointerException("handler must not be null");
+        if (busy) {
+            new JSONParserContext(retainedSize).parseJson(json, handler);
+            return;
+        }
+        busy = true;
+        try {
+            JSONParser.scan(json, handler, syntax, builder, digits, numbers);
+        } finally {
+            release();
+        }
+    }
+
+    /* Wipes the used part of the buffers and drops those that grew too big */
+    private void release() {
+        builder.clear();
+        digits.clear();
+        if (builder.capacity() > retainedSize) builder = new CharArrayBuilder(INITIAL_SIZE);
+        if (digits.capacity() > retainedSize) digits = new CharArrayBuilder(32);
+        syntax.reset();
+        busy = false;
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import tech.tryangle.jessie.util.SecureArena;
+
+import java.util.Set;
+
+/* The options used to build JSON entities, immutable (every with-method returns a copy) */
+public final class JSONParserOptions {
+
+    private static final JSONParserOptions DEFAULTS = new JSONParserOptions(false, null, null, null);
+
+    /* Whether strings without escapes are kept as slices of the parsed chars instead of copies */
+    private final boolean zeroCopyStrings;
+
+    /* The table keys are interned with, none by default */
+    private final JSONSymbolTable symbolTable;
+
+    /* The arena string values are moved off the heap to, none by default */
+    private final SecureArena arena;
+
+    /* The keys whose string values go off the heap, null for every string value */
+    private final Set<String> offHeapKeys;
+
+    private JSONParserOptions(boolean zeroCopyStrings, JSONSymbolTable symbolTable, SecureArena arena, Set<String> offHeapKeys) {
+        this.zeroCopyStrings = zeroCopyStrings;
+        this.symbolTable = symbolTable;
+        this.arena = arena;
+        this.offHeapKeys = offHeapKeys;
+    }
+
+    public static JSONParserOptions defaults() {
+        return DEFAULTS;
+    }
+
+    public boolean isZeroCopyStrings() {
+        return zeroCopyStrings;
+    }
+
+    /*
+     * Strings without escapes are stored as CharSlice values pointing into the parsed chars (they are copied
+     * only when read as char[] or String), so the chars must outlive the entity and clearing them clears the slices
+     */
+    public JSONParserOptions withZeroCopyStrings(boolean zeroCopyStrings) {
+        return new JSONParserOptions(zeroCopyStrings, symbolTable, arena, offHeapKeys);
+    }
+
+    public JSONSymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    /* Object keys are looked up in the table (null for none), it can be shared by any number of parses */
+    public JSONParserOptions withSymbolTable(JSONSymbolTable symbolTable) {
+        return new JSONParserOptions(zeroCopyStrings, symbolTable, arena, offHeapKeys);
+    }
+
+    public SecureArena getArena() {
+        return arena;
+    }
+
+    public Set<String> getOffHeapKeys() {
+        return offHeapKeys;
+    }
+
+    /*
+     * String values are stored as SecureChars in the arena instead of char arrays on the heap, clearing the
+     * entity or closing the arena zeroes them (null for no arena), this takes precedence over zero-copy strings
+     */
+    public JSONParserOptions withOffHeapStrings(SecureArena arena) {
+        return new JSONParserOptions(zeroCopyStrings, symbolTable, arena, null);
+    }
+
+    /* Like withOffHeapStrings(arena) for the string values of the keys only */
+    public JSONParserOptions withOffHeapStrings(SecureArena arena, Set<String> keys) {
+        if (keys == null) throw new NullPointerException("keys must not be null");
+        return new JSONParserOptions(zeroCopyStrings, symbolTable, arena, Set.copyOf(keys));
+    }
+
+}
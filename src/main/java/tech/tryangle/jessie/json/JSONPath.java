@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * A path compiled once and reused across lookups, e.g. "a.b[3].c" where keys are separated by dots,
+ * list elements are addressed by [index] and a backslash escapes the next char (as in "a\.b")
+ */
+public final class JSONPath {
+
+    private final String pattern;
+
+    /* The key of every segment, null for list indices */
+    private final String[] keys;
+
+    /* The list index of every segment, -1 for keys */
+    private final int[] indices;
+
+    private JSONPath(String pattern, String[] keys, int[] indices) {
+        this.pattern = pattern;
+        this.keys = keys;
+        this.indices = indices;
+    }
+
+    public static JSONPath compile(String pattern) {
+        if (pattern == null) throw new NullPointerException("pattern must not be null");
+        List<String> keys = new ArrayList<>();
+        List<Integer> indices = new ArrayList<>();
+        int i = 0;
+        if (pattern.isEmpty() || pattern.charAt(0) != '[') {
+            i = readKey(pattern, 0, keys, indices);
+        }
+        while (i < pattern.length()) {
+            char current = pattern.charAt(i);
+            if (current == '[') {
+                i = readIndex(pattern, i, keys, indices);
+            } else if (current == '.') {
+                i = readKey(pattern, i + 1, keys, indices);
+            } else {
+                throw new IllegalArgumentException(String.format("expected '.' or '[' at %s: %s", i, pattern));
+            }
+        }
+        int[] array = new int[indices.size()];
+        for (int j = 0; j < array.length; j++) array[j] = indices.get(j);
+        return new JSONPath(pattern, keys.toArray(new String[0]), array);
+    }
+
+    /* The number of segments */
+    public int size() {
+        return keys.length;
+    }
+
+    public boolean isIndex(int segment) {
+        return keys[segment] == null;
+    }
+
+    public String getKey(int segment) {
+        return keys[segment];
+    }
+
+    public int getIndex(int segment) {
+        return indices[segment];
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof JSONPath path && pattern.equals(path.pattern);
+    }
+
+    @Override
+    public int hashCode() {
+        return pattern.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+    private static int readKey(String pattern, int i, List<String> keys, List<Integer> indices) {
+        StringBuilder key = new StringBuilder();
+        while (i < pattern.length()) {
+            char current = pattern.charAt(i);
+            if (current == '.' || current == '[') break;
+            if (current == '\\') {
+                if (++i == pattern.length()) throw new IllegalArgumentException(String.format("dangling escape at the end: %s", pattern));
+                current = pattern.charAt(i);
+            }
+            key.append(current);
+            i++;
+        }
+        keys.add(key.toString());
+        indices.add(-1);
+        return i;
+    }
+
+    private static int readIndex(String pattern, int i, List<String> keys, List<Integer> indices) {
+        int close = pattern.indexOf(']', i);
+        if (close == -1 || close == i + 1) throw new IllegalArgumentException(String.format("expected index at %s: %s", i, pattern));
+        int index = 0;
+        for (int j = i + 1; j < close; j++) {
+            char digit = pattern.charAt(j);
+            if (digit < '0' || digit > '9') throw new IllegalArgumentException(String.format("expected index at %s: %s", i, pattern));
+            index = Math.addExact(Math.multiplyExact(index, 10), digit - '0');
+        }
+        keys.add(null);
+        indices.add(index);
+        return close + 1;
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/* A set of paths kept as a trie, used to parse only the values a consumer needs */
+public final class JSONPathSet {
+
+    private final Node root;
+
+    private final List<JSONPath> paths;
+
+    private JSONPathSet(Node root, List<JSONPath> paths) {
+        this.root = root;
+        this.paths = paths;
+    }
+
+    public static JSONPathSet of(String... patterns) {
+        if (patterns == null) throw new NullPointerException("patterns must not be null");
+        JSONPath[] paths = new JSONPath[patterns.length];
+        for (int i = 0; i < patterns.length; i++) paths[i] = JSONPath.compile(patterns[i]);
+        return of(paths);
+    }
+
+    public static JSONPathSet of(JSONPath... paths) {
+        if (paths == null) throw new NullPointerException("paths must not be null");
+        Builder root = new Builder();
+        for (JSONPath path : paths) {
+            if (path == null) throw new NullPointerException("path must not be null");
+            Builder node = root;
+            for (int i = 0; i < path.size(); i++) {
+                node = path.isIndex(i) ? node.indices.computeIfAbsent(path.getIndex(i), k -> new Builder()) : node.keys.computeIfAbsent(path.getKey(i), k -> new Builder());
+            }
+            node.terminal = true;
+        }
+        return new JSONPathSet(root.build(), List.of(paths));
+    }
+
+    public List<JSONPath> getPaths() {
+        return paths;
+    }
+
+    Node root() {
+        return root;
+    }
+
+    /* A trie node, a terminal node keeps its whole value */
+    static final class Node {
+
+        final boolean terminal;
+
+        final String[] keys;
+
+        final Node[] keyNodes;
+
+        /* Sorted list indices */
+        final int[] indices;
+
+        final Node[] indexNodes;
+
+        private Node(boolean terminal, String[] keys, Node[] keyNodes, int[] indices, Node[] indexNodes) {
+            this.terminal = terminal;
+            this.keys = keys;
+            this.keyNodes = keyNodes;
+            this.indices = indices;
+            this.indexNodes = indexNodes;
+        }
+
+        /* The child for the key held in the given chars, compared in place */
+        Node child(char[] chars, int offset, int length) {
+            for (int i = 0; i < keys.length; i++) {
+                String key = keys[i];
+                if (key.length() != length) continue;
+                int j = 0;
+                while (j < length && key.charAt(j) == chars[offset + j]) j++;
+                if (j == length) return keyNodes[i];
+            }
+            return null;
+        }
+
+        String key(Node child) {
+            for (int i = 0; i < keyNodes.length; i++) {
+                if (keyNodes[i] == child) return keys[i];
+            }
+            return null;
+        }
+
+        Node child(int index) {
+            int found = Arrays.binarySearch(indices, index);
+            return found < 0 ? null : indexNodes[found];
+        }
+
+    }
+
+    private static final class Builder {
+
+        private boolean terminal = false;
+
+        private final Map<String, Builder> keys = new LinkedHashMap<>();
+
+        private final Map<Integer, Builder> indices = new TreeMap<>();
+
+        private Node build() {
+            if (terminal) return new Node(true, new String[0], new Node[0], new int[0], new Node[0]);
+            List<Node> keyNodes = new ArrayList<>();
+            keys.values().forEach(builder -> keyNodes.add(builder.build()));
+            List<Node> indexNodes = new ArrayList<>();
+            indices.values().forEach(builder -> indexNodes.add(builder.build()));
+            int[] sorted = indices.keySet().stream().mapToInt(Integer::intValue).toArray();
+            return new Node(false, keys.keySet().toArray(new String[0]), keyNodes.toArray(new Node[0]), sorted, indexNodes.toArray(new Node[0]));
+        }
+
+    }
+
+}
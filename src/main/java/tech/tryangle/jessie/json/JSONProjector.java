@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import tech.tryangle.jessie.util.CharArrayBuilder;
+import tech.tryangle.jessie.util.CharScanner;
+
+/*
+ * Parses only the values reached by a path set, every other subtree is skipped by counting
+ * brackets and quotes only (so it is not validated beyond its balance)
+ */
+final class JSONProjector {
+
+    /* Returned when nothing inside a value was requested */
+    private static final Object NOTHING = new Object();
+
+    private final char[] json;
+
+    private final int end;
+
+    private final CharArrayBuilder builder = new CharArrayBuilder();
+
+    private int position;
+
+    private JSONProjector(char[] json) {
+        this.json = json;
+        this.end = json.length;
+    }
+
+    static JSONEntity project(char[] json, JSONPathSet paths) {
+        JSONProjector projector = new JSONProjector(json);
+        try {
+            projector.skipWhitespace();
+            if (projector.position == projector.end) return JSONEntity.newValue();
+            char first = json[projector.position];
+            Object value = projector.value(paths.root());
+            projector.skipWhitespace();
+            if (projector.position != projector.end) throw new JSONException("expected single value");
+            if (value instanceof JSONEntity entity) return entity;
+            if (first == '{') return JSONEntity.newObject();
+            if (first == '[') return JSONEntity.newList();
+            return JSONEntity.newValue();
+        } finally {
+            projector.builder.clear();
+        }
+    }
+
+    private Object value(JSONPathSet.Node node) {
+        if (node.terminal) {
+            int start = position;
+            skipValue();
+            JSONEntity parsed = JSONParser.parseJson(json, start, position - start);
+            return parsed.isValue() ? parsed.getValue() : parsed;
+        }
+        char current = json[position];
+        if (current == '{' && node.keys.length > 0) return object(node);
+        if (current == '[' && node.indices.length > 0) return list(node);
+        skipValue();
+        return NOTHING;
+    }
+
+    private Object object(JSONPathSet.Node node) {
+        JSONEntity object = null;
+        position++;
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return NOTHING;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') throw new JSONException("expected key inside object");
+            JSONPathSet.Node child = key(node);
+            skipWhitespace();
+            if (peek() != ':') throw new JSONException("no colon in key/value pair");
+            position++;
+            skipWhitespace();
+            if (position == end) throw new JSONException("no value in key/value pair");
+            if (child == null) {
+                skipValue();
+            } else {
+                Object value = value(child);
+                if (value != NOTHING) {
+                    if (object == null) object = JSONEntity.newObject();
+                    object.addPair(node.key(child), value);
+                }
+            }
+            skipWhitespace();
+            char next = peek();
+            position++;
+            if (next == '}') return object == null ? NOTHING : object;
+            if (next != ',') throw new JSONException("unbalanced curly brackets");
+        }
+    }
+
+    private Object list(JSONPathSet.Node node) {
+        JSONEntity list = null;
+        int last = node.indices[node.indices.length - 1];
+        int index = 0;
+        position++;
+        skipWhitespace();
+        if (peek() == ']') {
+            position++;
+            return NOTHING;
+        }
+        while (true) {
+            skipWhitespace();
+            if (position == end) throw new JSONException("unbalanced square brackets");
+            JSONPathSet.Node child = index <= last ? node.child(index) : null;
+            if (child == null) {
+                skipValue();
+            } else {
+                Object value = value(child);
+                if (value != NOTHING) {
+                    if (list == null) list = JSONEntity.newList();
+                    while (list.size() < index) list.addToList(null);
+                    list.addToList(value);
+                }
+            }
+            index++;
+            skipWhitespace();
+            char next = peek();
+            position++;
+            if (next == ']') return list == null ? NOTHING : list;
+            if (next != ',') throw new JSONException("unbalanced square brackets");
+        }
+    }
+
+    /* Reads the key at the position and returns its trie node, null when it is not requested */
+    private JSONPathSet.Node key(JSONPathSet.Node node) {
+        int start = position + 1;
+        int close = CharScanner.indexOfQuoteOrBackslash(json, start, end);
+        if (close == end) throw new JSONException("unterminated string");
+        if (json[close] == '"') {
+            position = close + 1;
+            return node.child(json, start, close - start);
+        }
+        builder.add(json, start, close - start);
+        close = JSONParser.readEscaped(json, close, end, builder);
+        position = close + 1;
+        JSONPathSet.Node child = node.child(builder.buffer(), 0, builder.size());
+        builder.clear();
+        return child;
+    }
+
+    /* Moves past the value at the position counting brackets and quotes only */
+    private void skipValue() {
+        int depth = 0;
+        while (position < end) {
+            char current = json[position];
+            if (current == '"') {
+                skipString();
+                if (depth == 0) return;
+                continue;
+            }
+            if (current == '{' || current == '[') {
+                depth++;
+            } else if (current == '}' || current == ']') {
+                if (depth == 0) return;
+                if (--depth == 0) {
+                    position++;
+                    return;
+                }
+            } else if (depth == 0 && (current == ',' || current == ' ' || current == '\n' || current == '\r' || current == '\t')) {
+                return;
+            }
+            position++;
+        }
+        if (depth > 0) throw new JSONException("unbalanced brackets");
+    }
+
+    private void skipString() {
+        int i = position + 1;
+        while (true) {
+            i = CharScanner.indexOfQuoteOrBackslash(json, i, end);
+            if (i >= end) throw new JSONException("unterminated string");
+            if (json[i] == '"') break;
+            i += 2;
+        }
+        position = i + 1;
+    }
+
+    private void skipWhitespace() {
+        while (position < end) {
+            char current = json[position];
+            if (current != ' ' && current != '\n' && current != '\r' && current != '\t' && !Character.isISOControl(current)) return;
+            position++;
+        }
+    }
+
+    private char peek() {
+        return position < end ? json[position] : '\0';
+    }
+
+}
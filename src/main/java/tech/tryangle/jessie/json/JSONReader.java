@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import tech.tryangle.jessie.util.CharArrayBuilder;
+import tech.tryangle.jessie.util.CharScanner;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+ * This object reads a JSON document token by token through a fixed-size buffer,
+ * so the memory used depends on the nesting depth and the longest string only
+ */
+public class JSONReader implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+
+    private final char[] buffer;
+
+    private int position = 0;
+
+    private int limit = 0;
+
+    private final JSONSyntax syntax = new JSONSyntax();
+
+    /* Holds the chars of the current string or key */
+    private final CharArrayBuilder builder = new CharArrayBuilder();
+
+    /* Holds the chars of the current number */
+    private final CharArrayBuilder digits = new CharArrayBuilder();
+
+    private final JSONNumberParser numbers = new JSONNumberParser();
+
+    private JSONToken token;
+
+    private String key;
+
+    private Object number;
+
+    public JSONReader(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    public JSONReader(Reader reader, int bufferSize) {
+        if (reader == null) throw new NullPointerException("reader must not be null");
+        if (bufferSize < 1) throw new IllegalArgumentException("buffer size must be positive");
+        this.reader = reader;
+        this.buffer = new char[bufferSize];
+    }
+
+    public JSONReader(InputStream input) {
+        this(input, DEFAULT_BUFFER_SIZE);
+    }
+
+    public JSONReader(InputStream input, int bufferSize) {
+        this(new InputStreamReader(input, StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT)), bufferSize);
+    }
+
+    /* Moves to the next token, returns null once the document is over */
+    public JSONToken nextToken() {
+        if (token == JSONToken.STRING || token == JSONToken.KEY) builder.clear();
+        number = null;
+        while (true) {
+            int next = read();
+            if (next == -1) {
+                syntax.end();
+                return token = null;
+            }
+            char current = (char) next;
+            if (current == '{') {
+                syntax.open(true);
+                return token = JSONToken.START_OBJECT;
+            } else if (current == '[') {
+                syntax.open(false);
+                return token = JSONToken.START_LIST;
+            } else if (current == '}') {
+                syntax.close(true);
+                return token = JSONToken.END_OBJECT;
+            } else if (current == ']') {
+                syntax.close(false);
+                return token = JSONToken.END_LIST;
+            } else if (current == '"') {
+                if (syntax.isKey()) {
+                    syntax.key();
+                    readString();
+                    key = builder.asString();
+                    return token = JSONToken.KEY;
+                }
+                syntax.value();
+                readString();
+                return token = JSONToken.STRING;
+            } else if (current == '-' || (current >= '0' && current <= '9')) {
+                syntax.value();
+                readNumber(current);
+                return token = JSONToken.NUMBER;
+            } else if (current == 't') {
+                syntax.value();
+                readLiteral(JSONParser.TRUE);
+                return token = JSONToken.TRUE;
+            } else if (current == 'f') {
+                syntax.value();
+                readLiteral(JSONParser.FALSE);
+                return token = JSONToken.FALSE;
+            } else if (current == 'n') {
+                syntax.value();
+                readLiteral(JSONParser.NULL);
+                return token = JSONToken.NULL;
+            } else if (current == ':') {
+                syntax.colon();
+            } else if (current == ',') {
+                syntax.comma();
+            } else if (current != ' ' && current != '\n' && current != '\r' && current != '\t' && !Character.isISOControl(current)) {
+                throw new JSONException("dangling unknown char");
+            }
+        }
+    }
+
+    public JSONToken currentToken() {
+        return token;
+    }
+
+    /* The number of containers currently open */
+    public int getDepth() {
+        return syntax.depth();
+    }
+
+    /* The key of the last key token read */
+    public String getKey() {
+        return key;
+    }
+
+    /* A copy of the current string (the caller is responsible for clearing it) */
+    public char[] getChars() {
+        if (token != JSONToken.STRING && token != JSONToken.KEY) throw new JSONException("current token is not a string");
+        return builder.asCharArray();
+    }
+
+    public long getLong() {
+        return getNumber().longValue();
+    }
+
+    public int getInt() {
+        return getNumber().intValue();
+    }
+
+    public double getDouble() {
+        return getNumber().doubleValue();
+    }
+
+    public Number getNumber() {
+        if (token != JSONToken.NUMBER) throw new JSONException("current token is not a number");
+        return (Number) number;
+    }
+
+    public boolean getBoolean() {
+        if (token == JSONToken.TRUE) return true;
+        if (token == JSONToken.FALSE) return false;
+        throw new JSONException("current token is not a boolean");
+    }
+
+    /* When positioned on the start of an object or list, moves to its matching end */
+    public void skipChildren() {
+        if (token != JSONToken.START_OBJECT && token != JSONToken.START_LIST) return;
+        int depth = syntax.depth() - 1;
+        while (syntax.depth() > depth) {
+            if (nextToken() == null) break;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        Arrays.fill(buffer, '\0');
+        builder.clear();
+        digits.clear();
+        reader.close();
+    }
+
+    private void readString() {
+        while (true) {
+            int run = CharScanner.indexOfQuoteOrBackslash(buffer, position, limit);
+            builder.add(buffer, position, run - position);
+            position = run;
+            int next = read();
+            if (next == -1) throw new JSONException("unterminated string");
+            char current = (char) next;
+            if (current == '"') return;
+            if (current == '\\') {
+                int escaped = read();
+                if (escaped == 'u') {
+                    builder.add(JSONParser.parseUnicode(readChar(), readChar(), readChar(), readChar()));
+                } else {
+                    builder.add(JSONParser.unescape(escaped == -1 ? '\0' : (char) escaped));
+                }
+            } else {
+                builder.add(current);
+            }
+        }
+    }
+
+    private void readNumber(char first) {
+        digits.add(first);
+        while (JSONNumberParser.isNumeric(peek())) {
+            digits.add(buffer[position++]);
+        }
+        try {
+            numbers.parse(digits.buffer(), 0, digits.size());
+            number = numbers.value();
+        } finally {
+            digits.clear();
+        }
+    }
+
+    private void readLiteral(char[] literal) {
+        for (int i = 1; i < literal.length; i++) {
+            if (read() != literal[i]) throw new JSONException("dangling in-between char");
+        }
+    }
+
+    private char readChar() {
+        int next = read();
+        return next == -1 ? '\0' : (char) next;
+    }
+
+    private int read() {
+        if (position == limit && !fill()) return -1;
+        return buffer[position++];
+    }
+
+    private int peek() {
+        if (position == limit && !fill()) return -1;
+        return buffer[position];
+    }
+
+    private boolean fill() {
+        try {
+            int read;
+            do {
+                read = reader.read(buffer, 0, buffer.length);
+            } while (read == 0);
+            position = 0;
+            limit = Math.max(read, 0);
+            return read > 0;
+        } catch (CharacterCodingException e) {
+            throw new JSONException("invalid utf-8 sequence");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * The ordered keys shared by every object built with them, each object keeps only its values by key index.
+ * Shapes are immutable, adding a key moves to another shape:
+ * ➔ with(key) follows the transition cache, so objects parsed alike end up sharing one shape
+ * ➔ extend(key) always builds a new shape, it's what later edits use so the cache is only touched by its parser
+ */
+final class JSONShape {
+
+    /* Past this many keys objects go back to a regular map */
+    static final int MAX_KEYS = 16;
+
+    private static final String[] NO_KEYS = new String[0];
+
+    private final String[] keys;
+
+    /* The shapes reached by adding one more key, filled as they are first needed */
+    private Map<String, JSONShape> transitions = null;
+
+    private JSONShape(String[] keys) {
+        this.keys = keys;
+    }
+
+    /* A new root shape (no keys) with its own transition cache */
+    static JSONShape root() {
+        return new JSONShape(NO_KEYS);
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    String key(int index) {
+        return keys[index];
+    }
+
+    int indexOf(Object key) {
+        int hash = key.hashCode();
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == key || (keys[i].hashCode() == hash && keys[i].equals(key))) return i;
+        }
+        return -1;
+    }
+
+    /* The shape already reached by adding the key, null when no object took that transition yet */
+    JSONShape cached(String key) {
+        return transitions == null ? null : transitions.get(key);
+    }
+
+    /* The shape with the key added, shared with every other object that took the same transition */
+    JSONShape with(String key) {
+        JSONShape next = transitions == null ? null : transitions.get(key);
+        if (next == null) {
+            next = extend(key);
+            if (transitions == null) transitions = new HashMap<>(4);
+            transitions.put(key, next);
+        }
+        return next;
+    }
+
+    /* The shape with the key added, never shared */
+    JSONShape extend(String key) {
+        String[] extended = Arrays.copyOf(keys, keys.length + 1);
+        extended[keys.length] = key;
+        return new JSONShape(extended);
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import java.util.Set;
+
+/*
+ * A bounded table of canonical key strings meant to be shared across parses (and threads), so equal keys are
+ * one String and a known key costs no allocation. Slots are picked by hash and a colliding key takes the slot
+ * over, so the table never grows past its capacity. Sensitive keys are never kept, they're always new strings.
+ */
+public final class JSONSymbolTable {
+
+    private final String[] symbols;
+
+    private final int mask;
+
+    private final Set<String> sensitiveKeys;
+
+    private JSONSymbolTable(int capacity, Set<String> sensitiveKeys) {
+        this.symbols = new String[capacity];
+        this.mask = capacity - 1;
+        this.sensitiveKeys = sensitiveKeys;
+    }
+
+    /* A table with room for the capacity (rounded up to a power of two) */
+    public static JSONSymbolTable create(int capacity) {
+        return create(capacity, Set.of());
+    }
+
+    /* A table with room for the capacity (rounded up to a power of two) that never keeps the sensitive keys */
+    public static JSONSymbolTable create(int capacity, Set<String> sensitiveKeys) {
+        if (capacity < 1 || capacity > 1 << 30) throw new IllegalArgumentException("capacity out of range");
+        if (sensitiveKeys == null) throw new NullPointerException("sensitive keys must not be null");
+        int size = 1;
+        while (size < capacity) size <<= 1;
+        return new JSONSymbolTable(size, Set.copyOf(sensitiveKeys));
+    }
+
+    public int capacity() {
+        return symbols.length;
+    }
+
+    /* The canonical string for the chars, hashed and compared in place */
+    public String intern(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) hash = 31 * hash + chars[i];
+        int slot = (hash ^ hash >>> 16) & mask;
+        /* strings are immutable, so a slot read racing a write sees either string whole */
+        String symbol = symbols[slot];
+        if (symbol != null && matches(symbol, hash, chars, offset, length)) return symbol;
+        String key = new String(chars, offset, length);
+        if (!sensitiveKeys.contains(key)) symbols[slot] = key;
+        return key;
+    }
+
+    private static boolean matches(String symbol, int hash, char[] chars, int offset, int length) {
+        if (symbol.length() != length || symbol.hashCode() != hash) return false;
+        for (int i = 0; i < length; i++) {
+            if (symbol.charAt(i) != chars[offset + i]) return false;
+        }
+        return true;
+    }
+
+}
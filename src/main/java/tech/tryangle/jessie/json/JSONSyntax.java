@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import java.util.Arrays;
+
+/* Tracks the nesting and what may come next, so the scanners can validate the tokens they find */
+final class JSONSyntax {
+
+    /* The container types kept on the stack */
+    private static final byte OBJECT = 0, LIST = 1;
+
+    /* The expectations of the current level */
+    private static final int START = 0, DONE = 1, KEY_OR_END = 2, KEY = 3, COLON = 4, VALUE = 5, VALUE_OR_END = 6, COMMA_OR_END = 7;
+
+    private byte[] stack = new byte[16];
+
+    private int depth = 0;
+
+    private int expect = START;
+
+    public int depth() { return depth; }
+
+    /* Whether a string found now would be an object key */
+    public boolean isKey() {
+        return expect == KEY_OR_END || expect == KEY;
+    }
+
+    /* Whether a comma must come before the next key or value */
+    public boolean isCommaNeeded() {
+        return expect == COMMA_OR_END;
+    }
+
+    /* Whether the top-level value has already been completed */
+    public boolean isDone() {
+        return expect == DONE;
+    }
+
+    /* Whether the innermost open container is an object */
+    public boolean inObject() {
+        return depth > 0 && stack[depth - 1] == OBJECT;
+    }
+
+    public void key() {
+        if (!isKey()) throw new JSONException("expected key inside object");
+        expect = COLON;
+    }
+
+    public void colon() {
+        if (expect != COLON) throw new JSONException("dangling colon inside no object");
+        expect = VALUE;
+    }
+
+    public void comma() {
+        if (expect != COMMA_OR_END) throw new JSONException("dangling comma inside no object or list");
+        expect = stack[depth - 1] == OBJECT ? KEY : VALUE;
+    }
+
+    /* A scalar value was found */
+    public void value() {
+        beforeValue();
+        afterValue();
+    }
+
+    public void open(boolean object) {
+        beforeValue();
+        if (depth == stack.length) stack = Arrays.copyOf(stack, depth << 1);
+        stack[depth++] = object ? OBJECT : LIST;
+        expect = object ? KEY_OR_END : VALUE_OR_END;
+    }
+
+    public void close(boolean object) {
+        if (depth == 0) throw new JSONException("closing an un-opened object or list");
+        if (object && stack[depth - 1] != OBJECT) throw new JSONException("closing an un-opened object");
+        if (!object && stack[depth - 1] != LIST) throw new JSONException("closing an un-opened list");
+        if (expect == COLON) throw new JSONException("no colon in key/value pair");
+        if (expect == VALUE && object) throw new JSONException("no value in key/value pair");
+        if (expect == KEY || expect == VALUE) throw new JSONException("unbalanced commas");
+        depth--;
+        afterValue();
+    }
+
+    /* The input is over, checks that every container was closed */
+    public void end() {
+        if (depth == 0) return;
+        for (int i = 0; i < depth; i++) {
+            if (stack[i] == OBJECT) throw new JSONException("unbalanced curly brackets");
+        }
+        throw new JSONException("unbalanced square brackets");
+    }
+
+    public void reset() {
+        depth = 0;
+        expect = START;
+    }
+
+    private void beforeValue() {
+        if (expect == START || expect == VALUE || expect == VALUE_OR_END) return;
+        if (expect == DONE) throw new JSONException("expected single value");
+        if (expect == COLON) throw new JSONException("no colon in key/value pair");
+        if (expect == COMMA_OR_END) throw new JSONException("unbalanced commas");
+        throw new JSONException("expected key inside object");
+    }
+
+    private void afterValue() {
+        expect = depth == 0 ? DONE : COMMA_OR_END;
+    }
+
+}
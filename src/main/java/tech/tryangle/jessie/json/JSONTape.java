@@ -0,0 +1,310 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import tech.tryangle.jessie.util.CharArrayBuilder;
+import tech.tryangle.jessie.util.CharScanner;
+
+import java.util.Arrays;
+
+/*
+ * The structural index of a JSON document, every token takes three ints of the tape:
+ * ➔ objects and lists: kind, start of their slots and the entry after their subtree
+ * ➔ strings, keys and numbers: kind, first char and end (the closing quote for strings)
+ * ➔ true, false and null: kind and position
+ * The slots of a container are its number of children followed by the entries of their values, so children are
+ * reached by index without walking their siblings.
+ */
+final class JSONTape {
+
+    static final int OBJECT = 0, LIST = 1, KEY = 2, STRING = 3, NUMBER = 4, DECIMAL = 5, TRUE = 6, FALSE = 7, NULL = 8;
+
+    /* Marks keys and strings holding escapes */
+    private static final int ESCAPED = 1 << 8;
+
+    private static final int KIND = ESCAPED - 1;
+
+    private final char[] json;
+
+    private int[] tape = new int[48];
+
+    private int entries = 0;
+
+    private int[] slots = new int[16];
+
+    private int slotCount = 0;
+
+    /* The hash table of the keys of the object being closed, by key entry plus one */
+    private int[] seen = new int[16];
+
+    private JSONTape(char[] json) {
+        this.json = json;
+    }
+
+    /* Validates the chars and indexes every token, duplicate keys included, nothing but the tape is allocated */
+    static JSONTape index(char[] json) {
+        JSONTape tape = new JSONTape(json);
+        tape.scan();
+        tape.seen = null;
+        return tape;
+    }
+
+    private void scan() {
+        JSONSyntax syntax = new JSONSyntax();
+        JSONNumberParser numbers = new JSONNumberParser();
+        int[] open = new int[16];
+        int depth = 0;
+        int i = 0;
+        while (i < json.length) {
+            char current = json[i];
+            int kind = -1;
+            int first = i;
+            int end = 0;
+            if (current == '"') {
+                boolean key = syntax.isKey();
+                if (key) {
+                    syntax.key();
+                } else {
+                    syntax.value();
+                }
+                kind = key ? KEY : STRING;
+                first = i + 1;
+                end = first;
+                while (true) {
+                    end = CharScanner.indexOfQuoteOrBackslash(json, end, json.length);
+                    if (end >= json.length) throw new JSONException("unterminated string");
+                    char traverse = json[end];
+                    if (traverse == '"') break;
+                    if (traverse == '\\') {
+                        kind |= ESCAPED;
+                        char next = end + 1 < json.length ? json[end + 1] : '\0';
+                        if (next == 'u') {
+                            for (int j = 2; j < 6; j++) JSONParser.hexDigit(end + j < json.length ? json[end + j] : '\0');
+                            end += 4;
+                        } else {
+                            JSONParser.unescape(next);
+                        }
+                        end++;
+                    }
+                    end++;
+                }
+                i = end;
+            } else if (current == '{' || current == '[') {
+                syntax.open(current == '{');
+                kind = current == '{' ? OBJECT : LIST;
+            } else if (current == '}' || current == ']') {
+                syntax.close(current == '}');
+                int container = open[--depth];
+                tape[3 * container + 2] = entries;
+                close(container);
+            } else if (current == '-' || (current >= '0' && current <= '9')) {
+                syntax.value();
+                end = JSONNumberParser.end(json, i, json.length);
+                numbers.parse(json, i, end);
+                kind = numbers.isDecimal() ? DECIMAL : NUMBER;
+                i = end - 1;
+            } else if (current == 't' || current == 'f' || current == 'n') {
+                syntax.value();
+                char[] literal = current == 't' ? JSONParser.TRUE : current == 'f' ? JSONParser.FALSE : JSONParser.NULL;
+                if (i + literal.length - 1 >= json.length) throw new JSONException("dangling in-between char");
+                for (int j = 1; j < literal.length; j++) {
+                    if (json[i + j] != literal[j]) throw new JSONException("dangling in-between char");
+                }
+                kind = current == 't' ? TRUE : current == 'f' ? FALSE : NULL;
+                i += literal.length - 1;
+            } else if (current == ':') {
+                syntax.colon();
+            } else if (current == ',') {
+                syntax.comma();
+            } else if (current != ' ' && current != '\n' && current != '\r' && current != '\t' && !Character.isISOControl(current)) {
+                throw new JSONException("dangling unknown char");
+            }
+            if (kind != -1) {
+                if (3 * entries + 3 > tape.length) tape = Arrays.copyOf(tape, tape.length << 1);
+                tape[3 * entries] = kind;
+                tape[3 * entries + 1] = kind == OBJECT || kind == LIST ? 0 : first;
+                tape[3 * entries + 2] = end;
+                if (kind == OBJECT || kind == LIST) {
+                    if (depth == open.length) open = Arrays.copyOf(open, depth << 1);
+                    open[depth++] = entries;
+                }
+                entries++;
+            }
+            i++;
+        }
+        syntax.end();
+    }
+
+    /* Lists the children of the container just closed in the slots, the keys of an object must be unique */
+    private void close(int container) {
+        boolean object = (tape[3 * container] & KIND) == OBJECT;
+        int start = slotCount;
+        int size = 0;
+        slot(0);
+        for (int entry = container + 1; entry < entries; entry = next(object ? entry + 1 : entry)) {
+            slot(object ? entry + 1 : entry);
+            size++;
+        }
+        slots[start] = size;
+        tape[3 * container + 1] = start;
+        if (object && size > 1) checkKeys(start, size);
+    }
+
+    private void slot(int value) {
+        if (slotCount == slots.length) slots = Arrays.copyOf(slots, slotCount << 1);
+        slots[slotCount++] = value;
+    }
+
+    private void checkKeys(int start, int size) {
+        int capacity = Integer.highestOneBit(size) << 2;
+        if (seen.length < capacity) {
+            seen = new int[capacity];
+        } else {
+            Arrays.fill(seen, 0, capacity, 0);
+        }
+        int mask = capacity - 1;
+        for (int i = 1; i <= size; i++) {
+            int key = slots[start + i] - 1;
+            int slot = keyHash(key) & mask;
+            while (seen[slot] != 0) {
+                if (keysEqual(seen[slot] - 1, key)) throw new JSONException("duplicate key");
+                slot = (slot + 1) & mask;
+            }
+            seen[slot] = key + 1;
+        }
+    }
+
+    /* The hash of the unescaped key, the way String.hashCode() computes it */
+    private int keyHash(int entry) {
+        if ((tape[3 * entry] & ESCAPED) == 0) return hash(json, tape[3 * entry + 1], tape[3 * entry + 2]);
+        char[] chars = chars(entry);
+        try {
+            return hash(chars, 0, chars.length);
+        } finally {
+            Arrays.fill(chars, '\0');
+        }
+    }
+
+    private static int hash(char[] chars, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) hash = 31 * hash + chars[i];
+        return hash ^ (hash >>> 16);
+    }
+
+    private boolean keysEqual(int first, int second) {
+        if (((tape[3 * first] | tape[3 * second]) & ESCAPED) == 0) {
+            int start = tape[3 * first + 1];
+            int other = tape[3 * second + 1];
+            int length = tape[3 * first + 2] - start;
+            return length == tape[3 * second + 2] - other && Arrays.equals(json, start, start + length, json, other, other + length);
+        }
+        char[] a = chars(first);
+        char[] b = chars(second);
+        try {
+            return Arrays.equals(a, b);
+        } finally {
+            Arrays.fill(a, '\0');
+            Arrays.fill(b, '\0');
+        }
+    }
+
+    boolean isEmpty() {
+        return entries == 0;
+    }
+
+    int kind(int entry) {
+        return tape[3 * entry] & KIND;
+    }
+
+    boolean isContainer(int entry) {
+        int kind = kind(entry);
+        return kind == OBJECT || kind == LIST;
+    }
+
+    /* The number of pairs of an object or elements of a list */
+    int size(int entry) {
+        return slots[tape[3 * entry + 1]];
+    }
+
+    /* The entry following the given one and its whole subtree */
+    int next(int entry) {
+        return isContainer(entry) ? tape[3 * entry + 2] : entry + 1;
+    }
+
+    /* The ordinal of the pair holding the key inside an object, or -1 */
+    int find(int object, String key) {
+        int start = tape[3 * object + 1] + 1;
+        int size = slots[start - 1];
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            if (keyEquals(slots[start + ordinal] - 1, key)) return ordinal;
+        }
+        return -1;
+    }
+
+    /* The entry of the value of the ordinal-th pair (objects) or element (lists) */
+    int child(int container, int ordinal) {
+        return slots[tape[3 * container + 1] + 1 + ordinal];
+    }
+
+    String key(int entry) {
+        return new String(chars(entry));
+    }
+
+    /* The value of a scalar entry the way JSON entities store it (strings as new char arrays) */
+    Object scalar(int entry) {
+        int kind = kind(entry);
+        int first = tape[3 * entry + 1];
+        int end = tape[3 * entry + 2];
+        if (kind == STRING) return chars(entry);
+        if (kind == NUMBER || kind == DECIMAL) return JSONParser.parseNumber(json, first, end);
+        if (kind == TRUE) return Boolean.TRUE;
+        if (kind == FALSE) return Boolean.FALSE;
+        return null;
+    }
+
+    private char[] chars(int entry) {
+        int first = tape[3 * entry + 1];
+        int end = tape[3 * entry + 2];
+        if ((tape[3 * entry] & ESCAPED) == 0) return Arrays.copyOfRange(json, first, end);
+        CharArrayBuilder builder = new CharArrayBuilder();
+        try {
+            JSONParser.readEscaped(json, first, json.length, builder);
+            return builder.asCharArray();
+        } finally {
+            builder.clear();
+        }
+    }
+
+    private boolean keyEquals(int entry, String key) {
+        int first = tape[3 * entry + 1];
+        int end = tape[3 * entry + 2];
+        if ((tape[3 * entry] & ESCAPED) != 0) {
+            char[] chars = chars(entry);
+            boolean equal = chars.length == key.length();
+            for (int i = 0; equal && i < chars.length; i++) {
+                equal = chars[i] == key.charAt(i);
+            }
+            Arrays.fill(chars, '\0');
+            return equal;
+        }
+        if (end - first != key.length()) return false;
+        for (int i = 0; i < key.length(); i++) {
+            if (json[first + i] != key.charAt(i)) return false;
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import tech.tryangle.jessie.util.CharSlice;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/* The handler that builds a JSON entity tree out of the parse events */
+final class JSONTreeBuilder implements JSONHandler {
+
+    /* The open objects and lists */
+    private JSONEntity[] stack = new JSONEntity[16];
+
+    /* The pending key of every open object */
+    private String[] keys = new String[16];
+
+    private int depth = 0;
+
+    /* The depth of the outermost open object or list under an off-heap key, 0 when there is none */
+    private int offHeapDepth = 0;
+
+    private JSONEntity result;
+
+    /* The root of the shapes shared by the objects of this tree */
+    private JSONShape shapes = JSONShape.root();
+
+    private JSONParserOptions options;
+
+    /* The chars being parsed, strings handed out as ranges of them can be sliced */
+    private char[] source;
+
+    JSONTreeBuilder() {
+        this(JSONParserOptions.defaults(), null);
+    }
+
+    JSONTreeBuilder(JSONParserOptions options, char[] source) {
+        this.options = options;
+        this.source = source;
+    }
+
+    /* Gets ready for another tree, nothing of the previous one is kept */
+    void reset(JSONParserOptions options, char[] source) {
+        Arrays.fill(stack, 0, depth, null);
+        Arrays.fill(keys, 0, depth, null);
+        depth = 0;
+        offHeapDepth = 0;
+        result = null;
+        shapes = JSONShape.root();
+        this.options = options;
+        this.source = source;
+    }
+
+    /* Gets ready for the next tree of the same input, sharing the shapes of the previous ones */
+    void next() {
+        Arrays.fill(stack, 0, depth, null);
+        Arrays.fill(keys, 0, depth, null);
+        depth = 0;
+        offHeapDepth = 0;
+        result = null;
+    }
+
+    @Override
+    public void startObject() {
+        enter();
+        push(JSONEntity.newObject(shapes));
+    }
+
+    @Override
+    public void key(char[] chars, int offset, int length) {
+        JSONSymbolTable symbols = options.getSymbolTable();
+        keys[depth - 1] = symbols == null ? new String(chars, offset, length) : symbols.intern(chars, offset, length);
+    }
+
+    @Override
+    public void endObject() {
+        add(stack[--depth]);
+        stack[depth] = null;
+        if (depth < offHeapDepth) offHeapDepth = 0;
+    }
+
+    @Override
+    public void startList() {
+        enter();
+        push(JSONEntity.newList());
+    }
+
+    @Override
+    public void endList() {
+        add(stack[--depth]);
+        stack[depth] = null;
+        if (depth < offHeapDepth) offHeapDepth = 0;
+    }
+
+    @Override
+    public void stringValue(char[] chars, int offset, int length) {
+        if (options.getArena() != null && isOffHeap()) {
+            add(options.getArena().allocate(chars, offset, length));
+        } else if (chars == source && options.isZeroCopyStrings()) {
+            add(new CharSlice(chars, offset, length));
+        } else {
+            add(Arrays.copyOfRange(chars, offset, offset + length));
+        }
+    }
+
+    @Override
+    public void numberValue(long value) {
+        if (depth > 0 && stack[depth - 1].isList()) {
+            stack[depth - 1].addLong(value);
+        } else if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            add(value);
+        } else {
+            add((int) value);
+        }
+    }
+
+    @Override
+    public void numberValue(double value) {
+        if (depth > 0 && stack[depth - 1].isList()) {
+            stack[depth - 1].addDouble(value);
+        } else {
+            add(value);
+        }
+    }
+
+    @Override
+    public void booleanValue(boolean value) {
+        add(value);
+    }
+
+    @Override
+    public void nullValue() {
+        add(null);
+    }
+
+    /* The parsed entity (an empty JSON value when nothing was parsed) */
+    public JSONEntity getResult() {
+        return result == null ? JSONEntity.newValue() : result;
+    }
+
+    /* Whether the string value being added goes to the arena, every string under an off-heap key does */
+    private boolean isOffHeap() {
+        if (options.getOffHeapKeys() == null) return true;
+        return offHeapDepth != 0 || isOffHeapKey();
+    }
+
+    private boolean isOffHeapKey() {
+        Set<String> offHeapKeys = options.getOffHeapKeys();
+        return offHeapKeys != null && depth > 0 && stack[depth - 1].isObject() && offHeapKeys.contains(keys[depth - 1]);
+    }
+
+    /* Marks the object or list starting as off-heap when it is the value of an off-heap key */
+    private void enter() {
+        if (offHeapDepth == 0 && options.getArena() != null && isOffHeapKey()) offHeapDepth = depth + 1;
+    }
+
+    private void push(JSONEntity entity) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth << 1);
+            keys = Arrays.copyOf(keys, depth << 1);
+        }
+        stack[depth++] = entity;
+    }
+
+    private void add(Object value) {
+        if (depth == 0) {
+            if (value instanceof JSONEntity entity) {
+                result = entity;
+            } else {
+                result = JSONEntity.newValue();
+                result.setValue(value);
+            }
+            return;
+        }
+        JSONEntity parent = stack[depth - 1];
+        if (parent.isObject()) {
+            parent.addParsedPair(keys[depth - 1], value);
+            keys[depth - 1] = null;
+        } else {
+            parent.addToList(value);
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import java.lang.reflect.Type;
+
+/*
+ * Reads one Java value from the parse events of a JSON value: scalars in one call, objects and lists through
+ * the frame their children go to. JSONBinding adds the writing, adapters that only read extend this directly.
+ */
+abstract class JSONValueReader {
+
+    /* The type read, for the error messages */
+    final Type type;
+
+    JSONValueReader(Type type) {
+        this.type = type;
+    }
+
+    /* The value of a string */
+    Object readString(char[] chars, int offset, int length) {
+        throw mismatch("a string");
+    }
+
+    Object readLong(long value) {
+        throw mismatch("a number");
+    }
+
+    Object readDouble(double value) {
+        throw mismatch("a number");
+    }
+
+    Object readBoolean(boolean value) {
+        throw mismatch("a boolean");
+    }
+
+    /* The value of a null, the zero value for primitives */
+    Object readNull() {
+        return null;
+    }
+
+    /* The frame the values of an object go to */
+    Frame startObject() {
+        throw mismatch("an object");
+    }
+
+    /* The frame the values of a list go to */
+    Frame startList() {
+        throw mismatch("a list");
+    }
+
+    JSONException mismatch(String found) {
+        return new JSONException(String.format("cannot bind %s to %s", found, type.getTypeName()));
+    }
+
+    /* Collects the values of one object or list while it is parsed */
+    abstract static class Frame {
+
+        /* The reader of the value about to come */
+        abstract JSONValueReader next();
+
+        void key(char[] chars, int offset, int length) {
+        }
+
+        abstract void add(Object value);
+
+        /* The value of the whole object or list */
+        abstract Object end();
+
+    }
+
+}
@@ -0,0 +1,605 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.json;
+
+import tech.tryangle.jessie.util.CharSlice;
+import tech.tryangle.jessie.util.SecureChars;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * This object writes a JSON document token by token through one reusable buffer (of chars, or of UTF-8
+ * bytes for streams and byte buffers so nothing goes through chars first), either
+ * event by event (beginObject, name, value...) or a whole JSON entity at once. Commas and colons are
+ * placed by the writer and the order of the calls is validated, so the output is always well-formed.
+ */
+public class JSONWriter implements Closeable, Flushable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final char[] LONG_MIN_VALUE = String.valueOf(Long.MIN_VALUE).toCharArray();
+
+    /* The char sink, null when writing bytes or to memory */
+    private final Writer writer;
+
+    /* The byte sink, null when writing chars or to memory */
+    private final OutputStream output;
+
+    /* Whether the buffer grows instead of being flushed */
+    private final boolean growable;
+
+    /* The chars written so far, null when writing UTF-8 bytes */
+    private char[] buffer;
+
+    private int position = 0;
+
+    /* The UTF-8 bytes written so far, null when writing chars */
+    private ByteBuffer bytes;
+
+    /* Where decimals are formatted before they are put as bytes, chars are formatted straight into the buffer */
+    private char[] digits;
+
+    private final JSONSyntax syntax = new JSONSyntax();
+
+    public JSONWriter(Writer writer) {
+        this(writer, DEFAULT_BUFFER_SIZE);
+    }
+
+    public JSONWriter(Writer writer, int bufferSize) {
+        if (writer == null) throw new NullPointerException("writer must not be null");
+        if (bufferSize < 32) throw new IllegalArgumentException("buffer size must be at least 32");
+        this.writer = writer;
+        this.output = null;
+        this.growable = false;
+        this.buffer = new char[bufferSize];
+    }
+
+    public JSONWriter(Appendable appendable) {
+        this(appendable instanceof Writer casted ? casted : adapt(appendable), DEFAULT_BUFFER_SIZE);
+    }
+
+    /* Encodes straight to UTF-8 bytes, flushed to the stream whenever the buffer is full */
+    public JSONWriter(OutputStream output) {
+        this(output, DEFAULT_BUFFER_SIZE);
+    }
+
+    public JSONWriter(OutputStream output, int bufferSize) {
+        if (output == null) throw new NullPointerException("output must not be null");
+        if (bufferSize < 32) throw new IllegalArgumentException("buffer size must be at least 32");
+        this.writer = null;
+        this.output = output;
+        this.growable = false;
+        this.bytes = ByteBuffer.allocate(bufferSize);
+    }
+
+    /*
+     * Encodes straight to UTF-8 bytes from the position of the buffer (heap or direct) onwards,
+     * a BufferOverflowException is thrown when the document does not fit in the remaining bytes
+     */
+    public JSONWriter(ByteBuffer target) {
+        if (target == null) throw new NullPointerException("target must not be null");
+        this.writer = null;
+        this.output = null;
+        this.growable = false;
+        this.bytes = target;
+    }
+
+    /* A writer that keeps everything in memory as chars or as UTF-8 bytes, see toCharArray() and toUtf8Bytes() */
+    JSONWriter(boolean utf8) {
+        this.writer = null;
+        this.output = null;
+        this.growable = true;
+        if (utf8) {
+            this.bytes = ByteBuffer.allocate(64);
+        } else {
+            this.buffer = new char[64];
+        }
+    }
+
+    public JSONWriter beginObject() {
+        separate();
+        syntax.open(true);
+        write('{');
+        return this;
+    }
+
+    public JSONWriter endObject() {
+        syntax.close(true);
+        write('}');
+        return this;
+    }
+
+    public JSONWriter beginList() {
+        separate();
+        syntax.open(false);
+        write('[');
+        return this;
+    }
+
+    public JSONWriter endList() {
+        syntax.close(false);
+        write(']');
+        return this;
+    }
+
+    public JSONWriter name(String name) {
+        if (name == null) throw new NullPointerException("name must not be null");
+        separate();
+        syntax.key();
+        writeString(name);
+        syntax.colon();
+        write(':');
+        return this;
+    }
+
+    public JSONWriter name(char[] name) {
+        if (name == null) throw new NullPointerException("name must not be null");
+        separate();
+        syntax.key();
+        writeString(name, 0, name.length);
+        syntax.colon();
+        write(':');
+        return this;
+    }
+
+    public JSONWriter value(CharSequence value) {
+        if (value == null) return nullValue();
+        separate();
+        syntax.value();
+        if (value instanceof CharSlice slice) {
+            writeString(slice.getSource(), slice.getOffset(), slice.length());
+        } else if (value instanceof JSONFrozen.Text text) {
+            writeString(text.chars, 0, text.chars.length);
+        } else {
+            writeString(value);
+        }
+        return this;
+    }
+
+    public JSONWriter value(char[] value) {
+        if (value == null) return nullValue();
+        separate();
+        syntax.value();
+        writeString(value, 0, value.length);
+        return this;
+    }
+
+    /* Writes the chars straight from off the heap, no copy of them is made */
+    public JSONWriter value(SecureChars value) {
+        if (value == null) return nullValue();
+        separate();
+        syntax.value();
+        write('"');
+        int end = value.length();
+        for (int i = 0; i < end; i++) {
+            char current = value.charAt(i);
+            if (bytes != null && Character.isHighSurrogate(current) && i + 1 < end && Character.isLowSurrogate(value.charAt(i + 1))) {
+                writeCodePoint(Character.toCodePoint(current, value.charAt(++i)));
+            } else {
+                writeEscaped(current);
+            }
+        }
+        write('"');
+        return this;
+    }
+
+    public JSONWriter value(long value) {
+        separate();
+        syntax.value();
+        writeLong(value);
+        return this;
+    }
+
+    public JSONWriter value(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) throw new JSONException("numeric out of range");
+        separate();
+        syntax.value();
+        writeDecimal(value);
+        return this;
+    }
+
+    public JSONWriter value(boolean value) {
+        separate();
+        syntax.value();
+        writeRaw(value ? JSONParser.TRUE : JSONParser.FALSE);
+        return this;
+    }
+
+    public JSONWriter nullValue() {
+        separate();
+        syntax.value();
+        writeRaw(JSONParser.NULL);
+        return this;
+    }
+
+    /* Writes the whole entity, walking objects and lists without copying them */
+    public JSONWriter value(JSONEntity entity) {
+        if (entity == null) return nullValue();
+        if (entity.isObject()) {
+            beginObject();
+            if (entity.getPairs() instanceof JSONFrozen.Pairs pairs) {
+                JSONFrozen content = pairs.content();
+                for (int i = 0; i < content.size(); i++) {
+                    name(content.keyAt(i));
+                    writeObject(content.get(i));
+                }
+                return endObject();
+            }
+            for (Map.Entry<String, Object> pair : entity.getPairs().entrySet()) {
+                name(pair.getKey());
+                writeObject(pair.getValue());
+            }
+            return endObject();
+        }
+        if (entity.isList()) {
+            beginList();
+            List<Object> list = entity.getList();
+            if (list instanceof JSONList numbers && numbers.isLongs()) {
+                for (int i = 0; i < numbers.size(); i++) value(numbers.getLong(i));
+            } else if (list instanceof JSONList numbers && numbers.isDoubles()) {
+                for (int i = 0; i < numbers.size(); i++) value(numbers.getDouble(i));
+            } else if (list instanceof JSONFrozen.Elements elements && elements.content().isLongs()) {
+                for (int i = 0; i < elements.size(); i++) value(elements.content().getLong(i));
+            } else if (list instanceof JSONFrozen.Elements elements && elements.content().isDoubles()) {
+                for (int i = 0; i < elements.size(); i++) value(elements.content().getDouble(i));
+            } else if (list instanceof JSONFrozen.Elements elements) {
+                for (int i = 0; i < elements.size(); i++) writeObject(elements.content().get(i));
+            } else {
+                for (Object object : list) writeObject(object);
+            }
+            return endList();
+        }
+        if (entity.isValue()) {
+            writeObject(entity.getValue());
+            return this;
+        }
+        throw new JSONException("cannot write a pair on its own");
+    }
+
+    /* Writes the buffered chars or bytes to the sink */
+    @Override
+    public void flush() throws IOException {
+        if (writer != null) {
+            drain();
+            writer.flush();
+        } else if (output != null) {
+            drain();
+            output.flush();
+        }
+    }
+
+    /* Flushes and closes the sink, checking that every object and list was closed */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (writer != null) {
+                drain();
+                writer.close();
+            } else if (output != null) {
+                drain();
+                output.close();
+            }
+            syntax.end();
+        } finally {
+            if (buffer != null) Arrays.fill(buffer, '\0');
+            if (output != null) Arrays.fill(bytes.array(), (byte) 0);
+        }
+    }
+
+    /* Checks that every object and list was closed */
+    void finish() {
+        syntax.end();
+    }
+
+    /* The chars written to memory */
+    char[] toCharArray() {
+        syntax.end();
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /* The UTF-8 bytes written to memory */
+    byte[] toUtf8Bytes() {
+        syntax.end();
+        return Arrays.copyOf(bytes.array(), bytes.position());
+    }
+
+    /* Wipes the chars or bytes written to memory */
+    void wipe() {
+        if (buffer != null) {
+            Arrays.fill(buffer, 0, position, '\0');
+            position = 0;
+        } else {
+            Arrays.fill(bytes.array(), 0, bytes.position(), (byte) 0);
+            bytes.clear();
+        }
+        if (digits != null) Arrays.fill(digits, '\0');
+    }
+
+    private void writeObject(Object object) {
+        if (object == null) {
+            nullValue();
+        } else if (object instanceof char[] casted) {
+            value(casted);
+        } else if (object instanceof CharSequence casted) {
+            value(casted);
+        } else if (object instanceof SecureChars casted) {
+            value(casted);
+        } else if (object instanceof Integer || object instanceof Long || object instanceof Short || object instanceof Byte) {
+            value(((Number) object).longValue());
+        } else if (object instanceof Float casted) {
+            if (casted.isNaN() || casted.isInfinite()) throw new JSONException("numeric out of range");
+            separate();
+            syntax.value();
+            writeDecimal(casted);
+        } else if (object instanceof Double casted) {
+            value((double) casted);
+        } else if (object instanceof Boolean casted) {
+            value((boolean) casted);
+        } else if (object instanceof JSONEntity casted) {
+            value(casted);
+        } else {
+            throw new JSONException("cannot write a " + object.getClass().getName());
+        }
+    }
+
+    /* Writes the comma the previous element needs */
+    private void separate() {
+        if (syntax.isCommaNeeded()) {
+            syntax.comma();
+            write(',');
+        }
+    }
+
+    private void writeString(char[] chars, int offset, int length) {
+        write('"');
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            char current = chars[i];
+            if (bytes != null && Character.isHighSurrogate(current) && i + 1 < end && Character.isLowSurrogate(chars[i + 1])) {
+                writeCodePoint(Character.toCodePoint(current, chars[++i]));
+            } else {
+                writeEscaped(current);
+            }
+        }
+        write('"');
+    }
+
+    private void writeString(CharSequence chars) {
+        write('"');
+        int end = chars.length();
+        for (int i = 0; i < end; i++) {
+            char current = chars.charAt(i);
+            if (bytes != null && Character.isHighSurrogate(current) && i + 1 < end && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                writeCodePoint(Character.toCodePoint(current, chars.charAt(++i)));
+            } else {
+                writeEscaped(current);
+            }
+        }
+        write('"');
+    }
+
+    private void writeEscaped(char current) {
+        if (current >= 0x20 && current != '"' && current != '\\') {
+            if (bytes == null || current < 0x80) {
+                write(current);
+            } else if (Character.isSurrogate(current)) {
+                /* a lone surrogate has no UTF-8 form, the escape keeps it */
+                writeUnicode(current);
+            } else {
+                writeCodePoint(current);
+            }
+            return;
+        }
+        switch (current) {
+            case '"', '\\' -> writeShortEscape(current);
+            case '\b' -> writeShortEscape('b');
+            case '\f' -> writeShortEscape('f');
+            case '\n' -> writeShortEscape('n');
+            case '\r' -> writeShortEscape('r');
+            case '\t' -> writeShortEscape('t');
+            default -> writeUnicode(current);
+        }
+    }
+
+    private void writeShortEscape(char escaped) {
+        require(2);
+        put('\\');
+        put(escaped);
+    }
+
+    private void writeUnicode(char current) {
+        require(6);
+        put('\\');
+        put('u');
+        put(HEX[current >> 12]);
+        put(HEX[current >> 8 & 0xF]);
+        put(HEX[current >> 4 & 0xF]);
+        put(HEX[current & 0xF]);
+    }
+
+    /* Encodes a non-ASCII code point as UTF-8 */
+    private void writeCodePoint(int codePoint) {
+        require(4);
+        if (codePoint < 0x800) {
+            bytes.put((byte) (0xC0 | codePoint >> 6));
+        } else if (codePoint < 0x10000) {
+            bytes.put((byte) (0xE0 | codePoint >> 12));
+            bytes.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+        } else {
+            bytes.put((byte) (0xF0 | codePoint >> 18));
+            bytes.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+            bytes.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+        }
+        bytes.put((byte) (0x80 | codePoint & 0x3F));
+    }
+
+    /* Writes the digits straight into the buffer, from the last one backwards */
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeRaw(LONG_MIN_VALUE);
+            return;
+        }
+        require(20);
+        if (value < 0) {
+            put('-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) digits++;
+        int start = bytes == null ? position : bytes.position();
+        for (int i = start + digits - 1; i >= start; i--) {
+            char digit = (char) ('0' + value % 10);
+            if (bytes == null) {
+                buffer[i] = digit;
+            } else {
+                bytes.put(i, (byte) digit);
+            }
+            value /= 10;
+        }
+        if (bytes == null) {
+            position += digits;
+        } else {
+            bytes.position(start + digits);
+        }
+    }
+
+    /* Writes the shortest digits of the decimal (those of Double.toString), no string is made on the way */
+    private void writeDecimal(double value) {
+        if (bytes == null) {
+            require(JSONNumberWriter.MAX_CHARS);
+            position = JSONNumberWriter.write(value, buffer, position);
+            return;
+        }
+        if (digits == null) digits = new char[JSONNumberWriter.MAX_CHARS];
+        putDigits(JSONNumberWriter.write(value, digits, 0));
+    }
+
+    /* Writes the shortest digits of the float itself (those of Float.toString) */
+    private void writeDecimal(float value) {
+        if (bytes == null) {
+            require(JSONNumberWriter.MAX_CHARS);
+            position = JSONNumberWriter.write(value, buffer, position);
+            return;
+        }
+        if (digits == null) digits = new char[JSONNumberWriter.MAX_CHARS];
+        putDigits(JSONNumberWriter.write(value, digits, 0));
+    }
+
+    /* Puts the formatted digits as bytes, only requiring the room they take (a target buffer may be nearly full) */
+    private void putDigits(int length) {
+        require(length);
+        for (int i = 0; i < length; i++) bytes.put((byte) digits[i]);
+    }
+
+    private void writeRaw(char[] chars) {
+        require(chars.length);
+        for (char current : chars) put(current);
+    }
+
+    private void writeRaw(String chars) {
+        require(chars.length());
+        for (int i = 0; i < chars.length(); i++) put(chars.charAt(i));
+    }
+
+    private void write(char current) {
+        require(1);
+        put(current);
+    }
+
+    /* Puts a char whose room was already required, only ASCII when writing bytes */
+    private void put(char current) {
+        if (bytes == null) {
+            buffer[position++] = current;
+        } else {
+            bytes.put((byte) current);
+        }
+    }
+
+    /* Makes room for the chars or bytes, flushing the buffer or growing it when writing to memory */
+    private void require(int length) {
+        if (bytes == null ? position + length <= buffer.length : bytes.remaining() >= length) return;
+        if (growable) {
+            grow(length);
+        } else if (writer != null || output != null) {
+            try {
+                drain();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            throw new BufferOverflowException();
+        }
+    }
+
+    private void grow(int length) {
+        if (bytes == null) {
+            char[] grown = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + length));
+            Arrays.fill(buffer, '\0');
+            buffer = grown;
+        } else {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(bytes.capacity() << 1, bytes.position() + length));
+            grown.put(bytes.array(), 0, bytes.position());
+            Arrays.fill(bytes.array(), (byte) 0);
+            bytes = grown;
+        }
+    }
+
+    private void drain() throws IOException {
+        if (bytes == null) {
+            writer.write(buffer, 0, position);
+            Arrays.fill(buffer, 0, position, '\0');
+            position = 0;
+        } else {
+            output.write(bytes.array(), 0, bytes.position());
+            Arrays.fill(bytes.array(), 0, bytes.position(), (byte) 0);
+            bytes.clear();
+        }
+    }
+
+    private static Writer adapt(Appendable appendable) {
+        if (appendable == null) throw new NullPointerException("appendable must not be null");
+        return new Writer() {
+            @Override
+            public void write(char[] chars, int offset, int length) throws IOException {
+                appendable.append(CharBuffer.wrap(chars, offset, length));
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (appendable instanceof Flushable flushable) flushable.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (appendable instanceof Closeable closeable) closeable.close();
+            }
+        };
+    }
+
+}
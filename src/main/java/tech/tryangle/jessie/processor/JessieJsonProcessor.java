@@ -0,0 +1,572 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/*
+ * Generates the JSONCodec of every @JessieJson record or class, see JessieJson for the naming and the supported
+ * properties. The generated frames match keys with a switch on the length then a comparison of the chars, and
+ * read numbers without boxing them (but for the boxed properties), anything unsupported is a compile error.
+ */
+@SupportedAnnotationTypes(JessieJsonProcessor.ANNOTATION)
+public final class JessieJsonProcessor extends AbstractProcessor {
+
+    static final String ANNOTATION = "tech.tryangle.jessie.json.JessieJson";
+
+    private static final int STRING = 0, CHARS = 1, BOOLEAN = 2, INT = 3, LONG = 4, SHORT = 5, BYTE = 6, DOUBLE = 7,
+            FLOAT = 8, ENUM = 9, CODEC = 10, LIST = 11;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : round.getElementsAnnotatedWith(annotation)) {
+                try {
+                    if (element.getKind() != ElementKind.RECORD && element.getKind() != ElementKind.CLASS) {
+                        throw new Failure("only records and classes can be @JessieJson", element);
+                    }
+                    new Codec((TypeElement) element).generate();
+                } catch (Failure e) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, e.getMessage(), e.element);
+                }
+            }
+        }
+        return true;
+    }
+
+    /* The name of the codec generated for the type, nested names joined by '_' */
+    static String codecName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName()).append("JSONCodec");
+        for (Element outer = type.getEnclosingElement(); outer instanceof TypeElement casted; outer = outer.getEnclosingElement()) {
+            name.insert(0, '_').insert(0, casted.getSimpleName());
+        }
+        return name.toString();
+    }
+
+    private static String packageName(TypeElement type) {
+        Element element = type;
+        while (!(element instanceof PackageElement)) element = element.getEnclosingElement();
+        return ((PackageElement) element).getQualifiedName().toString();
+    }
+
+    /* A char as a Java literal that is safe from the unicode escapes */
+    private static String literal(char c) {
+        if (c == '\'' || c == '\\') return "'\\" + c + "'";
+        if (c >= 0x20 && c < 0x7f) return "'" + c + "'";
+        return "(char) " + (int) c;
+    }
+
+    private static String literal(String string) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c < 0x20) {
+                literal.append(String.format("\\%03o", (int) c));
+            } else if (c >= 0x7f) {
+                literal.append(String.format("\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    /* A property or list element that cannot be generated, reported on the element at fault */
+    private static final class Failure extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        final transient Element element;
+
+        Failure(String message, Element element) {
+            super(message);
+            this.element = element;
+        }
+
+    }
+
+    /* How a property or list element is read and written */
+    private record Value(int sort, String type, boolean primitive, String codec, Value element) {
+
+        Value(int sort, String type, boolean primitive) {
+            this(sort, type, primitive, null, null);
+        }
+
+    }
+
+    /*
+     * One property of the type: read into the frame field p<index> for records, through the setter (a format
+     * of the value) otherwise, and written from the getter (an expression on "value")
+     */
+    private record Property(String name, Value value, String getter, String setter) {
+    }
+
+    /* The codec of one type being generated */
+    private final class Codec {
+
+        private final TypeElement type;
+
+        private final String typeName;
+
+        private final boolean record;
+
+        private final List<Property> properties = new ArrayList<>();
+
+        /* The constants arrays of the enums used, by enum name */
+        private final Map<String, String> constants = new LinkedHashMap<>();
+
+        /* The frames of the lists, appended to the codec after the frame of the type */
+        private final StringBuilder lists = new StringBuilder();
+
+        private int listCount = 0;
+
+        private int localCount = 0;
+
+        Codec(TypeElement type) {
+            this.type = type;
+            this.typeName = type.getQualifiedName().toString();
+            this.record = type.getKind() == ElementKind.RECORD;
+        }
+
+        void generate() throws Failure {
+            check();
+            if (record) {
+                for (RecordComponentElement component : type.getRecordComponents()) {
+                    String name = component.getSimpleName().toString();
+                    properties.add(new Property(name, value(component.asType(), component), "value." + name + "()", null));
+                }
+            } else {
+                Set<String> names = new HashSet<>();
+                for (VariableElement field : fields()) {
+                    if (!names.add(field.getSimpleName().toString())) {
+                        throw new Failure("the field " + field.getSimpleName() + " hides an inherited property", field);
+                    }
+                    properties.add(property(field));
+                }
+            }
+            String codec = codecName(type);
+            String pkg = packageName(type);
+            StringBuilder out = new StringBuilder();
+            if (!pkg.isEmpty()) out.append("package ").append(pkg).append(";\n\n");
+            out.append("import tech.tryangle.jessie.json.JSONCodec;\n");
+            out.append("import tech.tryangle.jessie.json.JSONException;\n");
+            out.append("import tech.tryangle.jessie.json.JSONWriter;\n\n");
+            out.append("/* Generated from ").append(typeName).append(" by the Jessie processor, do not edit */\n");
+            out.append("@javax.annotation.processing.Generated(\"").append(JessieJsonProcessor.class.getName()).append("\")\n");
+            out.append("public final class ").append(codec).append(" extends JSONCodec<").append(typeName).append("> {\n\n");
+            out.append("    public static final ").append(codec).append(" INSTANCE = new ").append(codec).append("();\n\n");
+            StringBuilder labels = new StringBuilder();
+            for (Property property : properties) {
+                if (!labels.isEmpty()) labels.append(", ");
+                labels.append(literal(type.getSimpleName() + "." + property.name()));
+            }
+            out.append("    private static final String[] PROPERTIES = {").append(labels).append("};\n\n");
+            StringBuilder frames = new StringBuilder();
+            frame(frames);
+            frames.append(lists);
+            for (Map.Entry<String, String> entry : constants.entrySet()) {
+                out.append("    private static final ").append(entry.getKey()).append("[] ").append(entry.getValue())
+                        .append(" = ").append(entry.getKey()).append(".values();\n\n");
+            }
+            out.append("    private ").append(codec).append("() {\n    }\n\n");
+            out.append("    @Override\n    public JSONCodec.Frame<").append(typeName).append("> newFrame() {\n");
+            out.append("        return new ReadFrame();\n    }\n\n");
+            out.append("    @Override\n    public void write(JSONWriter writer, ").append(typeName).append(" value) {\n");
+            out.append("        writer.beginObject();\n");
+            for (Property property : properties) {
+                out.append("        writer.name(").append(literal(property.name())).append(");\n");
+                write(out, "        ", property.value(), property.getter());
+            }
+            out.append("        writer.endObject();\n    }\n\n");
+            out.append(frames);
+            out.append("}\n");
+            String file = pkg.isEmpty() ? codec : pkg + "." + codec;
+            try (Writer writer = processingEnv.getFiler().createSourceFile(file, type).openWriter()) {
+                writer.write(out.toString());
+            } catch (IOException e) {
+                throw new Failure("cannot write " + file + ": " + e.getMessage(), type);
+            }
+        }
+
+        private void check() throws Failure {
+            if (!type.getTypeParameters().isEmpty()) throw new Failure("@JessieJson types must not be generic", type);
+            for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+                Set<Modifier> modifiers = element.getModifiers();
+                if (modifiers.contains(Modifier.PRIVATE)) throw new Failure("@JessieJson types must not be private", type);
+                if (element.getEnclosingElement() instanceof TypeElement && !modifiers.contains(Modifier.STATIC)
+                        && element.getKind() == ElementKind.CLASS) {
+                    throw new Failure("nested @JessieJson classes must be static", type);
+                }
+            }
+            if (record) return;
+            if (type.getModifiers().contains(Modifier.ABSTRACT)) throw new Failure("@JessieJson classes must not be abstract", type);
+            for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+                if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) return;
+            }
+            throw new Failure("@JessieJson classes need a non-private no-arg constructor", type);
+        }
+
+        /* The non static and non transient fields of the class and its superclasses, the inherited ones first */
+        private List<VariableElement> fields() {
+            List<VariableElement> fields = new ArrayList<>();
+            for (TypeElement current = type; current != null && !current.getQualifiedName().contentEquals("java.lang.Object");
+                    current = superclass(current)) {
+                List<VariableElement> declared = new ArrayList<>();
+                for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                    Set<Modifier> modifiers = field.getModifiers();
+                    if (!modifiers.contains(Modifier.STATIC) && !modifiers.contains(Modifier.TRANSIENT)) declared.add(field);
+                }
+                fields.addAll(0, declared);
+            }
+            return fields;
+        }
+
+        private static TypeElement superclass(TypeElement type) {
+            TypeMirror superclass = type.getSuperclass();
+            return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+
+        /* Whether the generated codec, in the package of the type, can reach the field or method */
+        private boolean accessible(Element member) {
+            Set<Modifier> modifiers = member.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE)) return false;
+            TypeElement owner = (TypeElement) member.getEnclosingElement();
+            if (packageName(owner).equals(packageName(type))) return true;
+            return modifiers.contains(Modifier.PUBLIC) && owner.getModifiers().contains(Modifier.PUBLIC);
+        }
+
+        /* A field of a class, reached through its accessors when there are some (inherited ones included) */
+        private Property property(VariableElement field) throws Failure {
+            String name = field.getSimpleName().toString();
+            String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            boolean accessible = accessible(field);
+            String getter = null;
+            String setter = null;
+            for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+                if (!accessible(method) || method.getModifiers().contains(Modifier.STATIC)) continue;
+                String methodName = method.getSimpleName().toString();
+                int parameters = method.getParameters().size();
+                if (parameters == 0 && (methodName.equals("get" + capitalized) || methodName.equals("is" + capitalized))
+                        && method.getReturnType().getKind() != TypeKind.VOID) {
+                    getter = "value." + methodName + "()";
+                } else if (parameters == 1 && methodName.equals("set" + capitalized)) {
+                    setter = "instance." + methodName + "(%s)";
+                }
+            }
+            if (getter == null) {
+                if (!accessible) throw new Failure("no getter for the field " + name + ", it cannot be reached from the codec", field);
+                getter = "value." + name;
+            }
+            if (setter == null) {
+                if (!accessible || field.getModifiers().contains(Modifier.FINAL)) throw new Failure("no setter for the field " + name, field);
+                setter = "instance." + name + " = %s";
+            }
+            return new Property(name, value(field.asType(), field), getter, setter);
+        }
+
+        private Value value(TypeMirror mirror, Element where) throws Failure {
+            switch (mirror.getKind()) {
+                case BOOLEAN: return new Value(BOOLEAN, "boolean", true);
+                case INT: return new Value(INT, "int", true);
+                case LONG: return new Value(LONG, "long", true);
+                case SHORT: return new Value(SHORT, "short", true);
+                case BYTE: return new Value(BYTE, "byte", true);
+                case DOUBLE: return new Value(DOUBLE, "double", true);
+                case FLOAT: return new Value(FLOAT, "float", true);
+                case ARRAY:
+                    if (((ArrayType) mirror).getComponentType().getKind() == TypeKind.CHAR) return new Value(CHARS, "char[]", false);
+                    break;
+                case DECLARED:
+                    TypeElement declared = (TypeElement) ((DeclaredType) mirror).asElement();
+                    String name = declared.getQualifiedName().toString();
+                    switch (name) {
+                        case "java.lang.String": return new Value(STRING, name, false);
+                        case "java.lang.Boolean": return new Value(BOOLEAN, name, false);
+                        case "java.lang.Integer": return new Value(INT, name, false);
+                        case "java.lang.Long": return new Value(LONG, name, false);
+                        case "java.lang.Short": return new Value(SHORT, name, false);
+                        case "java.lang.Byte": return new Value(BYTE, name, false);
+                        case "java.lang.Double": return new Value(DOUBLE, name, false);
+                        case "java.lang.Float": return new Value(FLOAT, name, false);
+                        case "java.util.List":
+                            List<? extends TypeMirror> arguments = ((DeclaredType) mirror).getTypeArguments();
+                            if (arguments.size() != 1) break;
+                            Value element = value(arguments.get(0), where);
+                            return new Value(LIST, "java.util.List<" + element.type() + ">", false, null, element);
+                        default:
+                    }
+                    if (declared.getKind() == ElementKind.ENUM) {
+                        constants.computeIfAbsent(name, key -> "CONSTANTS_" + constants.size());
+                        return new Value(ENUM, name, false);
+                    }
+                    if (declared.getAnnotationMirrors().stream().anyMatch(annotation ->
+                            annotation.getAnnotationType().toString().equals(ANNOTATION))) {
+                        String codec = codecName(declared);
+                        String pkg = packageName(declared);
+                        return new Value(CODEC, name, false, pkg.isEmpty() ? codec : pkg + "." + codec, null);
+                    }
+                    break;
+                default:
+            }
+            throw new Failure("cannot bind " + mirror + ", it is not a string, char[], number, boolean, enum, "
+                    + "@JessieJson type or a list of them", where);
+        }
+
+        /* The frame reading one object of the type */
+        private void frame(StringBuilder out) throws Failure {
+            out.append("    private static final class ReadFrame extends JSONCodec.Frame<").append(typeName).append("> {\n\n");
+            if (record) {
+                for (int i = 0; i < properties.size(); i++) {
+                    out.append("        private ").append(properties.get(i).value().type()).append(" p").append(i).append(";\n\n");
+                }
+            } else {
+                out.append("        private final ").append(typeName).append(" instance = new ").append(typeName).append("();\n\n");
+            }
+            out.append("        private int property = -1;\n\n");
+            if (!properties.isEmpty()) {
+                out.append("        private final boolean[] seen = new boolean[").append(properties.size()).append("];\n\n");
+            }
+            key(out);
+            List<String[]> strings = new ArrayList<>(), longs = new ArrayList<>(), doubles = new ArrayList<>();
+            List<String[]> booleans = new ArrayList<>(), nulls = new ArrayList<>(), objects = new ArrayList<>();
+            List<String[]> lists = new ArrayList<>(), adds = new ArrayList<>();
+            for (int i = 0; i < properties.size(); i++) {
+                Property property = properties.get(i);
+                Value value = property.value();
+                String index = Integer.toString(i);
+                String target = record ? "p" + i + " = %s" : property.setter();
+                add(strings, index, target, readString(value));
+                add(longs, index, target, readLong(value));
+                add(doubles, index, target, readDouble(value));
+                add(booleans, index, target, value.sort() == BOOLEAN ? "value" : null);
+                if (!value.primitive()) add(nulls, index, target, "null");
+                if (value.sort() == CODEC) {
+                    objects.add(new String[] {index, "return " + value.codec() + ".INSTANCE.newFrame();"});
+                    add(adds, index, target, "(" + value.type() + ") value");
+                } else if (value.sort() == LIST) {
+                    lists.add(new String[] {index, "return new " + list(value, type.getSimpleName() + "." + property.name()) + "();"});
+                    add(adds, index, target, "(" + value.type() + ") value");
+                }
+            }
+            String fail = "default -> throw JSONCodec.mismatch(\"%s\", PROPERTIES[property]);";
+            event(out, "public void stringValue(char[] chars, int offset, int length)", strings, "case -1 -> { }", fail.formatted("a string"));
+            event(out, "public void numberValue(long value)", longs, "case -1 -> { }", fail.formatted("a number"));
+            event(out, "public void numberValue(double value)", doubles, "case -1 -> { }", fail.formatted("a number"));
+            event(out, "public void booleanValue(boolean value)", booleans, "case -1 -> { }", fail.formatted("a boolean"));
+            event(out, "public void nullValue()", nulls, null, "default -> { }");
+            event(out, "public JSONCodec.Frame<?> startObject()", objects, "case -1 -> { return SKIP.startObject(); }", fail.formatted("an object"));
+            event(out, "public JSONCodec.Frame<?> startList()", lists, "case -1 -> { return SKIP; }", fail.formatted("a list"));
+            if (!adds.isEmpty()) out.append("        @SuppressWarnings(\"unchecked\")\n");
+            event(out, "public void add(Object value)", adds, null, "default -> { }");
+            out.append("        @Override\n        public ").append(typeName).append(" end() {\n");
+            if (record) {
+                out.append("            return new ").append(typeName).append("(");
+                for (int i = 0; i < properties.size(); i++) out.append(i == 0 ? "p" : ", p").append(i);
+                out.append(");\n");
+            } else {
+                out.append("            return instance;\n");
+            }
+            out.append("        }\n\n    }\n\n");
+        }
+
+        /* Matches the key on its length then its chars, a key seen before is a duplicate */
+        private void key(StringBuilder out) {
+            Map<Integer, List<Integer>> lengths = new TreeMap<>();
+            for (int i = 0; i < properties.size(); i++) {
+                lengths.computeIfAbsent(properties.get(i).name().length(), key -> new ArrayList<>()).add(i);
+            }
+            out.append("        @Override\n        public void key(char[] chars, int offset, int length) {\n");
+            out.append("            property = -1;\n");
+            out.append("            switch (length) {\n");
+            for (Map.Entry<Integer, List<Integer>> entry : lengths.entrySet()) {
+                out.append("                case ").append(entry.getKey()).append(" -> {\n");
+                String keyword = "                    if";
+                for (int index : entry.getValue()) {
+                    String name = properties.get(index).name();
+                    out.append(keyword).append(" (");
+                    for (int i = 0; i < name.length(); i++) {
+                        if (i > 0) out.append("\n                            && ");
+                        out.append("chars[offset").append(i == 0 ? "" : " + " + i).append("] == ").append(literal(name.charAt(i)));
+                    }
+                    out.append(") {\n                        property = ").append(index).append(";\n                    }");
+                    keyword = " else if";
+                }
+                out.append("\n                }\n");
+            }
+            out.append("                default -> { }\n            }\n");
+            if (properties.isEmpty()) {
+                out.append("            unknownKey(chars, offset, length);\n        }\n\n");
+                return;
+            }
+            out.append("            if (property == -1) {\n");
+            out.append("                unknownKey(chars, offset, length);\n");
+            out.append("            } else if (seen[property]) {\n");
+            out.append("                throw new JSONException(\"duplicate key\");\n");
+            out.append("            } else {\n");
+            out.append("                seen[property] = true;\n");
+            out.append("            }\n        }\n\n");
+        }
+
+        /* The frame of a list of the value, named after the property in the errors */
+        private String list(Value value, String property) throws Failure {
+            String name = "ListFrame" + listCount++;
+            Value element = value.element();
+            String label = property + "[]";
+            StringBuilder out = new StringBuilder();
+            out.append("    private static final class ").append(name).append(" extends JSONCodec.Frame<").append(value.type()).append("> {\n\n");
+            out.append("        private final ").append(value.type()).append(" values = new java.util.ArrayList<>();\n\n");
+            String fail = "throw JSONCodec.mismatch(\"%s\", " + literal(label) + ");";
+            single(out, "public void stringValue(char[] chars, int offset, int length)", readString(element), fail.formatted("a string"));
+            single(out, "public void numberValue(long value)", readLong(element), fail.formatted("a number"));
+            single(out, "public void numberValue(double value)", readDouble(element), fail.formatted("a number"));
+            single(out, "public void booleanValue(boolean value)", element.sort() == BOOLEAN ? "value" : null, fail.formatted("a boolean"));
+            single(out, "public void nullValue()", "null", null);
+            String object = element.sort() == CODEC ? "return " + element.codec() + ".INSTANCE.newFrame();" : fail.formatted("an object");
+            String list = element.sort() == LIST ? "return new " + list(element, label) + "();" : fail.formatted("a list");
+            out.append("        @Override\n        public JSONCodec.Frame<?> startObject() {\n            ").append(object).append("\n        }\n\n");
+            out.append("        @Override\n        public JSONCodec.Frame<?> startList() {\n            ").append(list).append("\n        }\n\n");
+            if (element.sort() == CODEC || element.sort() == LIST) {
+                if (element.sort() == LIST) out.append("        @SuppressWarnings(\"unchecked\")\n");
+                out.append("        @Override\n        public void add(Object value) {\n");
+                out.append("            values.add((").append(element.type()).append(") value);\n        }\n\n");
+            }
+            out.append("        @Override\n        public ").append(value.type()).append(" end() {\n            return values;\n        }\n\n    }\n\n");
+            lists.append(out);
+            return name;
+        }
+
+        private static void add(List<String[]> cases, String index, String target, String read) {
+            if (read != null) cases.add(new String[] {index, target.formatted(read) + ";"});
+        }
+
+        private static void event(StringBuilder out, String signature, List<String[]> cases, String unknown, String otherwise) {
+            boolean returns = !signature.startsWith("public void");
+            out.append("        @Override\n        ").append(signature).append(" {\n");
+            out.append("            switch (property) {\n");
+            for (String[] entry : cases) {
+                out.append("                case ").append(entry[0]).append(returns ? " -> { " : " -> ")
+                        .append(entry[1]).append(returns ? " }\n" : "\n");
+            }
+            if (unknown != null) out.append("                ").append(unknown).append("\n");
+            out.append("                ").append(otherwise).append("\n            }\n");
+            out.append("        }\n\n");
+        }
+
+        private static void single(StringBuilder out, String signature, String read, String fail) {
+            out.append("        @Override\n        ").append(signature).append(" {\n            ");
+            out.append(read != null ? "values.add(" + read + ");" : fail).append("\n        }\n\n");
+        }
+
+        private String readString(Value value) {
+            return switch (value.sort()) {
+                case STRING -> "new String(chars, offset, length)";
+                case CHARS -> "java.util.Arrays.copyOfRange(chars, offset, offset + length)";
+                case ENUM -> "JSONCodec.constant(" + constants.get(value.type()) + ", chars, offset, length)";
+                default -> null;
+            };
+        }
+
+        private static String readLong(Value value) {
+            return switch (value.sort()) {
+                case INT -> "JSONCodec.toInt(value)";
+                case SHORT -> "JSONCodec.toShort(value)";
+                case BYTE -> "JSONCodec.toByte(value)";
+                case LONG -> "value";
+                case DOUBLE -> "(double) value";
+                case FLOAT -> "(float) value";
+                default -> null;
+            };
+        }
+
+        private static String readDouble(Value value) {
+            return switch (value.sort()) {
+                case INT -> "JSONCodec.toInt(value)";
+                case SHORT -> "JSONCodec.toShort(value)";
+                case BYTE -> "JSONCodec.toByte(value)";
+                case LONG -> "JSONCodec.toLong(value)";
+                case DOUBLE -> "value";
+                case FLOAT -> "(float) value";
+                default -> null;
+            };
+        }
+
+        /* Writes the value of the expression, evaluated once */
+        private void write(StringBuilder out, String indent, Value value, String expression) {
+            if (value.primitive()) {
+                out.append(indent).append("writer.value(").append(expression).append(");\n");
+                return;
+            }
+            String local = "v" + localCount++;
+            out.append(indent).append(value.type()).append(' ').append(local).append(" = ").append(expression).append(";\n");
+            out.append(indent).append("if (").append(local).append(" == null) {\n");
+            out.append(indent).append("    writer.nullValue();\n");
+            out.append(indent).append("} else {\n");
+            String inner = indent + "    ";
+            switch (value.sort()) {
+                case STRING, CHARS -> out.append(inner).append("writer.value(").append(local).append(");\n");
+                case BOOLEAN -> out.append(inner).append("writer.value(").append(local).append(".booleanValue());\n");
+                case INT, LONG, SHORT, BYTE -> out.append(inner).append("writer.value(").append(local).append(".longValue());\n");
+                case DOUBLE, FLOAT -> out.append(inner).append("writer.value(").append(local).append(".doubleValue());\n");
+                case ENUM -> out.append(inner).append("writer.value(").append(local).append(".name());\n");
+                case CODEC -> out.append(inner).append(value.codec()).append(".INSTANCE.write(writer, ").append(local).append(");\n");
+                default -> {
+                    String element = "e" + localCount++;
+                    out.append(inner).append("writer.beginList();\n");
+                    out.append(inner).append("for (").append(value.element().type()).append(' ').append(element).append(" : ").append(local).append(") {\n");
+                    write(out, inner + "    ", value.element(), element);
+                    out.append(inner).append("}\n");
+                    out.append(inner).append("writer.endList();\n");
+                }
+            }
+            out.append(indent).append("}\n");
+        }
+
+    }
+
+}
@@ -15,6 +15,7 @@
  */
 package tech.tryangle.jessie.util;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 public class CharArrayBuilder {
@@ -26,9 +27,14 @@ public class CharArrayBuilder {
     private int maxSize;
 
     public CharArrayBuilder() {
-        this.array = new char[1];
+        this(1);
+    }
+
+    public CharArrayBuilder(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+        this.array = new char[capacity];
         this.size = 0;
-        this.maxSize = 1;
+        this.maxSize = capacity;
     }
 
     public void add(char value) {
@@ -49,6 +55,38 @@ public class CharArrayBuilder {
         }
     }
 
+    public void add(char[] value, int offset, int length) {
+        while (size + length > maxSize) {
+            growSize();
+        }
+        System.arraycopy(value, offset, array, size, length);
+        size += length;
+    }
+
+    /* Adds ASCII bytes, each one widened to a char */
+    public void addAscii(ByteBuffer value, int offset, int length) {
+        while (size + length > maxSize) {
+            growSize();
+        }
+        for (int i = 0; i < length; i++) {
+            array[size + i] = (char) value.get(offset + i);
+        }
+        size += length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return maxSize;
+    }
+
+    /* The backing array, only its first size() chars belong to the content */
+    public char[] buffer() {
+        return array;
+    }
+
     public char[] asCharArray() {
         char[] copy = new char[size];
         System.arraycopy(array, 0, copy, 0, size);
@@ -69,8 +107,9 @@ public class CharArrayBuilder {
         maxSize = newSize;
     }
 
+    /* Wipes the chars added since the last clear, nothing past them was ever written */
     public void clear() {
-        Arrays.fill(array, '\0');
+        Arrays.fill(array, 0, size, '\0');
         size = 0;
     }
 
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.util;
+
+import java.nio.ByteBuffer;
+
+/*
+ * Finds the chars the JSON scanners stop at, using the Vector API when the jdk.incubator.vector module
+ * is available (--add-modules jdk.incubator.vector) and plain loops otherwise, the vector path can be
+ * turned off with -Dtech.tryangle.jessie.vector=false
+ */
+public class CharScanner {
+
+    /* Runs shorter than this are not worth a vector load */
+    private static final int VECTOR_THRESHOLD = 16;
+
+    private static final boolean VECTORIZED = vectorAvailable();
+
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /* The index of the first quote or backslash in the range, or the end of the range */
+    public static int indexOfQuoteOrBackslash(char[] chars, int from, int to) {
+        if (VECTORIZED && to - from >= VECTOR_THRESHOLD) return VectorScanner.indexOfQuoteOrBackslash(chars, from, to);
+        for (int i = from; i < to; i++) {
+            char current = chars[i];
+            if (current == '"' || current == '\\') return i;
+        }
+        return to;
+    }
+
+    /* The index of the first quote, backslash or non-ASCII byte in the range, or the end of the range */
+    public static int indexOfQuoteBackslashOrNonAscii(ByteBuffer bytes, int from, int to) {
+        if (VECTORIZED && bytes.hasArray() && to - from >= VECTOR_THRESHOLD) {
+            int offset = bytes.arrayOffset();
+            return VectorScanner.indexOfQuoteBackslashOrNonAscii(bytes.array(), offset + from, offset + to) - offset;
+        }
+        for (int i = from; i < to; i++) {
+            byte current = bytes.get(i);
+            if (current == '"' || current == '\\' || current < 0) return i;
+        }
+        return to;
+    }
+
+    /* The index of the first char that is not a space, tab or line break in the range, or the end of the range */
+    public static int skipWhitespace(char[] chars, int from, int to) {
+        if (VECTORIZED && to - from >= VECTOR_THRESHOLD) return VectorScanner.skipWhitespace(chars, from, to);
+        for (int i = from; i < to; i++) {
+            char current = chars[i];
+            if (current != ' ' && current != '\n' && current != '\r' && current != '\t') return i;
+        }
+        return to;
+    }
+
+    private static boolean vectorAvailable() {
+        if ("false".equals(System.getProperty("tech.tryangle.jessie.vector"))) return false;
+        try {
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return false;
+            return VectorScanner.isUsable();
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+}
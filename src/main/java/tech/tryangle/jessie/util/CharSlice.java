@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.util;
+
+import java.util.Arrays;
+
+/*
+ * A range of chars of a source array that is referenced instead of copied, the source array owner
+ * stays responsible for clearing it (clearing the source clears every slice of it)
+ */
+public final class CharSlice implements CharSequence {
+
+    private final char[] source;
+
+    private final int offset;
+
+    private final int length;
+
+    public CharSlice(char[] source, int offset, int length) {
+        if (source == null) throw new NullPointerException("source must not be null");
+        if (offset < 0 || length < 0 || offset + length > source.length) throw new IndexOutOfBoundsException("range out of the source");
+        this.source = source;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public char[] getSource() {
+        return source;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) throw new IndexOutOfBoundsException(index);
+        return source[offset + index];
+    }
+
+    @Override
+    public CharSlice subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) throw new IndexOutOfBoundsException("range out of the slice");
+        return new CharSlice(source, offset + start, end - start);
+    }
+
+    /* A copy of the chars (the caller is responsible for clearing it) */
+    public char[] toCharArray() {
+        return Arrays.copyOfRange(source, offset, offset + length);
+    }
+
+    /* Copies the chars into the destination, returns the number of chars copied */
+    public int copyTo(char[] destination, int destinationOffset) {
+        System.arraycopy(source, offset, destination, destinationOffset, length);
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return new String(source, offset, length);
+    }
+
+}
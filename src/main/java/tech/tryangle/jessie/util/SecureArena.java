@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.util;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Off-heap storage for secure chars, out of reach of the garbage collector (it never copies them around) and
+ * of its scanning. Chars are kept in direct buffers carved into SecureChars values, each one can be zeroed on
+ * its own and closing the arena zeroes all of them at once, after which none can be read anymore.
+ * (java.lang.foreign arenas are still a preview in Java 21, direct buffers give the same guarantees here)
+ */
+public final class SecureArena implements Closeable {
+
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+    private static final byte[] ZEROS = new byte[4096];
+
+    private final int chunkSize;
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+
+    private ByteBuffer current = null;
+
+    private volatile boolean closed = false;
+
+    public SecureArena() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /* An arena that reserves off-heap memory in chunks of the size (in bytes), bigger values get their own */
+    public SecureArena(int chunkSize) {
+        if (chunkSize < 16) throw new IllegalArgumentException("chunk size must be at least 16");
+        this.chunkSize = chunkSize;
+    }
+
+    /* Copies the chars off the heap, the caller stays responsible for clearing the source */
+    public synchronized SecureChars allocate(char[] chars, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > chars.length) throw new IndexOutOfBoundsException("range out of the chars");
+        ByteBuffer storage = reserve(length << 1);
+        for (int i = 0; i < length; i++) storage.putChar(i << 1, chars[offset + i]);
+        return new SecureChars(this, storage, length);
+    }
+
+    /* Copies the chars of the storage into new storage of the arena, they never go through the heap */
+    synchronized SecureChars copy(ByteBuffer source, int length) {
+        ByteBuffer storage = reserve(length << 1);
+        storage.put(0, source, 0, length << 1);
+        return new SecureChars(this, storage, length);
+    }
+
+    private ByteBuffer reserve(int bytes) {
+        if (closed) throw new IllegalStateException("arena already closed");
+        if (bytes > chunkSize) {
+            ByteBuffer storage = ByteBuffer.allocateDirect(bytes);
+            chunks.add(storage);
+            return storage;
+        }
+        if (current == null || current.remaining() < bytes) {
+            current = ByteBuffer.allocateDirect(chunkSize);
+            chunks.add(current);
+        }
+        ByteBuffer storage = current.slice(current.position(), bytes);
+        current.position(current.position() + bytes);
+        return storage;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /* Zeroes every value of the arena, none can be read afterwards */
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        for (ByteBuffer chunk : chunks) zero(chunk);
+        chunks.clear();
+        current = null;
+    }
+
+    static void zero(ByteBuffer storage) {
+        for (int i = 0; i < storage.capacity(); i += ZEROS.length) {
+            storage.put(i, ZEROS, 0, Math.min(ZEROS.length, storage.capacity() - i));
+        }
+    }
+
+}
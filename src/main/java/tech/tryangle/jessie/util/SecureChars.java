@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.util;
+
+import java.nio.ByteBuffer;
+
+/*
+ * Chars kept off the heap by a secure arena, they can only be read by copying them into a buffer
+ * of the caller (who is responsible for clearing it) or char by char
+ */
+public final class SecureChars {
+
+    private final SecureArena arena;
+
+    private final ByteBuffer storage;
+
+    private final int length;
+
+    private volatile boolean cleared = false;
+
+    SecureChars(SecureArena arena, ByteBuffer storage, int length) {
+        this.arena = arena;
+        this.storage = storage;
+        this.length = length;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public char charAt(int index) {
+        checkReadable();
+        if (index < 0 || index >= length) throw new IndexOutOfBoundsException(index);
+        return storage.getChar(index << 1);
+    }
+
+    /* Copies the chars into the destination, returns the number of chars copied */
+    public int copyTo(char[] destination, int destinationOffset) {
+        checkReadable();
+        if (destinationOffset < 0 || destinationOffset + length > destination.length) throw new IndexOutOfBoundsException("range out of the destination");
+        for (int i = 0; i < length; i++) destination[destinationOffset + i] = storage.getChar(i << 1);
+        return length;
+    }
+
+    /* A heap copy of the chars (the caller is responsible for clearing it) */
+    public char[] toCharArray() {
+        char[] chars = new char[length];
+        copyTo(chars, 0);
+        return chars;
+    }
+
+    /* A copy in the same arena that is cleared on its own, clearing either one leaves the other readable */
+    public SecureChars copy() {
+        checkReadable();
+        return arena.copy(storage, length);
+    }
+
+    /* Zeroes the chars, they can't be read afterwards */
+    public void clear() {
+        cleared = true;
+        SecureArena.zero(storage);
+    }
+
+    public boolean isCleared() {
+        return cleared || arena.isClosed();
+    }
+
+    @Override
+    public String toString() {
+        return "Secure:XYZ";
+    }
+
+    private void checkReadable() {
+        if (cleared) throw new IllegalStateException("chars already cleared");
+        if (arena.isClosed()) throw new IllegalStateException("arena already closed");
+    }
+
+}
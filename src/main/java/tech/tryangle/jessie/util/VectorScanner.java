@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2024 Serghei Sergheev Botnari (under the TRYANGLE trademark)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.tryangle.jessie.util;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/* The Vector API side of the char scanner, only loaded when the incubator module is present */
+final class VectorScanner {
+
+    private static final VectorSpecies<Short> CHARS = ShortVector.SPECIES_PREFERRED;
+
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+
+    /* Vectors narrower than 128 bits (e.g. no SIMD support) would be slower than the plain loops */
+    static boolean isUsable() {
+        return CHARS.vectorBitSize() >= 128;
+    }
+
+    static int indexOfQuoteOrBackslash(char[] chars, int from, int to) {
+        int i = from;
+        int bound = from + CHARS.loopBound(to - from);
+        for (; i < bound; i += CHARS.length()) {
+            ShortVector vector = ShortVector.fromCharArray(CHARS, chars, i);
+            VectorMask<Short> mask = vector.eq((short) '"').or(vector.eq((short) '\\'));
+            if (mask.anyTrue()) return i + mask.firstTrue();
+        }
+        for (; i < to; i++) {
+            char current = chars[i];
+            if (current == '"' || current == '\\') return i;
+        }
+        return to;
+    }
+
+    static int indexOfQuoteBackslashOrNonAscii(byte[] bytes, int from, int to) {
+        int i = from;
+        int bound = from + BYTES.loopBound(to - from);
+        for (; i < bound; i += BYTES.length()) {
+            ByteVector vector = ByteVector.fromArray(BYTES, bytes, i);
+            VectorMask<Byte> mask = vector.eq((byte) '"').or(vector.eq((byte) '\\')).or(vector.lt((byte) 0));
+            if (mask.anyTrue()) return i + mask.firstTrue();
+        }
+        for (; i < to; i++) {
+            byte current = bytes[i];
+            if (current == '"' || current == '\\' || current < 0) return i;
+        }
+        return to;
+    }
+
+    static int skipWhitespace(char[] chars, int from, int to) {
+        int i = from;
+        int bound = from + CHARS.loopBound(to - from);
+        for (; i < bound; i += CHARS.length()) {
+            ShortVector vector = ShortVector.fromCharArray(CHARS, chars, i);
+            VectorMask<Short> blank = vector.eq((short) ' ').or(vector.eq((short) '\n')).or(vector.eq((short) '\r')).or(vector.eq((short) '\t'));
+            if (!blank.allTrue()) return i + blank.not().firstTrue();
+        }
+        for (; i < to; i++) {
+            char current = chars[i];
+            if (current != ' ' && current != '\n' && current != '\r' && current != '\t') return i;
+        }
+        return to;
+    }
+
+}
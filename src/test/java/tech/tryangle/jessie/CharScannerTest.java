@@ -0,0 +1,48 @@
+package tech.tryangle.jessie;
+
+import junit.framework.TestCase;
+import tech.tryangle.jessie.json.JSONEntity;
+import tech.tryangle.jessie.json.JSONParser;
+import tech.tryangle.jessie.util.CharScanner;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class CharScannerTest extends TestCase {
+
+    public void testIndexOfQuoteOrBackslash() {
+        for (int length = 0; length < 100; length++) {
+            char[] chars = "a".repeat(length).concat("\"b\\").toCharArray();
+            assertEquals(length, CharScanner.indexOfQuoteOrBackslash(chars, 0, chars.length));
+            assertEquals(length + 2, CharScanner.indexOfQuoteOrBackslash(chars, length + 1, chars.length));
+            assertEquals(length, CharScanner.indexOfQuoteOrBackslash(chars, 0, length));
+        }
+    }
+
+    public void testIndexOfQuoteBackslashOrNonAscii() {
+        for (int length = 0; length < 100; length++) {
+            byte[] bytes = "a".repeat(length).concat("ñ\"").getBytes(StandardCharsets.UTF_8);
+            assertEquals(length, CharScanner.indexOfQuoteBackslashOrNonAscii(ByteBuffer.wrap(bytes), 0, bytes.length));
+            ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes);
+            assertEquals(length, CharScanner.indexOfQuoteBackslashOrNonAscii(direct, 0, bytes.length));
+        }
+    }
+
+    public void testSkipWhitespace() {
+        for (int length = 0; length < 100; length++) {
+            char[] chars = " \n\r\t".repeat(length).concat("x").toCharArray();
+            assertEquals(length * 4, CharScanner.skipWhitespace(chars, 0, chars.length));
+        }
+    }
+
+    public void testParseLongStrings() {
+        String text = "lorem ipsum dolor sit amet ".repeat(40);
+        String json = "{\n    \"text\": \"" + text + "\\n" + text + "\",\n    \"ñ\": \"" + text + "ñ" + text + "\"\n}";
+        JSONEntity fromChars = JSONParser.parseJson(json.toCharArray());
+        JSONEntity fromBytes = JSONParser.parseJson(json.getBytes(StandardCharsets.UTF_8));
+        assertEquals(text + "\n" + text, fromChars.get("text", String.class));
+        assertEquals(text + "\n" + text, fromBytes.get("text", String.class));
+        assertEquals(text + "ñ" + text, fromBytes.get("ñ", String.class));
+    }
+
+}
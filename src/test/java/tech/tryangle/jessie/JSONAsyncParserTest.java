@@ -0,0 +1,117 @@
+package tech.tryangle.jessie;
+
+import junit.framework.TestCase;
+import tech.tryangle.jessie.json.JSONAsyncParser;
+import tech.tryangle.jessie.json.JSONEntity;
+import tech.tryangle.jessie.json.JSONException;
+import tech.tryangle.jessie.json.JSONHandler;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThrows;
+
+public class JSONAsyncParserTest extends TestCase {
+
+    private static final String FILE_NAME = "samples.txt";
+
+    /*
+    ➔ When feeding every sample one byte at a time, then...
+    ➔ Expect the result to match the original json
+    ➔ Expect no error to be thrown
+     */
+    public void testFeedByteByByte() throws Exception {
+        InputStream inputStream = ClassLoader.getSystemClassLoader().getResourceAsStream(FILE_NAME);
+        assertNotNull(inputStream);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+                byte[] bytes = trimmed.getBytes(StandardCharsets.UTF_8);
+                JSONAsyncParser parser = new JSONAsyncParser();
+                for (byte current : bytes) {
+                    parser.feed(ByteBuffer.wrap(new byte[] { current }));
+                }
+                parser.end();
+                assertTrue(parser.isDone());
+                assertArrayEquals(trimmed.toCharArray(), parser.getResult().toCharArray());
+            }
+        }
+    }
+
+    /*
+    ➔ When feeding chunks split in the middle of escapes, multi-byte chars and numbers, then...
+    ➔ Expect the values to be resumed correctly
+    ➔ Expect the document to be done once its last bracket arrives
+     */
+    public void testFeedSplitTokens() {
+        byte[] bytes = "{\"name\":\"j\\u00e4ck 😀\",\"age\":1234,\"ok\":false}".getBytes(StandardCharsets.UTF_8);
+        JSONAsyncParser parser = new JSONAsyncParser();
+        parser.feed(bytes, 0, 13);
+        parser.feed(bytes, 13, 9);
+        assertFalse(parser.isDone());
+        assertNull(parser.getResult());
+        parser.feed(bytes, 22, 12);
+        parser.feed(bytes, 34, bytes.length - 34);
+        assertTrue(parser.isDone());
+        JSONEntity json = parser.getResult();
+        assertEquals("jäck 😀", json.get("name", String.class));
+        assertEquals(1234, json.get("age", Integer.class).intValue());
+        assertFalse(json.get("ok", Boolean.class));
+    }
+
+    /*
+    ➔ When feeding a handler, then...
+    ➔ Expect events to be emitted as soon as they are complete
+     */
+    public void testFeedHandler() {
+        AtomicInteger values = new AtomicInteger();
+        JSONAsyncParser parser = new JSONAsyncParser(new JSONHandler() {
+            @Override public void numberValue(long value) { values.incrementAndGet(); }
+        });
+        parser.feed("[1,2,".getBytes(StandardCharsets.UTF_8));
+        assertEquals(2, values.get());
+        parser.feed("3]".getBytes(StandardCharsets.UTF_8));
+        assertEquals(3, values.get());
+        parser.end();
+    }
+
+    /*
+    ➔ When the input is truncated or malformed, then...
+    ➔ Expect an error to be thrown
+     */
+    public void testMalformed() {
+        JSONAsyncParser truncated = new JSONAsyncParser();
+        truncated.feed("{\"a\":\"b".getBytes(StandardCharsets.UTF_8));
+        assertThrows(JSONException.class, truncated::end);
+        JSONAsyncParser unbalanced = new JSONAsyncParser();
+        unbalanced.feed("[1,[2]".getBytes(StandardCharsets.UTF_8));
+        assertThrows(JSONException.class, unbalanced::end);
+        JSONAsyncParser invalid = new JSONAsyncParser();
+        assertThrows(JSONException.class, () -> invalid.feed("[1,]".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /*
+    ➔ When the handler throws while a string is handed to it, then...
+    ➔ Expect the error to go through and the buffered chars to be wiped
+     */
+    public void testHandlerFailureWipes() {
+        char[][] seen = new char[1][];
+        JSONAsyncParser parser = new JSONAsyncParser(new JSONHandler() {
+            @Override
+            public void stringValue(char[] chars, int offset, int length) {
+                seen[0] = chars;
+                throw new IllegalStateException("rejected");
+            }
+        });
+        assertThrows(IllegalStateException.class, () -> parser.feed("[\"secret\"]".getBytes(StandardCharsets.UTF_8)));
+        assertArrayEquals(new char[6], Arrays.copyOf(seen[0], 6));
+    }
+
+}
@@ -0,0 +1,200 @@
+package tech.tryangle.jessie;
+
+import junit.framework.TestCase;
+import tech.tryangle.jessie.json.JSONEntity;
+import tech.tryangle.jessie.json.JSONException;
+import tech.tryangle.jessie.json.JSONMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThrows;
+
+
+import junit.framework.TestCase;
+import tech.tryangle.jessie.json.JSONException;
+import tech.tryangle.jessie.json.JSONMapper;
+import tech.tryangle.jessie.json.JessieJson;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class JSONCodecTest extends TestCase {
+
+    enum Kind { BOOK, FILM }
+
+    @JessieJson
+    record Item(String sku, int count, Kind kind, Double price) {}
+
+    @JessieJson
+    record Order(long id, String customer, char[] note, boolean paid, float discount, short priority, byte flags,
+                 Item item, List<Item> items, List<List<Integer>> matrix, List<Kind> kinds) {}
+
+    @JessieJson
+    public static class Invoice {
+
+        private String number;
+
+        long total;
+
+        transient int setterCalls = 0;
+
+        public String getNumber() {
+            return number;
+        }
+
+        public void setNumber(String number) {
+            this.number = number;
+            setterCalls++;
+        }
+
+    }
+
+    public abstract static class Document {
+
+        private String issuer;
+
+        int year;
+
+        public String getIssuer() {
+            return issuer;
+        }
+
+        public void setIssuer(String issuer) {
+            this.issuer = issuer;
+        }
+
+    }
+
+    @JessieJson
+    public static class Receipt extends Document {
+
+        double amount;
+
+    }
+
+    /*
+    ➔ When reading with a generated codec, then...
+    ➔ Expect each property bound to its declared type
+    ➔ Expect unknown keys to be skipped and missing ones to be null (or zero)
+     */
+    public void testRead() {
+        String json = "{\"id\":12345678901,\"customer\":\"Ann\",\"unknown\":{\"deep\":[1,{\"x\":2}]},\"note\":\"fragile\","
+                + "\"paid\":true,\"discount\":0.5,\"priority\":3,\"flags\":1e1,\"item\":{\"sku\":\"A-1\",\"count\":2,\"kind\":\"BOOK\"},"
+                + "\"items\":[{\"sku\":\"B\",\"price\":9},null],\"matrix\":[[1,2],[],[3]],\"kinds\":[\"FILM\",null]}";
+        Order order = JSONCodecTest_OrderJSONCodec.INSTANCE.read(json.getBytes(StandardCharsets.UTF_8));
+        assertEquals(12345678901L, order.id());
+        assertEquals("Ann", order.customer());
+        assertArrayEquals("fragile".toCharArray(), order.note());
+        assertTrue(order.paid());
+        assertEquals(0.5f, order.discount());
+        assertEquals(3, order.priority());
+        assertEquals(10, order.flags());
+        assertEquals(new Item("A-1", 2, Kind.BOOK, null), order.item());
+        assertEquals(new Item("B", 0, null, 9.0), order.items().get(0));
+        assertNull(order.items().get(1));
+        assertEquals(List.of(List.of(1, 2), List.of(), List.of(3)), order.matrix());
+        assertEquals(Kind.FILM, order.kinds().get(0));
+        assertNull(order.kinds().get(1));
+        assertNull(JSONCodecTest_OrderJSONCodec.INSTANCE.read("null".toCharArray()));
+
+        Invoice invoice = JSONCodecTest_InvoiceJSONCodec.INSTANCE.read("{\"total\":42,\"number\":\"N-7\"}".toCharArray());
+        assertEquals("N-7", invoice.getNumber());
+        assertEquals(1, invoice.setterCalls);
+        assertEquals(42, invoice.total);
+    }
+
+    /*
+    ➔ When reading and writing a class extending another one, then...
+    ➔ Expect the inherited fields to be properties too, before the declared ones
+     */
+    public void testInheritedProperties() {
+        Receipt receipt = JSONCodecTest_ReceiptJSONCodec.INSTANCE.read("{\"amount\":9.5,\"issuer\":\"Ann\",\"year\":2024}".toCharArray());
+        assertEquals("Ann", receipt.getIssuer());
+        assertEquals(2024, receipt.year);
+        assertEquals(9.5, receipt.amount);
+        assertEquals("{\"issuer\":\"Ann\",\"year\":2024,\"amount\":9.5}", String.valueOf(JSONCodecTest_ReceiptJSONCodec.INSTANCE.write(receipt)));
+    }
+
+    /*
+    ➔ When writing with a generated codec and reading back, then...
+    ➔ Expect the properties in declaration order and the same values
+     */
+    public void testWriteAndReadBack() {
+        Order order = new Order(1, "Zoë \"Z\"", null, false, 1.5f, (short) 2, (byte) 0, new Item("X", 1, Kind.FILM, 2.5),
+                List.of(new Item("Y", 0, null, null)), List.of(List.of(7)), List.of(Kind.BOOK));
+        char[] json = JSONCodecTest_OrderJSONCodec.INSTANCE.write(order);
+        assertEquals("{\"id\":1,\"customer\":\"Zoë \\\"Z\\\"\",\"note\":null,\"paid\":false,\"discount\":1.5,\"priority\":2,"
+                + "\"flags\":0,\"item\":{\"sku\":\"X\",\"count\":1,\"kind\":\"FILM\",\"price\":2.5},"
+                + "\"items\":[{\"sku\":\"Y\",\"count\":0,\"kind\":null,\"price\":null}],\"matrix\":[[7]],\"kinds\":[\"BOOK\"]}",
+                String.valueOf(json));
+        assertEquals(order.items(), JSONCodecTest_OrderJSONCodec.INSTANCE.read(json).items());
+
+        Invoice invoice = new Invoice();
+        invoice.setNumber("N-1");
+        invoice.total = -3;
+        assertEquals("{\"number\":\"N-1\",\"total\":-3}", String.valueOf(JSONCodecTest_InvoiceJSONCodec.INSTANCE.write(invoice)));
+    }
+
+    /*
+    ➔ When reading values that do not fit, then...
+    ➔ Expect errors naming the property
+     */
+    public void testMismatch() {
+        assertError("{\"count\":\"two\"}", "cannot bind a string to Item.count");
+        assertError("{\"count\":1.5}", "cannot bind a decimal to an integer");
+        assertError("{\"count\":3000000000}", "numeric out of range");
+        assertError("{\"kind\":\"TOY\"}", "unknown constant of tech.tryangle.jessie.JSONCodecTest$Kind");
+        assertError("{\"sku\":[]}", "cannot bind a list to Item.sku");
+        assertError("[]", "cannot bind a list");
+        assertError("{\"count\":9.223372036854775808e18}", "cannot bind a decimal to an integer");
+        Order order = JSONCodecTest_OrderJSONCodec.INSTANCE.read("{\"id\":-9.223372036854775808e18}".toCharArray());
+        assertEquals(Long.MIN_VALUE, order.id());
+        assertThrows(JSONException.class, () -> JSONCodecTest_OrderJSONCodec.INSTANCE.read("{\"id\":9.223372036854775808e18}".toCharArray()));
+    }
+
+    /*
+    ➔ When reading an object with a key given twice, then...
+    ➔ Expect a duplicate key error, for properties, unknown keys and skipped objects alike
+    ➔ Expect the same key in different objects to be accepted
+     */
+    public void testDuplicateKeys() {
+        assertError("{\"sku\":\"A\",\"sku\":\"B\"}", "duplicate key");
+        assertError("{\"x\":1,\"count\":2,\"x\":3}", "duplicate key");
+        assertError("{\"x\":{\"y\":[{\"z\":1,\"z\":2}]}}", "duplicate key");
+        assertEquals(new Item("A", 0, null, null), JSONCodecTest_ItemJSONCodec.INSTANCE.read("{\"x\":{\"y\":1},\"y\":{\"x\":2},\"sku\":\"A\"}".toCharArray()));
+    }
+
+    /*
+    ➔ When the mapper reads or writes a @JessieJson type, then...
+    ➔ Expect the generated codec to do it (its errors name the property)
+     */
+    public void testMapperUsesCodec() {
+        List<Item> items = new ArrayList<>(List.of(new Item("A", 1, Kind.BOOK, 1.0)));
+        Item[] read = JSONMapper.read(JSONMapper.write(items), Item[].class);
+        assertEquals(items, List.of(read));
+        try {
+            JSONMapper.read("[{\"count\":\"x\"}]".toCharArray(), Item[].class);
+            fail();
+        } catch (JSONException e) {
+            assertEquals("cannot bind a string to Item.count", e.getMessage());
+        }
+    }
+
+    private static void assertError(String json, String message) {
+        try {
+            JSONCodecTest_ItemJSONCodec.INSTANCE.read(json.toCharArray());
+            fail();
+        } catch (JSONException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+}
@@ -2,11 +2,22 @@ package tech.tryangle.jessie;
 
 import junit.framework.TestCase;
 import tech.tryangle.jessie.json.JSONEntity;
+import tech.tryangle.jessie.json.JSONException;
 import tech.tryangle.jessie.json.JSONParser;
+import tech.tryangle.jessie.json.JSONParserOptions;
+import tech.tryangle.jessie.json.JSONPath;
+import tech.tryangle.jessie.util.CharSlice;
+import tech.tryangle.jessie.util.SecureArena;
+import tech.tryangle.jessie.util.SecureChars;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Set;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThrows;
 
 public class JSONEntityTest extends TestCase {
 
@@ -94,4 +105,261 @@ public class JSONEntityTest extends TestCase {
         assertNull(four);
     }
 
+    /*
+    ➔ When parsing the json lazily, then...
+    ➔ Expect typed lookups and resolve to read from the index
+    ➔ Expect the untyped accessors to match the eager parse
+    ➔ Expect duplicate keys to be rejected as the eager parse does
+     */
+    public void testParseLazy() {
+        char[] raw = "{\"party\":{\"token\":{\"pass\\\"word\":\"12\\n3\"}},\"ages\":[35,45.5,{\"x\":null}],\"ok\":true}".toCharArray();
+        JSONEntity json = JSONParser.parseLazy(raw);
+        assertEquals(3, json.size());
+        assertTrue(json.has("ok"));
+        assertFalse(json.has("missing"));
+        assertEquals("12\n3", json.resolve("party.token.pass\"word", String.class));
+        assertTrue(json.get("ok", Boolean.class));
+        JSONEntity ages = json.get("ages", JSONEntity.class);
+        assertSame(ages, json.get("ages", JSONEntity.class));
+        assertEquals(3, ages.size());
+        List<Object> list = ages.getList();
+        assertEquals(35, list.get(0));
+        assertEquals(45.5d, list.get(1));
+        assertArrayEquals(JSONParser.parseJson(raw).toCharArray(), json.toCharArray());
+        StringBuilder many = new StringBuilder("[");
+        for (int i = 0; i < 5000; i++) many.append(i == 0 ? "" : ",").append(i);
+        JSONEntity numbers = JSONParser.parseLazy(many.append(']').toString().toCharArray());
+        for (int i = 0; i < 5000; i++) assertEquals(i, numbers.getElement(i, Integer.class).intValue());
+        for (String duplicated : List.of("{\"a\":1,\"a\":2}", "[{\"b\":{},\"a\":[],\"b\":3}]", "{\"a\":1,\"\\u0061\":2}")) {
+            JSONException lazy = assertThrows(JSONException.class, () -> JSONParser.parseLazy(duplicated.toCharArray()));
+            JSONException eager = assertThrows(JSONException.class, () -> JSONParser.parseJson(duplicated.toCharArray()));
+            assertEquals(eager.getMessage(), lazy.getMessage());
+        }
+    }
+
+    /*
+    ➔ When parsing the json with zero-copy strings, then...
+    ➔ Expect unescaped strings to be slices of the input and escaped ones to be copies
+    ➔ Expect clearing the input to clear the slices
+     */
+    public void testParseZeroCopyStrings() {
+        char[] raw = "{\"name\":\"jack\",\"bio\":\"a\\nb\",\"tags\":[\"x\",\"42\"]}".toCharArray();
+        JSONEntity json = JSONParser.parseJson(raw, JSONParserOptions.defaults().withZeroCopyStrings(true));
+        assertTrue(json.get("name") instanceof CharSlice);
+        assertTrue(json.get("bio") instanceof char[]);
+        assertEquals("jack", json.get("name", String.class));
+        assertArrayEquals("jack".toCharArray(), json.get("name", char[].class));
+        assertEquals("a\nb", json.get("bio", String.class));
+        JSONEntity tags = json.get("tags", JSONEntity.class);
+        assertEquals(List.of("x", "42"), tags.getList(String.class));
+        assertEquals(42, tags.getElement(1, Integer.class).intValue());
+        assertArrayEquals(JSONParser.parseJson(raw).toCharArray(), json.toCharArray());
+        Arrays.fill(raw, '\0');
+        assertEquals("\0\0\0\0", json.get("name", String.class));
+    }
+
+    /*
+    ➔ When parsing numeric lists, then...
+    ➔ Expect integers and decimals to be read as primitive arrays and iterators
+    ➔ Expect the list to keep its boxed view and to accept other values
+     */
+    public void testParseNumericList() {
+        JSONEntity json = JSONParser.parseJson("{\"ids\":[1,-2,10000000000],\"temps\":[1.5,-0.25],\"mixed\":[1,2.5]}".toCharArray());
+        JSONEntity ids = json.get("ids", JSONEntity.class);
+        assertArrayEquals(new long[] { 1, -2, 10000000000L }, ids.getLongArray());
+        assertEquals(List.of(1, -2, 10000000000L), ids.getList());
+        PrimitiveIterator.OfLong longs = ids.getLongIterator();
+        assertEquals(1, longs.nextLong());
+        assertEquals(-2, longs.nextLong());
+        assertEquals(10000000000L, longs.nextLong());
+        assertFalse(longs.hasNext());
+        JSONEntity temps = json.get("temps", JSONEntity.class);
+        assertArrayEquals(new double[] { 1.5, -0.25 }, temps.getDoubleArray(), 0);
+        assertThrows(JSONException.class, temps::getLongArray);
+        PrimitiveIterator.OfDouble doubles = json.get("mixed", JSONEntity.class).getDoubleIterator();
+        assertEquals(1.0, doubles.nextDouble());
+        assertEquals(2.5, doubles.nextDouble());
+        ids.addToList("x");
+        assertEquals(List.of(1, -2, 10000000000L, "x"), ids.getList());
+        assertThrows(JSONException.class, ids::getDoubleArray);
+        assertArrayEquals("{\"ids\":[1,-2,10000000000,\"x\"],\"temps\":[1.5,-0.25],\"mixed\":[1,2.5]}".toCharArray(), json.toCharArray());
+        json.clear();
+        assertEquals(Arrays.asList(null, null), temps.getList());
+        assertNull(json.getLongArray());
+    }
+
+    /*
+    ➔ When parsing objects sharing the same keys, then...
+    ➔ Expect every object to keep its own values in key order
+    ➔ Expect edits, removals and large objects to behave like a regular map
+     */
+    public void testParseSharedShapes() {
+        JSONEntity json = JSONParser.parseJson("[{\"id\":1,\"name\":\"a\"},{\"id\":2,\"name\":\"b\"},{\"name\":\"c\",\"id\":3}]".toCharArray());
+        List<JSONEntity> records = json.getList(JSONEntity.class);
+        assertEquals(2, records.get(1).get("id", Integer.class).intValue());
+        assertEquals("b", records.get(1).get("name", String.class));
+        assertEquals(List.of("name", "id"), List.copyOf(records.get(2).getPairs().keySet()));
+        records.get(0).setPair("id", 10).addPair("extra", true);
+        assertFalse(records.get(1).has("extra"));
+        records.get(1).removePair("id");
+        assertEquals(1, records.get(1).size());
+        assertFalse(records.get(1).has("id"));
+        assertArrayEquals("[{\"id\":10,\"name\":\"a\",\"extra\":true},{\"name\":\"b\"},{\"name\":\"c\",\"id\":3}]".toCharArray(), json.toCharArray());
+        StringBuilder wide = new StringBuilder("{");
+        for (int i = 0; i < 40; i++) wide.append(i == 0 ? "" : ",").append("\"k").append(i).append("\":").append(i);
+        JSONEntity large = JSONParser.parseJson(wide.append('}').toString().toCharArray());
+        assertEquals(40, large.size());
+        assertEquals(39, large.get("k39", Integer.class).intValue());
+        assertThrows(JSONException.class, () -> JSONParser.parseJson("{\"a\":1,\"b\":2,\"a\":3}".toCharArray()));
+    }
+
+    /*
+    ➔ When parsing the json with the values of some keys off the heap, then...
+    ➔ Expect only those values (and every string nested in them) to be secure chars, readable as usual
+    ➔ Expect clearing the entity or closing the arena to zero them
+     */
+    public void testParseOffHeapStrings() {
+        char[] raw = "{\"user\":\"jack\",\"password\":\"s3cr\\\"t\",\"tokens\":{\"password\":\"x\"}}".toCharArray();
+        try (SecureArena arena = new SecureArena(16)) {
+            JSONEntity json = JSONParser.parseJson(raw, JSONParserOptions.defaults().withOffHeapStrings(arena, Set.of("password")));
+            assertTrue(json.get("user") instanceof char[]);
+            SecureChars password = (SecureChars) json.get("password");
+            assertEquals("Secure:XYZ", password.toString());
+            assertEquals("s3cr\"t", json.get("password", String.class));
+            char[] copy = new char[password.length()];
+            password.copyTo(copy, 0);
+            assertArrayEquals("s3cr\"t".toCharArray(), copy);
+            assertArrayEquals(raw, json.toCharArray());
+            assertArrayEquals(new String(raw).getBytes(StandardCharsets.UTF_8), json.toUtf8Bytes());
+            json.clear();
+            assertTrue(password.isCleared());
+            assertThrows(IllegalStateException.class, () -> password.charAt(0));
+            SecureChars nested = (SecureChars) JSONParser.parseJson(raw, JSONParserOptions.defaults().withOffHeapStrings(arena)).resolve("tokens.password", SecureChars.class);
+            assertEquals('x', nested.charAt(0));
+            arena.close();
+            assertTrue(nested.isCleared());
+            assertThrows(IllegalStateException.class, () -> nested.charAt(0));
+        }
+        try (SecureArena arena = new SecureArena(16)) {
+            char[] tree = "{\"pws\":[\"a\",{\"x\":[\"b\"]}],\"other\":[\"c\"],\"after\":\"d\"}".toCharArray();
+            JSONEntity json = JSONParser.parseJson(tree, JSONParserOptions.defaults().withOffHeapStrings(arena, Set.of("pws")));
+            assertTrue(json.get("pws", JSONEntity.class).getList().get(0) instanceof SecureChars);
+            assertTrue(json.resolve(JSONPath.compile("pws[1].x"), JSONEntity.class).getList().get(0) instanceof SecureChars);
+            assertTrue(json.get("other", JSONEntity.class).getList().get(0) instanceof char[]);
+            assertTrue(json.get("after") instanceof char[]);
+        }
+    }
+
+    /*
+    ➔ When freezing a parsed json and clearing the source, then...
+    ➔ Expect the frozen copy to read, resolve and write as the source did
+    ➔ Expect every mutation to be rejected and concurrent readers to see the same values
+     */
+    public void testFreeze() throws InterruptedException {
+        StringBuilder wide = new StringBuilder("{");
+        for (int i = 0; i < 20; i++) wide.append(i == 0 ? "" : ",").append("\"k").append(i).append("\":").append(i);
+        String raw = "{\"name\":\"cfg\",\"ids\":[1,2,3000000000],\"ratios\":[0.5,1.5],\"tags\":[\"a\",null,{\"x\":true}],"
+                + "\"wide\":" + wide.append('}') + "}";
+        char[] input = raw.toCharArray();
+        JSONEntity source = JSONParser.parseJson(input, JSONParserOptions.defaults().withZeroCopyStrings(true));
+        JSONEntity frozen = source.freeze();
+        assertTrue(frozen.isFrozen());
+        assertFalse(source.isFrozen());
+        assertSame(frozen, frozen.freeze());
+        source.clear();
+        Arrays.fill(input, ' ');
+        assertArrayEquals(raw.toCharArray(), JSONParser.parseLazy(raw.toCharArray()).freeze().toCharArray());
+
+        assertEquals("cfg", frozen.get("name", String.class));
+        assertArrayEquals(new long[] { 1, 2, 3000000000L }, frozen.get("ids", JSONEntity.class).getLongArray());
+        assertEquals(List.of(0.5, 1.5), frozen.get("ratios", JSONEntity.class).getList());
+        assertEquals(Boolean.TRUE, frozen.resolve(JSONPath.compile("tags[2].x"), Boolean.class));
+        assertEquals(19, frozen.resolve(JSONPath.compile("wide.k19"), Integer.class).intValue());
+        assertTrue(frozen.has("wide"));
+        assertNull(frozen.get("missing"));
+        assertArrayEquals(raw.toCharArray(), frozen.toCharArray());
+
+        JSONEntity tags = frozen.get("tags", JSONEntity.class);
+        assertThrows(UnsupportedOperationException.class, () -> frozen.addPair("a", 1));
+        assertThrows(UnsupportedOperationException.class, () -> frozen.setPair("name", "x"));
+        assertThrows(UnsupportedOperationException.class, () -> frozen.removePair("name"));
+        assertThrows(UnsupportedOperationException.class, () -> frozen.getPairs().put("a", 1));
+        assertThrows(UnsupportedOperationException.class, () -> frozen.setBit(1));
+        assertThrows(UnsupportedOperationException.class, () -> tags.addToList(1));
+        assertThrows(UnsupportedOperationException.class, () -> tags.getList().set(0, "b"));
+        assertThrows(UnsupportedOperationException.class, frozen::clear);
+
+        JSONPath path = JSONPath.compile("wide.k7");
+        Thread[] readers = new Thread[4];
+        int[] sums = new int[readers.length];
+        for (int t = 0; t < readers.length; t++) {
+            int reader = t;
+            readers[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) sums[reader] += frozen.resolve(path, Integer.class);
+            });
+            readers[t].start();
+        }
+        for (Thread reader : readers) reader.join();
+        for (int sum : sums) assertEquals(7000, sum);
+    }
+
+    /*
+    ➔ When freezing chars, secure chars and boxed longs then changing or clearing the source and the containers, then...
+    ➔ Expect the frozen entity to keep its own chars, hand out the same read-only views and keep every element type
+    ➔ Expect the clear of a parent to only drop the frozen child, and release() to wipe it
+     */
+    public void testFreezeOwnsItsValues() {
+        try (SecureArena arena = new SecureArena()) {
+            char[] password = "secret".toCharArray();
+            JSONEntity source = JSONEntity.newObject();
+            source.addPair("name", "cfg".toCharArray());
+            source.addPair("password", arena.allocate(password, 0, password.length));
+            JSONEntity numbers = JSONEntity.newList();
+            numbers.addToList(5L);
+            numbers.addToList(6L);
+            source.addPair("numbers", numbers);
+            JSONEntity value = JSONEntity.newValue();
+            value.setValue("v".toCharArray());
+            source.addPair("value", value);
+
+            JSONEntity frozen = source.freeze();
+            source.clear();
+            assertTrue(frozen.get("name") instanceof CharSequence);
+            assertSame(frozen.get("name"), frozen.get("name"));
+            assertSame(frozen.get("name"), frozen.getPairs().get("name"));
+            assertEquals("cfg", frozen.get("name").toString());
+            frozen.get("name", char[].class)[0] = 'x';
+            JSONEntity frozenValue = frozen.get("value", JSONEntity.class);
+            frozenValue.getValue(char[].class)[0] = 'x';
+            assertEquals("cfg", frozen.get("name", String.class));
+            assertEquals("v", frozenValue.getValue(String.class));
+            assertEquals("secret", frozen.get("password", String.class));
+            assertEquals(List.of(5L, 6L), frozen.get("numbers", JSONEntity.class).getList());
+            assertEquals(Long.class, frozen.get("numbers", JSONEntity.class).getList().get(0).getClass());
+            assertArrayEquals(new long[] { 5, 6 }, frozen.get("numbers", JSONEntity.class).getLongArray());
+
+            JSONEntity parent = JSONEntity.newList();
+            parent.addToList(frozen);
+            SecureChars secure = (SecureChars) frozen.get("password");
+            parent.clear();
+            assertNull(parent.getList().get(0));
+            assertFalse(secure.isCleared());
+            assertEquals("cfg", frozen.get("name", String.class));
+            assertEquals("v", frozenValue.getValue(String.class));
+
+            frozen.release();
+            assertTrue(secure.isCleared());
+            assertNull(frozen.get("name"));
+            assertEquals("v", frozenValue.getValue(String.class));
+
+            JSONEntity list = JSONEntity.newList();
+            list.addToList("a".toCharArray());
+            JSONEntity frozenList = list.freeze();
+            assertEquals(List.of("a"), frozenList.getList(String.class));
+            assertArrayEquals("a".toCharArray(), frozenList.getList(char[].class).get(0));
+            frozenList.release();
+            assertNull(frozenList.getList().get(0));
+        }
+    }
+
 }
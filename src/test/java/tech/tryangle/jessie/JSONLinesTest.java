@@ -0,0 +1,102 @@
+package tech.tryangle.jessie;
+
+import junit.framework.TestCase;
+import tech.tryangle.jessie.json.JSONEntity;
+import tech.tryangle.jessie.json.JSONException;
+import tech.tryangle.jessie.json.JSONLines;
+import tech.tryangle.jessie.json.JSONParser;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertThrows;
+
+public class JSONLinesTest extends TestCase {
+
+    private static final String FILE_NAME = "samples.txt";
+
+    /*
+    ➔ When parsing the samples as JSON Lines in tiny chunks, then...
+    ➔ Expect the entities to come in the order of the lines
+    ➔ Expect every entity to match the sequential parse of its line
+     */
+    public void testParseOrdered() throws Exception {
+        byte[] bytes = readSamples();
+        List<String> expected = new ArrayList<>();
+        for (String line : new String(bytes, StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isBlank()) expected.add(String.valueOf(JSONParser.parseJson(line.toCharArray()).toCharArray()));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try (Stream<JSONEntity> stream = JSONLines.defaults().withPool(pool).withChunkSize(64).withMaxInFlight(3).parse(bytes)) {
+            List<String> actual = stream.map(entity -> String.valueOf(entity.toCharArray())).collect(Collectors.toList());
+            assertEquals(expected, actual);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /*
+    ➔ When parsing many lines unordered, with blank and CRLF terminated lines, then...
+    ➔ Expect every line to be parsed exactly once
+    ➔ Expect the blank lines to be skipped
+     */
+    public void testParseUnordered() {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            lines.append("{\"id\":").append(i).append(",\"name\":\"n").append(i).append("\"}").append(i % 7 == 0 ? "\r\n\n" : "\n");
+        }
+        Set<Long> ids = new HashSet<>();
+        JSONLines.defaults().withOrdered(false).withChunkSize(256).forEach(ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8)), entity -> {
+            assertTrue(ids.add(entity.get("id", Long.class)));
+        });
+        assertEquals(5000, ids.size());
+    }
+
+    /*
+    ➔ When a line is malformed, then...
+    ➔ Expect the lines before it to be handed out
+    ➔ Expect an exception reporting the byte offset of the line
+     */
+    public void testParseMalformedLine() {
+        byte[] bytes = "[1]\n[2]\n{\"a\":}\n[4]\n".getBytes(StandardCharsets.UTF_8);
+        List<JSONEntity> entities = new ArrayList<>();
+        JSONException exception = assertThrows(JSONException.class, () -> JSONLines.defaults().withChunkSize(1).forEach(ByteBuffer.wrap(bytes), entities::add));
+        assertEquals(2, entities.size());
+        assertTrue(exception.getMessage(), exception.getMessage().endsWith("in the line at byte 8"));
+    }
+
+    /*
+    ➔ When parsing a file without a trailing newline, then...
+    ➔ Expect every line to be parsed from the mapping
+     */
+    public void testParseFile() throws Exception {
+        Path path = Files.createTempFile("jessie", ".jsonl");
+        try {
+            Files.writeString(path, "{\"a\":\"ä\"}\n\n[true,null]");
+            try (Stream<JSONEntity> stream = JSONLines.defaults().parseFile(path)) {
+                List<String> actual = stream.map(entity -> String.valueOf(entity.toCharArray())).collect(Collectors.toList());
+                assertEquals(List.of("{\"a\":\"ä\"}", "[true,null]"), actual);
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private byte[] readSamples() throws Exception {
+        try (InputStream inputStream = ClassLoader.getSystemClassLoader().getResourceAsStream(FILE_NAME)) {
+            assertNotNull(inputStream);
+            return inputStream.readAllBytes();
+        }
+    }
+
+}
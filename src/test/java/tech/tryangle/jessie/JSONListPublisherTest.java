@@ -0,0 +1,176 @@
+package tech.tryangle.jessie;
+
+import junit.framework.TestCase;
+import tech.tryangle.jessie.json.JSONEntity;
+import tech.tryangle.jessie.json.JSONException;
+import tech.tryangle.jessie.json.JSONListPublisher;
+import tech.tryangle.jessie.json.JSONPath;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.Flow;
+
+public class JSONListPublisherTest extends TestCase {
+
+    /*
+    ➔ When publishing the top-level list from chunks of 3 bytes, then...
+    ➔ Expect every element (scalars as JSON values) in order
+    ➔ Expect the completion once the document is whole
+     */
+    public void testPublishTopLevelList() {
+        Chunks chunks = new Chunks("[1, \"twö\", {\"three\":[3]}, [4, 5], null, -6.5]", 3);
+        Elements elements = new Elements(Long.MAX_VALUE);
+        JSONListPublisher publisher = new JSONListPublisher();
+        publisher.subscribe(elements);
+        chunks.subscribe(publisher);
+        assertEquals(List.of("1", "\"twö\"", "{\"three\":[3]}", "[4,5]", "null", "-6.5"), elements.values);
+        assertTrue(elements.completed);
+        assertNull(elements.error);
+    }
+
+    /*
+    ➔ When publishing the list at a path, then...
+    ➔ Expect only its elements, the lists and keys around it ignored
+     */
+    public void testPublishListAtPath() {
+        String json = "{\"data\":[{\"items\":[9]},{\"other\":[8],\"items\":[{\"a\":1},\"b\"],\"tail\":[7]}],\"items\":[6]}";
+        Elements elements = new Elements(Long.MAX_VALUE);
+        JSONListPublisher publisher = new JSONListPublisher(JSONPath.compile("data[1].items"));
+        publisher.subscribe(elements);
+        new Chunks(json, 5).subscribe(publisher);
+        assertEquals(List.of("{\"a\":1}", "\"b\""), elements.values);
+        assertTrue(elements.completed);
+    }
+
+    /*
+    ➔ When the subscriber requests elements one at a time, then...
+    ➔ Expect chunks to be read only as far as the demand needs
+     */
+    public void testBackpressure() {
+        StringJoiner joiner = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < 1000; i++) joiner.add("{\"id\":" + i + "}");
+        Chunks chunks = new Chunks(joiner.toString(), 10);
+        Elements elements = new Elements(2);
+        JSONListPublisher publisher = new JSONListPublisher();
+        publisher.subscribe(elements);
+        chunks.subscribe(publisher);
+        assertEquals(List.of("{\"id\":0}", "{\"id\":1}"), elements.values);
+        assertTrue(chunks.sent < 5);
+        elements.subscription.request(998);
+        assertEquals(1000, elements.values.size());
+        assertFalse(elements.completed);
+        elements.subscription.request(1);
+        assertTrue(elements.completed);
+    }
+
+    /*
+    ➔ When the document is malformed or has no list at the path, then...
+    ➔ Expect the error to be signaled after the elements before it
+     */
+    public void testErrors() {
+        Elements elements = new Elements(Long.MAX_VALUE);
+        JSONListPublisher publisher = new JSONListPublisher();
+        publisher.subscribe(elements);
+        Chunks chunks = new Chunks("[1,2,{\"a\":}]", 1);
+        chunks.subscribe(publisher);
+        assertEquals(List.of("1", "2"), elements.values);
+        assertTrue(elements.error instanceof JSONException);
+        assertTrue(chunks.cancelled);
+
+        elements = new Elements(Long.MAX_VALUE);
+        publisher = new JSONListPublisher(JSONPath.compile("a.b"));
+        publisher.subscribe(elements);
+        new Chunks("{\"a\":{\"b\":{}}}", 4).subscribe(publisher);
+        assertEquals("no list found at 'a.b'", elements.error.getMessage());
+        assertFalse(elements.completed);
+    }
+
+    /* Publishes the UTF-8 bytes of the json in chunks, synchronously on request */
+    private static class Chunks implements Flow.Publisher<List<ByteBuffer>>, Flow.Subscription {
+
+        private final byte[] bytes;
+
+        private final int size;
+
+        private Flow.Subscriber<? super List<ByteBuffer>> subscriber;
+
+        private int sent = 0;
+
+        private boolean cancelled = false;
+
+        private Chunks(String json, int size) {
+            this.bytes = json.getBytes(StandardCharsets.UTF_8);
+            this.size = size;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super List<ByteBuffer>> subscriber) {
+            this.subscriber = subscriber;
+            subscriber.onSubscribe(this);
+        }
+
+        @Override
+        public void request(long n) {
+            for (long i = 0; i < n && !cancelled; i++) {
+                int offset = sent * size;
+                if (offset >= bytes.length) {
+                    cancelled = true;
+                    subscriber.onComplete();
+                    return;
+                }
+                sent++;
+                subscriber.onNext(List.of(ByteBuffer.wrap(bytes, offset, Math.min(size, bytes.length - offset))));
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+    }
+
+    /* Collects the elements as json, requesting the initial demand on subscribe */
+    private static class Elements implements Flow.Subscriber<JSONEntity> {
+
+        private final long initial;
+
+        private final List<String> values = new ArrayList<>();
+
+        private Flow.Subscription subscription;
+
+        private boolean completed = false;
+
+        private Throwable error;
+
+        private Elements(long initial) {
+            this.initial = initial;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initial);
+        }
+
+        @Override
+        public void onNext(JSONEntity item) {
+            values.add(String.valueOf(item.toCharArray()));
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+    }
+
+}
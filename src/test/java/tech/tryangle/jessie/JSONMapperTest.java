@@ -0,0 +1,159 @@
+package tech.tryangle.jessie;
+
+import junit.framework.TestCase;
+import tech.tryangle.jessie.json.JSONEntity;
+import tech.tryangle.jessie.json.JSONException;
+import tech.tryangle.jessie.json.JSONMapper;
+import tech.tryangle.jessie.json.JSONParser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThrows;
+
+public class JSONMapperTest extends TestCase {
+
+    enum Role { ADMIN, USER }
+
+    record Address(String city, int zip) {}
+
+    record User(long id, String name, char[] password, boolean active, double score, Role role, Address address,
+                List<String> tags, Set<Role> roles, Map<String, Integer> limits, int[] codes, Address[] history,
+                JSONEntity extra, Object any) {}
+
+    record Node(String name, List<Node> children) {}
+
+    public static class Account {
+
+        private String owner;
+
+        private long balance;
+
+        private transient String cache = "kept";
+
+        private List<Address> addresses = new ArrayList<>();
+
+        transient int setterCalls = 0;
+
+        public String getOwner() {
+            return owner;
+        }
+
+        public void setOwner(String owner) {
+            this.owner = owner;
+            setterCalls++;
+        }
+
+    }
+
+    /*
+    ➔ When reading a record with every kind of property, then...
+    ➔ Expect each property bound to its declared type
+    ➔ Expect unknown keys to be skipped and missing ones to be null (or zero)
+     */
+    public void testReadRecord() {
+        String json = "{\"id\":12345678901,\"name\":\"Ann\",\"unknown\":{\"deep\":[1,{\"x\":2}]},\"password\":\"s3cr3t\","
+                + "\"active\":true,\"role\":\"ADMIN\",\"address\":{\"city\":\"Oslo\",\"zip\":150},\"tags\":[\"a\",\"b\"],"
+                + "\"roles\":[\"USER\",\"ADMIN\",\"USER\"],\"limits\":{\"daily\":10,\"monthly\":null},\"codes\":[1,2,3],"
+                + "\"history\":[{\"city\":\"Rome\"},null],\"extra\":{\"k\":[1.5]},\"any\":\"text\"}";
+        User user = JSONMapper.read(json.toCharArray(), User.class);
+        assertEquals(12345678901L, user.id());
+        assertEquals("Ann", user.name());
+        assertArrayEquals("s3cr3t".toCharArray(), user.password());
+        assertTrue(user.active());
+        assertEquals(0.0, user.score());
+        assertEquals(Role.ADMIN, user.role());
+        assertEquals(new Address("Oslo", 150), user.address());
+        assertEquals(List.of("a", "b"), user.tags());
+        assertEquals(List.of(Role.USER, Role.ADMIN), new ArrayList<>(user.roles()));
+        assertEquals(10, (int) user.limits().get("daily"));
+        assertTrue(user.limits().containsKey("monthly"));
+        assertArrayEquals(new int[] { 1, 2, 3 }, user.codes());
+        assertEquals(new Address("Rome", 0), user.history()[0]);
+        assertNull(user.history()[1]);
+        assertEquals("{\"k\":[1.5]}", String.valueOf(user.extra().toCharArray()));
+        assertArrayEquals("text".toCharArray(), (char[]) user.any());
+    }
+
+    /*
+    ➔ When reading a POJO and a recursive record, from chars and bytes, then...
+    ➔ Expect setters to be used when present and fields otherwise
+    ➔ Expect transient fields to be left alone
+     */
+    public void testReadPojoAndRecursiveRecord() {
+        byte[] bytes = "{\"owner\":\"Bob\",\"balance\":-7,\"cache\":\"x\",\"addresses\":[{\"city\":\"Lima\",\"zip\":1}]}".getBytes(StandardCharsets.UTF_8);
+        Account account = JSONMapper.read(bytes, Account.class);
+        assertEquals("Bob", account.getOwner());
+        assertEquals(1, account.setterCalls);
+        assertEquals(-7, account.balance);
+        assertEquals("kept", account.cache);
+        assertEquals(List.of(new Address("Lima", 1)), account.addresses);
+
+        Node node = JSONMapper.read("{\"name\":\"a\",\"children\":[{\"name\":\"b\",\"children\":[]}]}".toCharArray(), Node.class);
+        assertEquals(new Node("a", List.of(new Node("b", List.of()))), node);
+        assertEquals(List.of(1, 2), List.of(JSONMapper.read("[1,2]".toCharArray(), Integer[].class)));
+        assertEquals(3L, (long) JSONMapper.read(" 3 ".toCharArray(), long.class));
+    }
+
+    /*
+    ➔ When writing values and reading them back, then...
+    ➔ Expect the same values
+     */
+    public void testWriteAndReadBack() {
+        User user = new User(1, "Zoë \"Z\"", "pw".toCharArray(), false, 2.5, Role.USER, new Address("Kyiv", 1000),
+                List.of("x"), Set.of(Role.ADMIN), Map.of("a", 1), new int[] { 7 }, new Address[] { new Address("Riga", 2) },
+                null, List.of(1L, "y"));
+        char[] json = JSONMapper.write(user);
+        assertEquals("{\"id\":1,\"name\":\"Zoë \\\"Z\\\"\",\"password\":\"pw\",\"active\":false,\"score\":2.5,\"role\":\"USER\","
+                + "\"address\":{\"city\":\"Kyiv\",\"zip\":1000},\"tags\":[\"x\"],\"roles\":[\"ADMIN\"],\"limits\":{\"a\":1},"
+                + "\"codes\":[7],\"history\":[{\"city\":\"Riga\",\"zip\":2}],\"extra\":null,\"any\":[1,\"y\"]}", String.valueOf(json));
+        User read = JSONMapper.read(json, User.class);
+        assertEquals(user.name(), read.name());
+        assertEquals(user.address(), read.address());
+        assertArrayEquals(user.history(), read.history());
+
+        Account account = new Account();
+        account.setOwner("Eve");
+        account.balance = 9;
+        assertEquals("{\"owner\":\"Eve\",\"balance\":9,\"addresses\":[]}", String.valueOf(JSONMapper.write(account)));
+        assertEquals("null", String.valueOf(JSONMapper.write(null)));
+    }
+
+    /*
+    ➔ When the JSON does not fit the type, then...
+    ➔ Expect a JSON exception naming the type
+     */
+    public void testReadMismatch() {
+        JSONException exception = assertThrows(JSONException.class, () -> JSONMapper.read("{\"city\":1}".toCharArray(), Address.class));
+        assertEquals("cannot bind a number to java.lang.String", exception.getMessage());
+        exception = assertThrows(JSONException.class, () -> JSONMapper.read("{\"zip\":1.5}".toCharArray(), Address.class));
+        assertEquals("cannot bind a decimal to int", exception.getMessage());
+        exception = assertThrows(JSONException.class, () -> JSONMapper.read("{\"zip\":3000000000}".toCharArray(), Address.class));
+        assertEquals("numeric out of range", exception.getMessage());
+        exception = assertThrows(JSONException.class, () -> JSONMapper.read("{\"role\":\"ROOT\"}".toCharArray(), User.class));
+        assertEquals("unknown constant of tech.tryangle.jessie.JSONMapperTest$Role", exception.getMessage());
+        assertThrows(JSONException.class, () -> JSONMapper.read("[1]".toCharArray(), Address.class));
+        assertThrows(JSONException.class, () -> JSONMapper.read("{\"city\":}".toCharArray(), Address.class));
+        exception = assertThrows(JSONException.class, () -> JSONMapper.read("9.223372036854775808E18".toCharArray(), long.class));
+        assertEquals("cannot bind a decimal to long", exception.getMessage());
+        assertEquals(Long.MIN_VALUE, (long) JSONMapper.read("-9.223372036854775808E18".toCharArray(), long.class));
+    }
+
+    /*
+    ➔ When an object repeats a key, then...
+    ➔ Expect the same error as the parser, for known, unknown and skipped keys alike
+     */
+    public void testReadDuplicateKeys() {
+        for (String json : List.of("{\"zip\":1,\"zip\":2}", "{\"x\":1,\"zip\":2,\"x\":3}", "{\"x\":{\"y\":1,\"y\":2}}")) {
+            assertEquals("duplicate key", assertThrows(JSONException.class, () -> JSONParser.parseJson(json.toCharArray())).getMessage());
+            assertEquals("duplicate key", assertThrows(JSONException.class, () -> JSONMapper.read(json.toCharArray(), Address.class)).getMessage());
+        }
+        assertThrows(JSONException.class, () -> JSONMapper.read("{\"owner\":\"a\",\"owner\":\"b\"}".toCharArray(), Account.class));
+        assertThrows(JSONException.class, () -> JSONMapper.read("{\"a\":1,\"a\":2}".toCharArray(), Map.class));
+    }
+
+}
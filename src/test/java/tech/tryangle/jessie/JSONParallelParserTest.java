@@ -0,0 +1,103 @@
+package tech.tryangle.jessie;
+
+import junit.framework.TestCase;
+import tech.tryangle.jessie.json.JSONEntity;
+import tech.tryangle.jessie.json.JSONException;
+import tech.tryangle.jessie.json.JSONParallelParser;
+import tech.tryangle.jessie.json.JSONParser;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThrows;
+
+public class JSONParallelParserTest extends TestCase {
+
+    private static final String FILE_NAME = "samples.txt";
+
+    /*
+    ➔ When parsing a list of every sample in tiny chunks, from chars and from bytes, then...
+    ➔ Expect the result to match the sequential parse
+     */
+    public void testParseSamples() throws Exception {
+        StringJoiner joiner = new StringJoiner(",\n", "[", "]");
+        try (InputStream inputStream = ClassLoader.getSystemClassLoader().getResourceAsStream(FILE_NAME)) {
+            assertNotNull(inputStream);
+            for (String line : new String(inputStream.readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+                if (!line.isBlank()) joiner.add(line.trim());
+            }
+        }
+        char[] json = joiner.toString().toCharArray();
+        char[] expected = JSONParser.parseJson(json).toCharArray();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            JSONParallelParser parser = JSONParallelParser.defaults().withPool(pool).withChunkSize(32).withMaxInFlight(3);
+            assertArrayEquals(expected, parser.parse(json).toCharArray());
+            assertArrayEquals(expected, parser.parse(new String(json).getBytes(StandardCharsets.UTF_8)).toCharArray());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /*
+    ➔ When parsing a big list of numbers, then...
+    ➔ Expect the list to keep them unboxed like the sequential parse
+     */
+    public void testParseNumbers() {
+        StringJoiner joiner = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < 10000; i++) joiner.add(Integer.toString(i * 31 - 5000));
+        char[] json = joiner.toString().toCharArray();
+        JSONEntity entity = JSONParallelParser.defaults().withChunkSize(100).parse(json);
+        assertTrue(entity.isList());
+        assertArrayEquals(JSONParser.parseJson(json).getLongArray(), entity.getLongArray());
+    }
+
+    /*
+    ➔ When parsing malformed lists, then...
+    ➔ Expect the exact error of the sequential parse, for parse and stream, from chars and from bytes
+     */
+    public void testParseMalformed() {
+        JSONParallelParser parser = JSONParallelParser.defaults().withChunkSize(1);
+        String[] samples = { "[1,2,]", "[1,,2]", "[,1]", "[1,2", "[{\"a\":1]]", "[1] x", "[] x", "[\"abc]", "[\"a\\\"]",
+                "[1,{\"a\":}]", "[1,2}", "[1 2]", "[tru]", "[1,{\"a\":[1,2}]",
+                "[{\"a\":1,\"a\":2}]", "[1,{\"b\":{\"a\":1,\"a\":2}},[1,]]" };
+        for (String sample : samples) {
+            char[] json = sample.toCharArray();
+            byte[] bytes = sample.getBytes(StandardCharsets.UTF_8);
+            String expected = assertThrows(sample, JSONException.class, () -> JSONParser.parseJson(json)).getMessage();
+            assertEquals(sample, expected, assertThrows(JSONException.class, () -> parser.parse(json)).getMessage());
+            assertEquals(sample, expected, assertThrows(JSONException.class, () -> parser.parse(bytes)).getMessage());
+            assertEquals(sample, expected, assertThrows(JSONException.class, () -> drain(parser.stream(json))).getMessage());
+            assertEquals(sample, expected, assertThrows(JSONException.class, () -> drain(parser.stream(bytes))).getMessage());
+        }
+    }
+
+    /*
+    ➔ When streaming the elements of a list, then...
+    ➔ Expect scalars to come as JSON values and containers as themselves
+    ➔ Expect a document that is not a list to be rejected
+     */
+    public void testStream() {
+        char[] json = " [ 1 , \"two\" , {\"three\":3} , [4] , null ] ".toCharArray();
+        List<String> elements = drain(JSONParallelParser.defaults().withChunkSize(1).stream(json));
+        assertEquals(List.of("1", "\"two\"", "{\"three\":3}", "[4]", "null"), elements);
+        assertEquals(5, drain(JSONParallelParser.defaults().withChunkSize(1).withOrdered(false).stream(json)).size());
+        assertEquals(List.of(), drain(JSONParallelParser.defaults().stream("[ ]".toCharArray())));
+        assertTrue(JSONParallelParser.defaults().withChunkSize(1).parse("{\"a\":[1,2]}".toCharArray()).isObject());
+        JSONException exception = assertThrows(JSONException.class, () -> drain(JSONParallelParser.defaults().stream("{\"a\":1}".toCharArray())));
+        assertEquals("expected a top-level list", exception.getMessage());
+    }
+
+    private static List<String> drain(Stream<JSONEntity> stream) {
+        try (stream) {
+            return stream.map(entity -> String.valueOf(entity.toCharArray())).collect(Collectors.toList());
+        }
+    }
+
+}
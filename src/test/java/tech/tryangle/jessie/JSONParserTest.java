@@ -16,14 +16,26 @@
 package tech.tryangle.jessie;
 
 import tech.tryangle.jessie.json.JSONEntity;
+import tech.tryangle.jessie.json.JSONException;
+import tech.tryangle.jessie.json.JSONHandler;
 import tech.tryangle.jessie.json.JSONParser;
+import tech.tryangle.jessie.json.JSONParserContext;
+import tech.tryangle.jessie.json.JSONParserOptions;
+import tech.tryangle.jessie.json.JSONSymbolTable;
 import junit.framework.TestCase;
 
 import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.Set;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThrows;
 
 public class JSONParserTest extends TestCase {
 
@@ -44,4 +56,163 @@ public class JSONParserTest extends TestCase {
         }
     }
 
+    public void testParseBytes() throws Exception {
+        InputStream inputStream = ClassLoader.getSystemClassLoader().getResourceAsStream(FILE_NAME);
+        assertNotNull(inputStream);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+                JSONEntity json = JSONParser.parseJson(trimmed.getBytes(StandardCharsets.UTF_8));
+                assertArrayEquals(trimmed.toCharArray(), json.toCharArray());
+            }
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    public void testParseLazy() throws Exception {
+        InputStream inputStream = ClassLoader.getSystemClassLoader().getResourceAsStream(FILE_NAME);
+        assertNotNull(inputStream);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                char[] chars = line.trim().toCharArray();
+                JSONEntity json = JSONParser.parseLazy(chars);
+                assertArrayEquals(chars, json.toCharArray());
+            }
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    public void testParseByteBufferKeepsPosition() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+        buffer.put("xx{\"name\":\"jäck 😀\",\"age\":50}".getBytes(StandardCharsets.UTF_8)).flip();
+        buffer.position(2);
+        JSONEntity json = JSONParser.parseJson(buffer);
+        assertEquals(2, buffer.position());
+        assertEquals("jäck 😀", json.get("name", String.class));
+        assertEquals(50, json.get("age", Integer.class).intValue());
+    }
+
+    public void testParseBytesInvalidUtf8() {
+        byte[] truncated = { '"', (byte) 0xE2, (byte) 0x82, '"' };
+        assertThrows(JSONException.class, () -> JSONParser.parseJson(truncated));
+        byte[] overlong = { '"', (byte) 0xC0, (byte) 0xAF, '"' };
+        assertThrows(JSONException.class, () -> JSONParser.parseJson(overlong));
+    }
+
+    public void testParseWithHandler() {
+        char[] raw = "{\"name\":\"ja\\\"ck\",\"ages\":[35,45.5],\"ok\":true,\"no\":null}".toCharArray();
+        StringBuilder events = new StringBuilder();
+        JSONParser.parseJson(raw, new JSONHandler() {
+            @Override public void startObject() { events.append('{'); }
+            @Override public void endObject() { events.append('}'); }
+            @Override public void startList() { events.append('['); }
+            @Override public void endList() { events.append(']'); }
+            @Override public void key(char[] chars, int offset, int length) { events.append(chars, offset, length).append(':'); }
+            @Override public void stringValue(char[] chars, int offset, int length) { events.append('<').append(chars, offset, length).append('>'); }
+            @Override public void numberValue(long value) { events.append(value).append(';'); }
+            @Override public void numberValue(double value) { events.append(value).append(';'); }
+            @Override public void booleanValue(boolean value) { events.append(value).append(';'); }
+            @Override public void nullValue() { events.append("null;"); }
+        });
+        assertEquals("{name:<ja\"ck>ages:[35;45.5;]ok:true;no:null;}", events.toString());
+    }
+
+    public void testParseMalformed() {
+        for (String json : new String[] { "{\"a\" 1}", "[1,]", "[1 2]", "{\"a\":1", "[\"open", "1 2", "[tru]", "{1:2}", "]" }) {
+            assertThrows(json, JSONException.class, () -> JSONParser.parseJson(json.toCharArray()));
+            assertThrows(json, JSONException.class, () -> JSONParser.parseJson(json.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    public void testParseNumbers() {
+        JSONEntity json = JSONParser.parseJson("[0,-0,42,-9223372036854775808,9223372036854775807,1e2,-2.5E-3,0.1,1E-400000000]".toCharArray());
+        assertEquals(0, json.getElement(0, Integer.class).intValue());
+        assertEquals(0, json.getElement(1, Integer.class).intValue());
+        assertEquals(42, json.getElement(2, Integer.class).intValue());
+        assertEquals(Long.MIN_VALUE, json.getElement(3, Long.class).longValue());
+        assertEquals(Long.MAX_VALUE, json.getElement(4, Long.class).longValue());
+        assertEquals(100.0, json.getElement(5, Double.class));
+        assertEquals(-0.0025, json.getElement(6, Double.class));
+        assertEquals(0.1, json.getElement(7, Double.class));
+        assertEquals(0.0, json.getElement(8, Double.class));
+        assertEquals(-0.0, JSONParser.parseJson("-0.0".toCharArray()).getValue(Double.class));
+        for (String number : new String[] { "9223372036854775808", "-9223372036854775809", "123456789012345678901", "1e309", "-1.8e308" }) {
+            JSONException exception = assertThrows(number, JSONException.class, () -> JSONParser.parseJson(number.toCharArray()));
+            assertEquals("numeric out of range", exception.getMessage());
+        }
+        for (String number : new String[] { "01", "-", "1.", "1.2.3", "--1", "1e", "1e+", "+1", "1-2", "2E-" }) {
+            assertThrows(number, JSONException.class, () -> JSONParser.parseJson(number.toCharArray()));
+            assertThrows(number, JSONException.class, () -> JSONParser.parseJson(number.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    public void testParseDecimalsExactly() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            String number = switch (i % 4) {
+                case 0 -> String.valueOf(Double.longBitsToDouble(random.nextLong() & Long.MAX_VALUE));
+                case 1 -> random.nextInt(1_000_000) + "." + random.nextInt(1_000_000) + "e" + (random.nextInt(700) - 350);
+                case 2 -> Math.abs(random.nextLong()) + "" + Math.abs(random.nextLong()) + "e" + (random.nextInt(660) - 345);
+                default -> "0." + "0".repeat(random.nextInt(20)) + Math.abs(random.nextLong());
+            };
+            double expected = Double.parseDouble(number);
+            if (Double.isInfinite(expected) || Double.isNaN(expected)) continue;
+            assertEquals(number, expected, JSONParser.parseJson(number.toCharArray()).getValue(Double.class));
+            assertEquals(number, expected, JSONParser.parseJson(number.getBytes(StandardCharsets.UTF_8)).getValue(Double.class));
+        }
+    }
+
+    public void testParseWithSymbolTable() {
+        JSONSymbolTable symbols = JSONSymbolTable.create(100, Set.of("password"));
+        assertEquals(128, symbols.capacity());
+        JSONParserOptions options = JSONParserOptions.defaults().withSymbolTable(symbols);
+        JSONEntity first = JSONParser.parseJson("{\"name\":\"a\",\"password\":\"x\"}".toCharArray(), options);
+        JSONEntity second = JSONParser.parseJson(ByteBuffer.wrap("{\"name\":\"b\",\"password\":\"y\"}".getBytes(StandardCharsets.UTF_8)), options);
+        String[] firstKeys = first.getPairs().keySet().toArray(new String[0]);
+        String[] secondKeys = second.getPairs().keySet().toArray(new String[0]);
+        assertSame(firstKeys[0], secondKeys[0]);
+        assertNotSame(firstKeys[1], secondKeys[1]);
+        assertEquals("y", second.get("password", String.class));
+        JSONSymbolTable tiny = JSONSymbolTable.create(1);
+        assertEquals("ab", tiny.intern("ab".toCharArray(), 0, 2));
+        assertEquals("cd", tiny.intern("xcd".toCharArray(), 1, 2));
+        assertSame(tiny.intern("cd".toCharArray(), 0, 2), tiny.intern("cd".toCharArray(), 0, 2));
+    }
+
+    public void testParseWithContext() {
+        JSONParserContext context = new JSONParserContext(256);
+        String big = "x".repeat(10_000);
+        for (String json : new String[] { "{\"a\":\"b\",\"n\":[1,2.5]}", "[\"" + big + "\"]", "{\"a\":\"c\"}" }) {
+            char[] chars = json.toCharArray();
+            assertArrayEquals(chars, context.parseJson(chars).toCharArray());
+            assertArrayEquals(chars, context.parseJson(json.getBytes(StandardCharsets.UTF_8)).toCharArray());
+        }
+        assertThrows(JSONException.class, () -> context.parseJson("{\"a\":".toCharArray()));
+        assertEquals("d", context.parseJson("{\"c\":\"d\"}".toCharArray()).get("c", String.class));
+        StringBuilder nested = new StringBuilder();
+        context.parseJson("[\"{\\\"k\\\":7}\"]".toCharArray(), new JSONHandler() {
+            @Override public void stringValue(char[] chars, int offset, int length) {
+                nested.append(context.parseJson(new String(chars, offset, length).toCharArray()).get("k", Integer.class));
+            }
+        });
+        assertEquals("7", nested.toString());
+        assertSame(JSONParserContext.current(), JSONParserContext.current());
+    }
+
+    public void testParseFile() throws Exception {
+        Path file = Files.createTempFile("jessie", ".json");
+        try {
+            Files.write(file, "{\"name\":\"jäck\",\"ages\":[35,45]}".getBytes(StandardCharsets.UTF_8));
+            JSONEntity json = JSONParser.parseFile(file);
+            assertEquals("jäck", json.get("name", String.class));
+            assertEquals(2, json.get("ages", JSONEntity.class).size());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
 }
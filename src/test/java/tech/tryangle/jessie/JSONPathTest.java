@@ -0,0 +1,82 @@
+package tech.tryangle.jessie;
+
+import junit.framework.TestCase;
+import tech.tryangle.jessie.json.JSONEntity;
+import tech.tryangle.jessie.json.JSONParser;
+import tech.tryangle.jessie.json.JSONPath;
+import tech.tryangle.jessie.json.JSONPathSet;
+
+import static org.junit.Assert.assertThrows;
+
+public class JSONPathTest extends TestCase {
+
+    private static final String SAMPLE = "{\"a\":{\"b\":[1,2,3,{\"c\":\"found\",\"d.e\":true}]},\"list\":[[10,20]]}";
+
+    /*
+    ➔ When compiling a path, then...
+    ➔ Expect keys, indices and escaped dots to be split into segments
+     */
+    public void testCompile() {
+        JSONPath path = JSONPath.compile("a.b[3].d\\.e");
+        assertEquals(4, path.size());
+        assertEquals("a", path.getKey(0));
+        assertEquals("b", path.getKey(1));
+        assertTrue(path.isIndex(2));
+        assertEquals(3, path.getIndex(2));
+        assertEquals("d.e", path.getKey(3));
+        assertEquals("a.b[3].d\\.e", path.toString());
+        JSONPath nested = JSONPath.compile("[0][1]");
+        assertEquals(2, nested.size());
+        assertEquals(1, nested.getIndex(1));
+    }
+
+    /*
+    ➔ When compiling an invalid path, then...
+    ➔ Expect an error to be thrown
+     */
+    public void testCompileInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> JSONPath.compile("a[]"));
+        assertThrows(IllegalArgumentException.class, () -> JSONPath.compile("a[x]"));
+        assertThrows(IllegalArgumentException.class, () -> JSONPath.compile("a[1"));
+        assertThrows(IllegalArgumentException.class, () -> JSONPath.compile("a[1]b"));
+        assertThrows(IllegalArgumentException.class, () -> JSONPath.compile("a\\"));
+    }
+
+    /*
+    ➔ When resolving compiled paths on eager and lazy entities, then...
+    ➔ Expect the values to be found, or null when the path goes nowhere
+     */
+    public void testResolve() {
+        for (JSONEntity json : new JSONEntity[] { JSONParser.parseJson(SAMPLE.toCharArray()), JSONParser.parseLazy(SAMPLE.toCharArray()) }) {
+            assertEquals("found", json.resolve(JSONPath.compile("a.b[3].c"), String.class));
+            assertTrue(json.resolve(JSONPath.compile("a.b[3].d\\.e"), Boolean.class));
+            assertEquals(2, json.resolve(JSONPath.compile("a.b[1]"), Integer.class).intValue());
+            assertEquals(20, json.resolve(JSONPath.compile("list[0][1]"), Integer.class).intValue());
+            assertNull(json.resolve(JSONPath.compile("a.b[9].c"), String.class));
+            assertNull(json.resolve(JSONPath.compile("a.b[0].c"), String.class));
+            assertNull(json.resolve(JSONPath.compile("a.x.c"), String.class));
+            assertEquals("none", json.resolveOrElse(JSONPath.compile("a.x"), String.class, "none"));
+            assertEquals(3, json.resolve("a.b", JSONEntity.class).getElement(2, Integer.class).intValue());
+        }
+    }
+
+    /*
+    ➔ When parsing only a set of paths, then...
+    ➔ Expect the requested values to be present and everything else to be skipped
+     */
+    public void testParseProjection() {
+        String raw = "{\"skip\":{\"x\":[1,\"]}\",{}]},\"a\":{\"b\":[1,2,3,{\"c\":\"found\",\"d.e\":true}],\"z\":0},\"list\":[[10,20]],\"k\\u0065y\":[\"x\"]}";
+        JSONPathSet paths = JSONPathSet.of("a.b[3].c", "list[0]", "key", "missing.value");
+        JSONEntity json = JSONParser.parseJson(raw.toCharArray(), paths);
+        assertEquals("found", json.resolve(JSONPath.compile("a.b[3].c"), String.class));
+        assertNull(json.resolve(JSONPath.compile("a.b[3].d\\.e"), Boolean.class));
+        assertNull(json.resolve(JSONPath.compile("a.b[0]"), Integer.class));
+        assertEquals(20, json.resolve(JSONPath.compile("list[0][1]"), Integer.class).intValue());
+        assertEquals("x", json.get("key", JSONEntity.class).getElement(0, String.class));
+        assertFalse(json.has("skip"));
+        assertFalse(json.has("missing"));
+        assertEquals(3, json.size());
+        assertEquals(1, json.get("a", JSONEntity.class).size());
+    }
+
+}
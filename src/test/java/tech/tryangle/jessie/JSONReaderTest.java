@@ -0,0 +1,98 @@
+package tech.tryangle.jessie;
+
+import junit.framework.TestCase;
+import tech.tryangle.jessie.json.JSONException;
+import tech.tryangle.jessie.json.JSONReader;
+import tech.tryangle.jessie.json.JSONToken;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThrows;
+
+public class JSONReaderTest extends TestCase {
+
+    private static final String SAMPLE = "{\"name\":\"ja\\\"ck\",\"ages\":[35,-45.5],\"tags\":{\"a\":[{}]},\"ok\":true,\"no\":null}";
+
+    /*
+    ➔ When reading the json token by token with a tiny buffer, then...
+    ➔ Expect every token and value to match the document
+    ➔ Expect no error to be thrown
+     */
+    public void testNextToken() throws Exception {
+        try (JSONReader reader = new JSONReader(new StringReader(SAMPLE), 3)) {
+            assertEquals(JSONToken.START_OBJECT, reader.nextToken());
+            assertEquals(JSONToken.KEY, reader.nextToken());
+            assertEquals("name", reader.getKey());
+            assertEquals(JSONToken.STRING, reader.nextToken());
+            assertArrayEquals("ja\"ck".toCharArray(), reader.getChars());
+            assertEquals(JSONToken.KEY, reader.nextToken());
+            assertEquals(JSONToken.START_LIST, reader.nextToken());
+            assertEquals(JSONToken.NUMBER, reader.nextToken());
+            assertEquals(35L, reader.getLong());
+            assertEquals(JSONToken.NUMBER, reader.nextToken());
+            assertEquals(-45.5d, reader.getDouble());
+            assertEquals(JSONToken.END_LIST, reader.nextToken());
+            assertEquals(JSONToken.KEY, reader.nextToken());
+            assertEquals("tags", reader.getKey());
+            assertEquals(JSONToken.START_OBJECT, reader.nextToken());
+            assertEquals(2, reader.getDepth());
+            reader.skipChildren();
+            assertEquals(JSONToken.END_OBJECT, reader.currentToken());
+            assertEquals(1, reader.getDepth());
+            assertEquals(JSONToken.KEY, reader.nextToken());
+            assertEquals(JSONToken.TRUE, reader.nextToken());
+            assertTrue(reader.getBoolean());
+            assertEquals(JSONToken.KEY, reader.nextToken());
+            assertEquals(JSONToken.NULL, reader.nextToken());
+            assertEquals(JSONToken.END_OBJECT, reader.nextToken());
+            assertNull(reader.nextToken());
+        }
+    }
+
+    /*
+    ➔ When reading the json from an input stream, then...
+    ➔ Expect the UTF-8 bytes to be decoded
+    ➔ Expect malformed UTF-8 to be rejected as the byte parser does
+     */
+    public void testInputStream() throws Exception {
+        byte[] bytes = "[\"jäck 😀\"]".getBytes(StandardCharsets.UTF_8);
+        try (JSONReader reader = new JSONReader(new ByteArrayInputStream(bytes))) {
+            assertEquals(JSONToken.START_LIST, reader.nextToken());
+            assertEquals(JSONToken.STRING, reader.nextToken());
+            assertArrayEquals("jäck 😀".toCharArray(), reader.getChars());
+        }
+        byte[] malformed = { '[', '"', 'a', (byte) 0xC3, '"', ']' };
+        try (JSONReader reader = new JSONReader(new ByteArrayInputStream(malformed))) {
+            JSONException e = assertThrows(JSONException.class, () -> {
+                while (reader.nextToken() != null) reader.currentToken();
+            });
+            assertEquals("invalid utf-8 sequence", e.getMessage());
+        }
+    }
+
+    /*
+    ➔ When reading malformed json, then...
+    ➔ Expect an error to be thrown
+     */
+    public void testMalformed() {
+        assertThrows(JSONException.class, () -> readAll("{\"a\" 1}"));
+        assertThrows(JSONException.class, () -> readAll("[1,]"));
+        assertThrows(JSONException.class, () -> readAll("[1 2]"));
+        assertThrows(JSONException.class, () -> readAll("{\"a\":1"));
+        assertThrows(JSONException.class, () -> readAll("[\"open"));
+        assertThrows(JSONException.class, () -> readAll("1 2"));
+        assertThrows(JSONException.class, () -> readAll("[tru]"));
+    }
+
+    private static void readAll(String json) throws Exception {
+        try (JSONReader reader = new JSONReader(new StringReader(json))) {
+            while (reader.nextToken() != null) {
+                reader.currentToken();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+package tech.tryangle.jessie;
+
+import junit.framework.TestCase;
+import tech.tryangle.jessie.json.JSONEntity;
+import tech.tryangle.jessie.json.JSONException;
+import tech.tryangle.jessie.json.JSONParser;
+import tech.tryangle.jessie.json.JSONWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThrows;
+
+public class JSONWriterTest extends TestCase {
+
+    private static final String SAMPLE = "{\"name\":\"ja\\\"ck\\u0001\",\"ages\":[35,-45.5],\"ids\":[-9223372036854775808,0],\"tags\":{\"a\":[{}]},\"ok\":true,\"no\":null}";
+
+    /*
+    ➔ When writing the json event by event through a tiny buffer, then...
+    ➔ Expect commas, colons and escapes to be placed by the writer
+     */
+    public void testWriteEvents() throws Exception {
+        StringWriter out = new StringWriter();
+        try (JSONWriter writer = new JSONWriter(out, 32)) {
+            writer.beginObject()
+                    .name("name").value("ja\"ck\u0001")
+                    .name("ages").beginList().value(35).value(-45.5).endList()
+                    .name("ids").beginList().value(Long.MIN_VALUE).value(0).endList()
+                    .name("tags").beginObject().name("a").beginList().beginObject().endObject().endList().endObject()
+                    .name("ok").value(true)
+                    .name("no").nullValue()
+                    .endObject();
+        }
+        assertEquals(SAMPLE, out.toString());
+    }
+
+    /*
+    ➔ When writing a parsed json entity to a stream and to an appendable, then...
+    ➔ Expect both outputs to match the document
+     */
+    public void testWriteEntity() throws Exception {
+        JSONEntity json = JSONParser.parseJson("{\"name\":\"jäck\",\"ages\":[35,45],\"temps\":[1.5,-2.0],\"x\":[\"a\",1]}".toCharArray());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JSONWriter writer = new JSONWriter(bytes)) {
+            writer.value(json);
+        }
+        assertEquals("{\"name\":\"jäck\",\"ages\":[35,45],\"temps\":[1.5,-2.0],\"x\":[\"a\",1]}", bytes.toString(StandardCharsets.UTF_8));
+        StringBuilder builder = new StringBuilder();
+        JSONWriter writer = new JSONWriter(builder);
+        writer.beginList().value(json).value(json.get("ages", JSONEntity.class)).endList().flush();
+        assertEquals("[" + bytes.toString(StandardCharsets.UTF_8) + ",[35,45]]", builder.toString());
+    }
+
+    /*
+    ➔ When encoding a json entity straight to UTF-8, then...
+    ➔ Expect the bytes to match the chars encoded, lone surrogates escaped
+    ➔ Expect a byte buffer too small to be left untouched
+     */
+    public void testWriteUtf8() throws Exception {
+        JSONEntity json = JSONParser.parseJson("{\"name\":\"jäck € \uD83D\uDE00\",\"ages\":[35,45.5],\"odd\":\"\uD800\"}".toCharArray());
+        String expected = "{\"name\":\"jäck € \uD83D\uDE00\",\"ages\":[35,45.5],\"odd\":\"\\ud800\"}";
+        byte[] utf8 = expected.getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(utf8, json.toUtf8Bytes());
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        try (JSONWriter writer = new JSONWriter(stream, 32)) {
+            writer.value(json);
+        }
+        assertArrayEquals(utf8, stream.toByteArray());
+        ByteBuffer direct = ByteBuffer.allocateDirect(utf8.length + 2);
+        direct.put((byte) '#');
+        json.writeUtf8(direct);
+        assertEquals(utf8.length + 1, direct.position());
+        byte[] written = new byte[utf8.length];
+        direct.get(1, written);
+        assertArrayEquals(utf8, written);
+        ByteBuffer small = ByteBuffer.allocate(10);
+        small.put((byte) '#');
+        assertThrows(BufferOverflowException.class, () -> json.writeUtf8(small));
+        assertEquals(1, small.position());
+        assertEquals(0, small.get(1));
+    }
+
+    /*
+    ➔ When writing decimals and floats as chars and as UTF-8 bytes, then...
+    ➔ Expect the shortest digits in the format of Double.toString and Float.toString
+     */
+    public void testWriteDecimals() {
+        SplittableRandom random = new SplittableRandom(7);
+        double[] samples = { 0.0, -0.0, 0.1, 0.001, 9.99e-4, 1e7, 9999999.5, 1e23, 2.0 / 3, 4.9e-324, Double.MIN_NORMAL, Double.MAX_VALUE, 0x1p53 };
+        for (int i = 0; i < 100_000 + samples.length; i++) {
+            double value = i < samples.length ? samples[i] : Double.longBitsToDouble(random.nextLong());
+            if (Double.isNaN(value) || Double.isInfinite(value)) continue;
+            assertWritten(Double.toString(value), value);
+            float single = Float.intBitsToFloat(random.nextInt());
+            if (!Float.isNaN(single) && !Float.isInfinite(single)) assertWritten(Float.toString(single), single);
+        }
+    }
+
+    private static void assertWritten(String expected, Object value) {
+        JSONEntity entity = JSONEntity.newValue();
+        entity.setValue(value);
+        assertEquals(expected, String.valueOf(entity.toCharArray()));
+        assertEquals(expected, new String(entity.toUtf8Bytes(), StandardCharsets.US_ASCII));
+    }
+
+    /*
+    ➔ When writing the events out of order, then...
+    ➔ Expect a JSON exception to be thrown
+     */
+    public void testWriteMalformed() {
+        assertThrows(JSONException.class, () -> new JSONWriter(new StringWriter()).beginObject().value(1));
+        assertThrows(JSONException.class, () -> new JSONWriter(new StringWriter()).beginList().name("a"));
+        assertThrows(JSONException.class, () -> new JSONWriter(new StringWriter()).beginList().endObject());
+        assertThrows(JSONException.class, () -> new JSONWriter(new StringWriter()).value(1).value(2));
+        assertThrows(JSONException.class, () -> new JSONWriter(new StringWriter()).value(Double.NaN));
+        assertThrows(JSONException.class, () -> new JSONWriter(new StringWriter()).beginObject().close());
+    }
+
+}